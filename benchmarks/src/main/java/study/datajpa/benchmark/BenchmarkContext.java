@@ -0,0 +1,95 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.Application;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberJpaRepository;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/*
+    벤치마크 공용 상태
+    - trial(= @Param 조합) 마다 Spring 컨텍스트를 새로 띄우고 임베디드 H2 에 dataSize 만큼 데이터를 넣어둠
+    - DB 이름을 trial 마다 다르게 줘서 이전 trial 데이터가 섞이지 않도록 함
+    - SQL 로그는 측정에 영향을 주니까 꺼둠 (나머지 설정은 application.yml 그대로)
+ */
+@State(Scope.Benchmark)
+public class BenchmarkContext {
+
+    public static final int TEAM_COUNT = 100;
+    public static final int AGE_BUCKETS = 10; // age 하나당 dataSize / 10 건
+
+    @Param({"1000", "10000", "100000"})
+    public int dataSize;
+
+    public ConfigurableApplicationContext context;
+    public MemberJpaRepository memberJpaRepository;
+    public MemberRepository memberRepository;
+    public TeamRepository teamRepository;
+    public TransactionTemplate transactionTemplate;
+
+    private long firstMemberId;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        context = new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                // properties() 는 기본값이라 application.yml 에 밀림 => 커맨드라인 인자로 넘겨야 적용됨
+                .run("--spring.datasource.hikari.jdbc-url=jdbc:h2:mem:bench" + dataSize + "_" + System.nanoTime(),
+                        "--logging.level.root=warn",
+                        "--logging.level.org.hibernate.SQL=warn",
+                        "--logging.level.org.hibernate.type=warn");
+        memberJpaRepository = context.getBean(MemberJpaRepository.class);
+        memberRepository = context.getBean(MemberRepository.class);
+        teamRepository = context.getBean(TeamRepository.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+
+        List<Team> teams = new ArrayList<>(TEAM_COUNT);
+        for (int i = 0; i < TEAM_COUNT; i++) {
+            teams.add(new Team("team" + i));
+        }
+        teamRepository.bulkInsert(teams);
+
+        List<Member> members = new ArrayList<>(dataSize);
+        for (int i = 0; i < dataSize; i++) {
+            members.add(new Member(username(i), age(i), teams.get(i % TEAM_COUNT)));
+        }
+        memberRepository.bulkInsert(members);
+        firstMemberId = members.get(0).getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown(){
+        context.close();
+    }
+
+    public static String username(int i){
+        return "member" + i;
+    }
+
+    public static int age(int i){
+        return i % AGE_BUCKETS;
+    }
+
+    public int randomIndex(){
+        return ThreadLocalRandom.current().nextInt(dataSize);
+    }
+
+    // 시퀀스(pooled)로 연속 발급되므로 첫 id 기준으로 임의의 기존 id 를 고를 수 있음
+    public long randomId(){
+        return firstMemberId + randomIndex();
+    }
+
+    public int randomAge(){
+        return ThreadLocalRandom.current().nextInt(AGE_BUCKETS);
+    }
+}
@@ -0,0 +1,184 @@
+package study.datajpa.benchmark;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/*
+    부하 테스트용 대량 데이터 생성 (Team/Member 수백만 건)
+    - JPA 를 거치지 않고 JDBC batch insert + 일정 건수마다 커밋 => 100만 건에 수 초
+    - 팀 크기는 Zipf 분포: k 번째 팀의 크기 ∝ 1 / k^s (소수의 인기 팀에 멤버가 몰리고 대부분의 팀은 작음)
+    - seed 가 같으면 같은 데이터 (릴리즈 간 비교용)
+    - 다 넣고 나면 시퀀스를 max(id) 뒤로 옮겨서 이후 JPA save 와 id 가 겹치지 않게 하고 ANALYZE 로 통계 갱신
+    !! Hibernate 가 시퀀스 값을 미리 받아가기(pooled) 전에 호출해야 함 => 컨텍스트를 띄우고 save 하기 전에
+ */
+public class DataGenerator {
+    private static final int BATCH_SIZE = 5000;
+    // @SequenceGenerator 의 allocationSize 와 같아야 함
+    private static final int SEQUENCE_INCREMENT = 100;
+    public static final int MIN_AGE = 18;
+    public static final int MAX_AGE = 69;
+
+    private final DataSource dataSource;
+
+    public DataGenerator(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    public GeneratedData generate(int teamCount, long memberCount, double zipfExponent, long seed){
+        long start = System.currentTimeMillis();
+        SplittableRandom random = new SplittableRandom(seed);
+        ZipfSampler teams = new ZipfSampler(teamCount, zipfExponent);
+        long[] teamSizes = new long[teamCount];
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            long firstTeamId = nextId(connection, "team", "team_id");
+            long firstMemberId = nextId(connection, "member", "member_id");
+
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "insert into team (team_id, name, version) values (?, ?, 0)")) {
+                for (int i = 0; i < teamCount; i++) {
+                    insert.setLong(1, firstTeamId + i);
+                    insert.setString(2, "team" + i);
+                    insert.addBatch();
+                    if ((i + 1) % BATCH_SIZE == 0) {
+                        insert.executeBatch();
+                    }
+                }
+                insert.executeBatch();
+                connection.commit();
+            }
+
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "insert into member (member_id, age, username, team_id, version) values (?, ?, ?, ?, 0)")) {
+                for (long i = 0; i < memberCount; i++) {
+                    int team = teams.sample(random);
+                    teamSizes[team]++;
+                    insert.setLong(1, firstMemberId + i);
+                    insert.setInt(2, MIN_AGE + random.nextInt(MAX_AGE - MIN_AGE + 1));
+                    insert.setString(3, "member" + i);
+                    insert.setLong(4, firstTeamId + team);
+                    insert.addBatch();
+                    if ((i + 1) % BATCH_SIZE == 0) {
+                        insert.executeBatch();
+                        connection.commit();
+                    }
+                }
+                insert.executeBatch();
+                connection.commit();
+            }
+
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("alter sequence team_seq restart with " + (firstTeamId + teamCount + SEQUENCE_INCREMENT));
+                statement.execute("alter sequence member_seq restart with " + (firstMemberId + memberCount + SEQUENCE_INCREMENT));
+                statement.execute("analyze");
+            }
+            connection.commit();
+
+            GeneratedData data = new GeneratedData(firstTeamId, teamCount, firstMemberId, memberCount, teamSizes, teams);
+            System.out.printf("generated %,d teams / %,d members in %,d ms (largest team %,d, median team %,d)%n",
+                    teamCount, memberCount, System.currentTimeMillis() - start, data.largestTeamSize(), data.medianTeamSize());
+            return data;
+        } catch (SQLException e) {
+            throw new IllegalStateException("데이터 생성 실패", e);
+        }
+    }
+
+    private long nextId(Connection connection, String table, String idColumn) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("select coalesce(max(" + idColumn + "), 0) + 1 from " + table)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    // 누적 확률 배열에서 이진 탐색 => 팀 수가 많아도 샘플 하나에 O(log n)
+    public static class ZipfSampler {
+        private final double[] cumulative;
+
+        public ZipfSampler(int size, double exponent) {
+            cumulative = new double[size];
+            double sum = 0;
+            for (int k = 0; k < size; k++) {
+                sum += 1.0 / Math.pow(k + 1, exponent);
+                cumulative[k] = sum;
+            }
+            for (int k = 0; k < size; k++) {
+                cumulative[k] /= sum;
+            }
+        }
+
+        public int sample(SplittableRandom random){
+            double u = random.nextDouble();
+            int low = 0, high = cumulative.length - 1;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (cumulative[mid] < u) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
+    public static class GeneratedData {
+        private final long firstTeamId;
+        private final int teamCount;
+        private final long firstMemberId;
+        private final long memberCount;
+        private final long[] teamSizes;
+        private final ZipfSampler teams;
+
+        GeneratedData(long firstTeamId, int teamCount, long firstMemberId, long memberCount, long[] teamSizes, ZipfSampler teams) {
+            this.firstTeamId = firstTeamId;
+            this.teamCount = teamCount;
+            this.firstMemberId = firstMemberId;
+            this.memberCount = memberCount;
+            this.teamSizes = teamSizes;
+            this.teams = teams;
+        }
+
+        public long randomMemberId(SplittableRandom random){
+            return firstMemberId + random.nextLong(memberCount);
+        }
+
+        // 팀 이동도 인기 팀으로 몰리도록 같은 Zipf 분포로
+        public long randomTeamId(SplittableRandom random){
+            return firstTeamId + teams.sample(random);
+        }
+
+        public int randomAge(SplittableRandom random){
+            return MIN_AGE + random.nextInt(MAX_AGE - MIN_AGE + 1);
+        }
+
+        public long getMemberCount(){
+            return memberCount;
+        }
+
+        public int getTeamCount(){
+            return teamCount;
+        }
+
+        public long largestTeamSize(){
+            long max = 0;
+            for (long size : teamSizes) {
+                max = Math.max(max, size);
+            }
+            return max;
+        }
+
+        public long medianTeamSize(){
+            long[] sorted = teamSizes.clone();
+            Arrays.sort(sorted);
+            return sorted.length == 0 ? 0 : sorted[sorted.length / 2];
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package study.datajpa.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.paging.CountMode;
+import study.datajpa.service.MemberPageStreamService;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/*
+    Member 페이지 JSON 응답: page.map(DTO) 후 Jackson 직렬화 vs DTO Stream 을 JsonGenerator 로 바로 쓰기
+    - 둘 다 team 이름까지 (map 쪽은 N+1 이 안 나도록 fetch join 버전), count 는 매번 실행 (EXACT)
+    - 응답은 byte 수만 세고 버리는 OutputStream 에 씀 (네트워크 비용 제외)
+    - 할당량 비교는 -prof gc 의 gc.alloc.rate.norm
+      예) -Djmh.args="-prof gc -p dataSize=100000 MemberPageJsonBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MemberPageJsonBenchmark {
+
+    @Param({"20", "1000"})
+    public int pageSize;
+
+    private ObjectMapper objectMapper;
+    private MemberPageStreamService memberPageStreamService;
+
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkContext ctx){
+        objectMapper = ctx.context.getBean(ObjectMapper.class);
+        memberPageStreamService = ctx.context.getBean(MemberPageStreamService.class);
+    }
+
+    @Benchmark
+    public long mapToDtoPage(BenchmarkContext ctx) throws IOException {
+        int age = ctx.randomAge();
+        Page<MemberDto> page = ctx.transactionTemplate.execute(status ->
+                ctx.memberRepository.findWithTeamByAge(age, pageable()).map(this::toDto));
+        CountingOutputStream out = new CountingOutputStream();
+        objectMapper.writeValue(out, page);
+        return out.bytes;
+    }
+
+    @Benchmark
+    public long streamingGenerator(BenchmarkContext ctx) throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        memberPageStreamService.writePageByAge(ctx.randomAge(), pageable(), CountMode.EXACT, out);
+        return out.bytes;
+    }
+
+    private MemberDto toDto(Member member){
+        return new MemberDto(member.getId(), member.getUsername(), member.getTeam() == null ? null : member.getTeam().getName());
+    }
+
+    private Pageable pageable(){
+        return PageRequest.of(0, pageSize, Sort.by("id"));
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+        long bytes;
+
+        @Override
+        public void write(int b) {
+            bytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bytes += len;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import study.datajpa.dto.MemberProjection;
+import study.datajpa.dto.MemberSummaryDto;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.paging.CountMode;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+    큰 결과 조회: 관리되는 Entity vs Read-Only Entity vs DTO/인터페이스 Projection
+    - 같은 쿼리 조건(age, username 정렬)으로 PAGE_SIZE 건을 한 트랜잭션에서 읽음
+    - 관리 Entity 는 커밋 시점 dirty checking(스냅샷 비교) 비용까지 포함됨
+    - 메모리 비교는 -prof gc 로 돌려서 gc.alloc.rate.norm(op 당 할당 byte) 을 보면 됌
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MemberReadPathBenchmark {
+
+    private static final int PAGE_SIZE = 1000;
+
+    @Benchmark
+    public Page<Member> managedEntity(BenchmarkContext ctx){
+        int age = ctx.randomAge();
+        return ctx.transactionTemplate.execute(status ->
+                ctx.memberRepository.findPageByAge(age, pageable(), CountMode.EXACT));
+    }
+
+    @Benchmark
+    public Page<Member> readOnlyEntity(BenchmarkContext ctx){
+        int age = ctx.randomAge();
+        return ctx.transactionTemplate.execute(status ->
+                ctx.memberRepository.findReadOnlyByAge(age, pageable()));
+    }
+
+    @Benchmark
+    public Page<MemberSummaryDto> dtoProjection(BenchmarkContext ctx){
+        int age = ctx.randomAge();
+        return ctx.transactionTemplate.execute(status ->
+                ctx.memberRepository.findProjectionsByAge(age, pageable(), MemberSummaryDto.class));
+    }
+
+    @Benchmark
+    public Page<MemberProjection> interfaceProjection(BenchmarkContext ctx){
+        int age = ctx.randomAge();
+        return ctx.transactionTemplate.execute(status ->
+                ctx.memberRepository.findProjectionsByAge(age, pageable(), MemberProjection.class));
+    }
+
+    private static Pageable pageable(){
+        return PageRequest.of(0, PAGE_SIZE, Sort.by("username"));
+    }
+}
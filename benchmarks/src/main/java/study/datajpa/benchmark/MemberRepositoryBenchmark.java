@@ -0,0 +1,96 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.paging.CountMode;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+    Repository 핫패스 벤치마크 (순수 JPA 구현 vs Spring Data JPA)
+    - 서비스에서 쓰는 것처럼 메서드마다 트랜잭션 하나로 감싸서 측정 (커밋/flush 비용 포함)
+    - findById 는 2차 캐시가 켜져 있어서 대부분 캐시 hit 이 나오는게 정상
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MemberRepositoryBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    @Benchmark
+    public Member save_JPA(BenchmarkContext ctx){
+        return ctx.transactionTemplate.execute(status ->
+                ctx.memberJpaRepository.save(new Member("saved", ctx.randomAge())));
+    }
+
+    @Benchmark
+    public Member save_SpringDataJPA(BenchmarkContext ctx){
+        return ctx.transactionTemplate.execute(status ->
+                ctx.memberRepository.save(new Member("saved", ctx.randomAge())));
+    }
+
+    @Benchmark
+    public Member findById_JPA(BenchmarkContext ctx){
+        return ctx.transactionTemplate.execute(status ->
+                ctx.memberJpaRepository.findById(ctx.randomId()).orElseThrow());
+    }
+
+    @Benchmark
+    public Member findById_SpringDataJPA(BenchmarkContext ctx){
+        return ctx.transactionTemplate.execute(status ->
+                ctx.memberRepository.findById(ctx.randomId()).orElseThrow());
+    }
+
+    @Benchmark
+    public List<Member> derivedQuery_JPA(BenchmarkContext ctx){
+        int i = ctx.randomIndex();
+        return ctx.transactionTemplate.execute(status ->
+                ctx.memberJpaRepository.findByUsernameAndAgeGreaterThen(BenchmarkContext.username(i), -1));
+    }
+
+    @Benchmark
+    public List<Member> derivedQuery_SpringDataJPA(BenchmarkContext ctx){
+        int i = ctx.randomIndex();
+        return ctx.transactionTemplate.execute(status ->
+                ctx.memberRepository.findByUsernameAndAgeGreaterThan(BenchmarkContext.username(i), -1));
+    }
+
+    // @Query 에 쿼리 캐시 hint 가 걸려있어서 같은 파라미터가 다시 나오면 캐시에서 나옴
+    @Benchmark
+    public List<Member> queryAnnotation(BenchmarkContext ctx){
+        int i = ctx.randomIndex();
+        return ctx.transactionTemplate.execute(status ->
+                ctx.memberRepository.findNandA(BenchmarkContext.username(i), BenchmarkContext.age(i)));
+    }
+
+    @Benchmark
+    public long pagingWithCount_JPA(BenchmarkContext ctx){
+        int age = ctx.randomAge();
+        return ctx.transactionTemplate.execute(status -> {
+            List<Member> content = ctx.memberJpaRepository.findByPaging(age, 0, PAGE_SIZE);
+            return content.size() + ctx.memberJpaRepository.totalCount(age, CountMode.EXACT).getTotal();
+        });
+    }
+
+    @Benchmark
+    public Page<Member> pagingWithCount_SpringDataJPA(BenchmarkContext ctx){
+        int age = ctx.randomAge();
+        return ctx.transactionTemplate.execute(status ->
+                ctx.memberRepository.findWithTeamByAge(age, PageRequest.of(0, PAGE_SIZE, Sort.by("username"))));
+    }
+
+    // count 를 CountCache 에서 꺼내는 버전
+    @Benchmark
+    public Page<Member> pagingWithCachedCount(BenchmarkContext ctx){
+        int age = ctx.randomAge();
+        return ctx.transactionTemplate.execute(status ->
+                ctx.memberRepository.findPageByAge(age, PageRequest.of(0, PAGE_SIZE, Sort.by("username")), CountMode.CACHED));
+    }
+}
@@ -0,0 +1,88 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import study.datajpa.Application;
+import study.datajpa.repository.shard.ShardedMember;
+import study.datajpa.repository.shard.ShardedMemberRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/*
+    샤드 수에 따른 처리량 (ShardedMemberRepository)
+    - 여러 스레드(@Threads)가 동시에 save / id 조회 / scatter-gather 페이지 조회
+    - save, findById 는 샤드 하나만 쓰므로 샤드가 늘면 처리량이 늘어야 하고
+      findByAgePage 는 모든 샤드에 보내니 샤드 수만큼 일이 늘어남 (병렬이라 지연은 가장 느린 샤드 기준)
+    !! 샤드가 전부 같은 JVM 의 H2 라서 코어 수 이상으로는 늘지 않음, 실제 비교는 샤드를 다른 서버에 두고
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class ShardedMemberBenchmark {
+    private static final int TEAMS = 100;
+    private static final int MEMBERS = 10_000;
+
+    @Param({"1", "2", "4"})
+    public int shards;
+
+    private ConfigurableApplicationContext context;
+    private ShardedMemberRepository repository;
+    private final List<Long> teamIds = new ArrayList<>();
+    private final List<Long> memberIds = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        String name = "sharded" + shards + "_" + System.nanoTime();
+        context = new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.hikari.jdbc-url=jdbc:h2:mem:" + name,
+                        "--datajpa.sharding.enabled=true",
+                        "--datajpa.sharding.count=" + shards,
+                        "--datajpa.sharding.hikari.jdbc-url=jdbc:h2:mem:" + name + "_{shard}",
+                        "--datajpa.sharding.hikari.maximum-pool-size=8",
+                        "--logging.level.root=warn",
+                        "--logging.level.org.hibernate.SQL=warn",
+                        "--logging.level.org.hibernate.type=warn");
+        repository = context.getBean(ShardedMemberRepository.class);
+
+        for (int i = 0; i < TEAMS; i++) {
+            teamIds.add(repository.saveTeam("team" + i));
+        }
+        for (int i = 0; i < MEMBERS; i++) {
+            memberIds.add(repository.save(BenchmarkContext.username(i), BenchmarkContext.age(i), teamIds.get(i % TEAMS)).getId());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown(){
+        context.close();
+    }
+
+    @Benchmark
+    public ShardedMember save(){
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return repository.save("bench", random.nextInt(BenchmarkContext.AGE_BUCKETS), teamIds.get(random.nextInt(TEAMS)));
+    }
+
+    @Benchmark
+    public Optional<ShardedMember> findById(){
+        return repository.findById(memberIds.get(ThreadLocalRandom.current().nextInt(MEMBERS)));
+    }
+
+    @Benchmark
+    public Page<ShardedMember> findByAgePage(){
+        return repository.findByAge(ThreadLocalRandom.current().nextInt(BenchmarkContext.AGE_BUCKETS), PageRequest.of(0, 20));
+    }
+}
@@ -0,0 +1,137 @@
+package study.datajpa.benchmark.load;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/*
+    부하 테스트 설정 (key=value 인자)
+    - members=1000000 teams=10000 zipf=1.1 seed=42    : 생성할 데이터
+    - rate=2000 threads=32 queue=10000                 : 초당 목표 요청 수 / 워커 수 / 대기열 크기
+    - warmup=10s duration=60s                          : 워밍업은 측정에서 제외
+    - mix=findById:50,findByAgePage:20,save:10         : 작업 비중 (안 쓴 작업은 0)
+    - pageSize=20 out=target/load-result.csv
+ */
+public class LoadConfig {
+
+    long members = 1_000_000;
+    int teams = 10_000;
+    double zipf = 1.1;
+    long seed = 42;
+    int rate = 2000;
+    int threads = 32;
+    int queue = 10_000;
+    Duration warmup = Duration.ofSeconds(10);
+    Duration duration = Duration.ofSeconds(60);
+    int pageSize = 20;
+    String out = "target/load-result.csv";
+    final Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+
+    private int[] cumulativeWeights;
+    private Operation[] operations;
+
+    public static LoadConfig parse(String... args){
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            for (String token : arg.trim().split("\\s+")) {
+                if (token.isEmpty()) {
+                    continue;
+                }
+                int eq = token.indexOf('=');
+                if (eq <= 0) {
+                    throw new IllegalArgumentException("key=value 형식이어야 함: " + token);
+                }
+                values.put(token.substring(0, eq), token.substring(eq + 1));
+            }
+        }
+
+        LoadConfig config = new LoadConfig();
+        config.members = parseLong(values.remove("members"), config.members);
+        config.teams = (int) parseLong(values.remove("teams"), config.teams);
+        config.zipf = values.containsKey("zipf") ? Double.parseDouble(values.remove("zipf")) : config.zipf;
+        config.seed = parseLong(values.remove("seed"), config.seed);
+        config.rate = (int) parseLong(values.remove("rate"), config.rate);
+        config.threads = (int) parseLong(values.remove("threads"), config.threads);
+        config.queue = (int) parseLong(values.remove("queue"), config.queue);
+        config.warmup = parseDuration(values.remove("warmup"), config.warmup);
+        config.duration = parseDuration(values.remove("duration"), config.duration);
+        config.pageSize = (int) parseLong(values.remove("pageSize"), config.pageSize);
+        config.out = values.getOrDefault("out", config.out);
+        values.remove("out");
+
+        String mix = values.remove("mix");
+        if (mix == null) {
+            for (Operation operation : Operation.values()) {
+                config.mix.put(operation, operation.getDefaultWeight());
+            }
+        } else {
+            for (String entry : mix.split(",")) {
+                String[] pair = entry.split(":");
+                config.mix.put(Operation.of(pair[0]), pair.length > 1 ? Integer.parseInt(pair[1]) : 1);
+            }
+        }
+        if (!values.isEmpty()) {
+            throw new IllegalArgumentException("알 수 없는 설정: " + values.keySet());
+        }
+        config.validate();
+        return config;
+    }
+
+    private void validate(){
+        if (members <= 0 || teams <= 0 || rate <= 0 || threads <= 0 || queue <= 0 || pageSize <= 0) {
+            throw new IllegalArgumentException("members/teams/rate/threads/queue/pageSize 는 양수여야 함");
+        }
+        int total = 0;
+        operations = mix.keySet().toArray(new Operation[0]);
+        cumulativeWeights = new int[operations.length];
+        for (int i = 0; i < operations.length; i++) {
+            total += Math.max(0, mix.get(operations[i]));
+            cumulativeWeights[i] = total;
+        }
+        if (total == 0) {
+            throw new IllegalArgumentException("mix 의 비중 합이 0");
+        }
+    }
+
+    // 비중에 따라 다음 작업을 고름
+    public Operation pick(SplittableRandom random){
+        int r = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (r < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    private static long parseLong(String value, long defaultValue){
+        return value == null ? defaultValue : Long.parseLong(value.replace("_", ""));
+    }
+
+    // 10s, 500ms, 2m 또는 숫자만(초)
+    private static Duration parseDuration(String value, Duration defaultValue){
+        if (value == null) {
+            return defaultValue;
+        }
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        if (value.endsWith("s")) {
+            return Duration.ofSeconds(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        if (value.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        return Duration.ofSeconds(Long.parseLong(value));
+    }
+
+    @Override
+    public String toString(){
+        return "members=" + members + " teams=" + teams + " zipf=" + zipf + " seed=" + seed
+                + " rate=" + rate + " threads=" + threads + " queue=" + queue
+                + " warmup=" + warmup.getSeconds() + "s duration=" + duration.getSeconds() + "s"
+                + " pageSize=" + pageSize + " mix=" + mix;
+    }
+}
@@ -0,0 +1,184 @@
+package study.datajpa.benchmark.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.datajpa.Application;
+import study.datajpa.benchmark.DataGenerator;
+import study.datajpa.benchmark.DataGenerator.GeneratedData;
+import study.datajpa.repository.search.MemberUsernameIndex;
+import study.datajpa.repository.stats.TeamStatsReconciler;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+    동시 부하 테스트
+    1. 앱을 띄우고 DataGenerator 로 데이터 생성 (기본 100만 member / 1만 team, 팀 크기는 Zipf)
+    2. 목표 rate 로 작업을 일정 간격마다 워커 풀에 던짐 (open-loop)
+       - 응답이 느려져도 요청 간격은 그대로 => 밀린 만큼 대기열에서 기다린 시간까지 지연으로 잡힘
+       - 지연은 "원래 시작했어야 하는 시각" 부터 잼 (coordinated omission 보정, 실제 사용자 체감과 같음)
+       - 대기열이 꽉 차면 버리고 dropped 로 셈
+    3. 작업별 처리량, p50/p99/p999/max 지연, 에러를 표로 출력하고 CSV 로 저장 (릴리즈 간 비교용)
+
+    실행: benchmarks/pom.xml 의 load 프로필 참고
+ */
+public class LoadHarness {
+    // 지연은 µs 단위로 기록, 1시간까지 유효숫자 3자리
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.HOURS.toMicros(1);
+
+    private final LoadConfig config;
+    private final Workload workload;
+    private final Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+
+    LoadHarness(LoadConfig config, Workload workload) {
+        this.config = config;
+        this.workload = workload;
+        for (Operation operation : config.mix.keySet()) {
+            stats.put(operation, new OperationStats());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadConfig config = LoadConfig.parse(args);
+        System.out.println("load: " + config);
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.hikari.jdbc-url=jdbc:h2:mem:load_" + System.nanoTime(),
+                        "--spring.datasource.hikari.maximum-pool-size=" + Math.max(10, config.threads),
+                        "--logging.level.root=warn",
+                        "--logging.level.org.hibernate.SQL=warn",
+                        "--logging.level.org.hibernate.type=warn");
+        try {
+            GeneratedData data = new DataGenerator(context.getBean(DataSource.class))
+                    .generate(config.teams, config.members, config.zipf, config.seed);
+            // JDBC 로 직접 넣어서 리스너를 안 탔으니 username 색인과 팀 통계는 다시 만들어야 함
+            context.getBeanProvider(MemberUsernameIndex.class).ifAvailable(MemberUsernameIndex::scheduleRebuild);
+            context.getBean(TeamStatsReconciler.class).rebuild();
+
+            LoadHarness harness = new LoadHarness(config, new Workload(context, data, config.pageSize));
+            harness.run();
+            harness.report();
+        } finally {
+            context.close();
+        }
+    }
+
+    void run() throws InterruptedException {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(config.threads, config.threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(config.queue), new ThreadPoolExecutor.AbortPolicy());
+        executor.prestartAllCoreThreads();
+
+        SplittableRandom dispatchRandom = new SplittableRandom(config.seed);
+        long interval = TimeUnit.SECONDS.toNanos(1) / config.rate;
+        long start = System.nanoTime();
+        long measureFrom = start + config.warmup.toNanos();
+        long end = measureFrom + config.duration.toNanos();
+
+        for (long intended = start; intended < end; intended += interval) {
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Operation operation = config.pick(dispatchRandom);
+            boolean measured = intended >= measureFrom;
+            SplittableRandom random = dispatchRandom.split();
+            long scheduledAt = intended;
+            try {
+                executor.execute(() -> execute(operation, random, scheduledAt, measured));
+            } catch (RejectedExecutionException e) {
+                if (measured) {
+                    stats.get(operation).dropped.increment();
+                }
+            }
+        }
+
+        executor.shutdown();
+        if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+            executor.shutdownNow();
+        }
+    }
+
+    private void execute(Operation operation, SplittableRandom random, long scheduledAt, boolean measured){
+        OperationStats operationStats = stats.get(operation);
+        try {
+            workload.execute(operation, random);
+        } catch (RuntimeException e) {
+            if (measured) {
+                operationStats.errors.increment();
+                operationStats.lastError = e.getClass().getSimpleName() + ": " + e.getMessage();
+            }
+            return;
+        }
+        if (measured) {
+            long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - scheduledAt);
+            operationStats.latency.recordValue(Math.min(micros, HIGHEST_TRACKABLE_MICROS));
+        }
+    }
+
+    void report() throws IOException {
+        double seconds = config.duration.toNanos() / 1e9;
+        String header = String.format("%-16s %10s %10s %10s %10s %10s %10s %8s %8s",
+                "operation", "count", "ops/s", "p50(ms)", "p99(ms)", "p999(ms)", "max(ms)", "errors", "dropped");
+        System.out.println();
+        System.out.println(header);
+
+        Path out = Paths.get(config.out);
+        if (out.getParent() != null) {
+            Files.createDirectories(out.getParent());
+        }
+        long totalCount = 0;
+        try (PrintWriter csv = new PrintWriter(Files.newBufferedWriter(out))) {
+            csv.println("operation,count,opsPerSec,p50Ms,p99Ms,p999Ms,maxMs,errors,dropped");
+            for (Map.Entry<Operation, OperationStats> entry : stats.entrySet()) {
+                Histogram histogram = entry.getValue().latency;
+                long count = histogram.getTotalCount();
+                totalCount += count;
+                long errors = entry.getValue().errors.sum();
+                long dropped = entry.getValue().dropped.sum();
+                double opsPerSec = count / seconds;
+                double p50 = millis(histogram, 50), p99 = millis(histogram, 99), p999 = millis(histogram, 99.9);
+                double max = histogram.getMaxValue() / 1000.0;
+
+                System.out.println(String.format("%-16s %10d %10.1f %10.2f %10.2f %10.2f %10.2f %8d %8d",
+                        entry.getKey().getKey(), count, opsPerSec, p50, p99, p999, max, errors, dropped));
+                csv.println(String.format("%s,%d,%.1f,%.3f,%.3f,%.3f,%.3f,%d,%d",
+                        entry.getKey().getKey(), count, opsPerSec, p50, p99, p999, max, errors, dropped));
+            }
+        }
+        System.out.println(String.format("%-16s %10d %10.1f (target %d ops/s)", "total", totalCount, totalCount / seconds, config.rate));
+        stats.forEach((operation, operationStats) -> {
+            if (operationStats.lastError != null) {
+                System.out.println("last error [" + operation.getKey() + "] " + operationStats.lastError);
+            }
+        });
+        System.out.println("result: " + out.toAbsolutePath());
+    }
+
+    private static double millis(Histogram histogram, double percentile){
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    private static class OperationStats {
+        final ConcurrentHistogram latency = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+        final LongAdder errors = new LongAdder();
+        final LongAdder dropped = new LongAdder();
+        volatile String lastError;
+    }
+}
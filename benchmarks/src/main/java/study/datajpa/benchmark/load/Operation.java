@@ -0,0 +1,38 @@
+package study.datajpa.benchmark.load;
+
+import java.util.Arrays;
+
+/*
+    부하 테스트에서 섞어서 돌리는 작업 종류
+    - key 는 mix 설정(mix=findById:50,save:10,...)에서 쓰는 이름
+ */
+public enum Operation {
+    FIND_BY_ID("findById", 50),
+    FIND_BY_AGE_PAGE("findByAgePage", 20),
+    FIND_MEMBER_DTO("findMemberDto", 1), // 전체 member join team 을 읽어서 데이터가 크면 매우 무거움 => 기본 비중은 낮게
+    SAVE("save", 14),
+    CHANGE_TEAM("changeTeam", 15);
+
+    private final String key;
+    private final int defaultWeight;
+
+    Operation(String key, int defaultWeight) {
+        this.key = key;
+        this.defaultWeight = defaultWeight;
+    }
+
+    public String getKey(){
+        return key;
+    }
+
+    public int getDefaultWeight(){
+        return defaultWeight;
+    }
+
+    public static Operation of(String key){
+        return Arrays.stream(values())
+                .filter(operation -> operation.key.equalsIgnoreCase(key))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("알 수 없는 작업: " + key));
+    }
+}
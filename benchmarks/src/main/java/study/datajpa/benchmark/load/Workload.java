@@ -0,0 +1,51 @@
+package study.datajpa.benchmark.load;
+
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import study.datajpa.benchmark.DataGenerator.GeneratedData;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.service.MemberService;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+    작업 하나를 실제 repository / service 호출로 실행
+    - 조회 대상 id, 나이, 팀은 생성된 데이터 범위 안에서 랜덤 (팀은 Zipf => 인기 팀으로 이동이 몰려서 낙관적 락 충돌도 재현됨)
+    - 결과는 버리지 않고 크기를 읽어서 지연 로딩 / JIT 제거로 측정이 빠지지 않도록 함
+ */
+class Workload {
+    private static final int MAX_PAGE = 5;
+
+    private final MemberRepository memberRepository;
+    private final MemberService memberService;
+    private final GeneratedData data;
+    private final int pageSize;
+    private final AtomicLong saved = new AtomicLong();
+
+    Workload(ApplicationContext context, GeneratedData data, int pageSize) {
+        this.memberRepository = context.getBean(MemberRepository.class);
+        this.memberService = context.getBean(MemberService.class);
+        this.data = data;
+        this.pageSize = pageSize;
+    }
+
+    long execute(Operation operation, SplittableRandom random){
+        switch (operation) {
+            case FIND_BY_ID:
+                return memberRepository.findById(data.randomMemberId(random)).map(Member::getAge).orElse(0);
+            case FIND_BY_AGE_PAGE:
+                return memberRepository.findByAge(data.randomAge(random),
+                        PageRequest.of(random.nextInt(MAX_PAGE), pageSize)).getNumberOfElements();
+            case FIND_MEMBER_DTO:
+                return memberRepository.findMemberDto().size();
+            case SAVE:
+                return memberRepository.save(new Member("load" + saved.incrementAndGet(), data.randomAge(random))).getId();
+            case CHANGE_TEAM:
+                return memberService.changeTeam(data.randomMemberId(random), data.randomTeamId(random)).getId();
+            default:
+                throw new IllegalArgumentException(operation.name());
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package study.datajpa.config;
+
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/*
+    Boot 가 만든 DataSource(Hikari) 를 datasource-proxy 로 감싸서 SQL 실행 시간을 잼
+    - Hikari 커넥션 풀 메트릭(hikaricp.*)은 unwrap 으로 원래 DataSource 를 찾아서 그대로 잡힘
+    - BeanPostProcessor 라서 static 으로 등록 (다른 빈들이 일찍 만들어지지 않도록)
+    - 리스너: SqlStatisticsListener(통계/메트릭), SqlLoggingListener(운영용 SQL 로그, 켰을 때만) 등 QueryExecutionListener 빈 전부
+ */
+@Configuration
+public class DataSourceProxyConfig {
+
+    @Bean
+    public static BeanPostProcessor dataSourceProxyPostProcessor(ObjectProvider<QueryExecutionListener> listeners){
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!"dataSource".equals(beanName) || !(bean instanceof DataSource) || bean instanceof ProxyDataSource) {
+                    return bean;
+                }
+                ProxyDataSourceBuilder builder = ProxyDataSourceBuilder.create((DataSource) bean).name(beanName);
+                listeners.orderedStream().forEach(builder::listener);
+                return builder.build();
+            }
+        };
+    }
+}
@@ -0,0 +1,77 @@
+package study.datajpa.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+
+/*
+    datajpa.datasource.replica.enabled=true 일 때만
+    primary(spring.datasource.hikari) + replica(datajpa.datasource.replica.hikari) 커넥션 풀을 따로 두고
+    "dataSource" 빈은 읽기/쓰기에 따라 둘 중 하나로 보내는 라우팅 DataSource
+    - 풀 크기/메트릭은 풀마다 따로 (hikaricp.* 의 pool 태그 = primary/replica)
+    - 라우팅 횟수: datajpa.datasource.routes (target = primary/replica/fallback)
+    !! 두 풀을 각각 DataSource 빈으로 등록하면 Boot 의 DataSource 초기화(DataSourceInitializer)와 순환 참조가 생겨서
+       "dataSource" 빈 하나 안에서 만들고 메트릭/종료는 여기서 직접 처리
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "datajpa.datasource.replica", name = "enabled", havingValue = "true")
+public class DataSourceRoutingConfig {
+    private ReadWriteRoutingDataSource routingDataSource;
+
+    @Bean
+    @Primary
+    public DataSource dataSource(Environment environment, ReplicaRoutingProperties properties){
+        HikariDataSource primary = new HikariDataSource();
+        primary.setPoolName("primary");
+        bind(environment, "spring.datasource.hikari", primary);
+
+        HikariDataSource replica = new HikariDataSource();
+        replica.setPoolName("replica");
+        // replica 가 죽어있어도 기동은 되고, 커넥션을 못 얻으면 빨리 포기하고 primary 로 가도록
+        replica.setInitializationFailTimeout(-1);
+        replica.setConnectionTimeout(1000);
+        bind(environment, "datajpa.datasource.replica.hikari", replica);
+
+        routingDataSource = new ReadWriteRoutingDataSource(primary, replica, properties.getRetryInterval(), properties.getFailureThreshold());
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    @Bean
+    public MeterBinder routingMetrics(){
+        return registry -> {
+            routingDataSource.getPrimary().setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+            routingDataSource.getReplica().setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+
+            FunctionCounter.builder("datajpa.datasource.routes", routingDataSource, ReadWriteRoutingDataSource::getPrimaryRoutes)
+                    .tag("target", "primary").register(registry);
+            FunctionCounter.builder("datajpa.datasource.routes", routingDataSource, ReadWriteRoutingDataSource::getReplicaRoutes)
+                    .tag("target", "replica").register(registry);
+            FunctionCounter.builder("datajpa.datasource.routes", routingDataSource, ReadWriteRoutingDataSource::getFallbacks)
+                    .tag("target", "fallback").register(registry);
+        };
+    }
+
+    @PreDestroy
+    public void close(){
+        if (routingDataSource != null) {
+            routingDataSource.getPrimary().close();
+            routingDataSource.getReplica().close();
+        }
+    }
+
+    private void bind(Environment environment, String prefix, HikariDataSource dataSource){
+        Binder.get(environment).bind(prefix, Bindable.ofInstance(dataSource));
+    }
+}
@@ -0,0 +1,28 @@
+package study.datajpa.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.jpa.boot.internal.EntityManagerFactoryBuilderImpl;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import study.datajpa.monitoring.QueryCounter;
+
+import java.util.List;
+
+@Configuration
+public class HibernateConfig {
+
+    // Hibernate 가 만드는 모든 SQL 을 QueryCounter 가 볼 수 있도록 StatementInspector 로 등록
+    @Bean
+    public HibernatePropertiesCustomizer statementInspectorCustomizer(QueryCounter queryCounter){
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, queryCounter);
+    }
+
+    // Hibernate 이벤트 리스너 등록 (HibernateListenerIntegrator)
+    @Bean
+    public HibernatePropertiesCustomizer integratorCustomizer(){
+        return properties -> properties.put(EntityManagerFactoryBuilderImpl.INTEGRATOR_PROVIDER,
+                (IntegratorProvider) () -> List.of(new HibernateListenerIntegrator()));
+    }
+}
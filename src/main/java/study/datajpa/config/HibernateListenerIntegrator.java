@@ -0,0 +1,41 @@
+package study.datajpa.config;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import study.datajpa.entity.listener.TeamMembersCacheInvalidator;
+import study.datajpa.entity.listener.TeamStatsListener;
+
+/*
+    JPA Entity Listener(@PrePersist 등)로는 변경 전 상태(oldState)를 볼 수 없어서
+    Hibernate 이벤트 리스너를 SessionFactory 에 직접 등록
+    - SessionFactory 가 만들어지는 시점에 Hibernate 가 불러줌 (HibernateConfig 에서 integrator_provider 로 등록)
+    - 빈에서 EntityManagerFactory 를 꺼내서 등록하면 백그라운드 bootstrap(fast-startup) 이 끝날 때까지 기동이 멈춤
+ */
+public class HibernateListenerIntegrator implements Integrator {
+
+    @Override
+    public void integrate(Metadata metadata, SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+        EventListenerRegistry registry = serviceRegistry.getService(EventListenerRegistry.class);
+
+        TeamMembersCacheInvalidator cacheInvalidator = new TeamMembersCacheInvalidator();
+        registry.appendListeners(EventType.POST_INSERT, cacheInvalidator);
+        registry.appendListeners(EventType.POST_UPDATE, cacheInvalidator);
+        registry.appendListeners(EventType.POST_DELETE, cacheInvalidator);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, cacheInvalidator);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, cacheInvalidator);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, cacheInvalidator);
+
+        TeamStatsListener teamStats = new TeamStatsListener();
+        registry.appendListeners(EventType.POST_INSERT, teamStats);
+        registry.appendListeners(EventType.POST_UPDATE, teamStats);
+        registry.appendListeners(EventType.POST_DELETE, teamStats);
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+    }
+}
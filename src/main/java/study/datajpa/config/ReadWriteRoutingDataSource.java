@@ -0,0 +1,118 @@
+package study.datajpa.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+    @Transactional(readOnly = true) 면 replica, 아니면 primary 커넥션
+    - 트랜잭션 시작 시점엔 아직 readOnly 여부가 설정되기 전이라 LazyConnectionDataSourceProxy 로 감싸서 써야함
+      (실제 SQL 이 나갈 때 커넥션을 얻으므로 그때는 readOnly 가 설정되어 있음)
+    - replica 커넥션을 못 얻으면 그 요청은 primary 로 대신 보냄
+    - replica 에 연결 자체가 안 되는 실패가 failureThreshold 번 연속이면 retryInterval 동안 replica 를 건너뜀
+      풀이 바빠서 connectionTimeout 안에 커넥션을 못 받은 것(커넥션은 살아 있는데 대기 시간 초과)은 세지 않음
+      => 순간 부하 때문에 읽기 트래픽이 전부 primary 로 몰리지 않게
+    !! 인터페이스에 선언한 쿼리 메소드(findByAge 등)는 트랜잭션이 없으면 primary 로 감 => 서비스에서 @Transactional(readOnly = true) 로 호출할 것
+    !! replica 는 복제 지연이 있을 수 있음 => 방금 쓴 데이터를 바로 읽어야 하면 쓰기 트랜잭션 안에서 읽을 것
+ */
+@Slf4j
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+    public enum Route { PRIMARY, REPLICA }
+
+    @Getter
+    private final HikariDataSource primary;
+    @Getter
+    private final HikariDataSource replica;
+    private final Duration retryInterval;
+    private final int failureThreshold;
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private volatile long replicaDownUntil;
+
+    private final LongAdder primaryRoutes = new LongAdder();
+    private final LongAdder replicaRoutes = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+
+    public ReadWriteRoutingDataSource(HikariDataSource primary, HikariDataSource replica, Duration retryInterval, int failureThreshold) {
+        this.primary = primary;
+        this.replica = replica;
+        this.retryInterval = retryInterval;
+        this.failureThreshold = Math.max(failureThreshold, 1);
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        boolean readOnly = TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        return readOnly && System.currentTimeMillis() >= replicaDownUntil ? Route.REPLICA : Route.PRIMARY;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (determineCurrentLookupKey() == Route.REPLICA) {
+            try {
+                Connection connection = replica.getConnection();
+                consecutiveFailures.set(0);
+                replicaRoutes.increment();
+                return connection;
+            } catch (SQLException e) {
+                fallbacks.increment();
+                if (!isUnavailable(e)) {
+                    log.warn("replica 커넥션 대기 시간 초과, 이번 요청만 primary 로 보냄: {}", e.getMessage());
+                } else if (consecutiveFailures.incrementAndGet() >= failureThreshold) {
+                    consecutiveFailures.set(0);
+                    replicaDownUntil = System.currentTimeMillis() + retryInterval.toMillis();
+                    log.warn("replica 연결 {}번 연속 실패, {}초 동안 primary 로 보냄: {}", failureThreshold, retryInterval.getSeconds(), e.getMessage());
+                } else {
+                    log.warn("replica 연결 실패, 이번 요청만 primary 로 보냄: {}", e.getMessage());
+                }
+            }
+        }
+        primaryRoutes.increment();
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        primaryRoutes.increment();
+        return primary.getConnection(username, password);
+    }
+
+    /*
+        Hikari 는 connectionTimeout 안에 커넥션을 못 주면 SQLTransientConnectionException 을 던짐
+        - 마지막 연결 실패가 cause 로 붙어 있거나 풀에 살아있는 커넥션이 하나도 없으면 DB 에 연결이 안 되는 것
+        - 커넥션은 있는데 다 사용 중이라 못 준 거면 replica 는 살아 있음 => 내리지 않음
+     */
+    private boolean isUnavailable(SQLException e){
+        if (!(e instanceof SQLTransientConnectionException) || e.getCause() != null) {
+            return true;
+        }
+        HikariPoolMXBean pool = replica.getHikariPoolMXBean();
+        return pool == null || pool.getTotalConnections() == 0;
+    }
+
+    public long getPrimaryRoutes(){
+        return primaryRoutes.sum();
+    }
+
+    public long getReplicaRoutes(){
+        return replicaRoutes.sum();
+    }
+
+    public long getFallbacks(){
+        return fallbacks.sum();
+    }
+}
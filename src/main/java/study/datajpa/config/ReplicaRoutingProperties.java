@@ -0,0 +1,21 @@
+package study.datajpa.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/*
+    읽기 전용 트랜잭션을 replica 로 보내는 설정 (DataSourceRoutingConfig)
+    커넥션 풀 설정은 datajpa.datasource.replica.hikari.* (spring.datasource.hikari.* 와 같은 항목)
+ */
+@Getter @Setter
+@ConfigurationProperties(prefix = "datajpa.datasource.replica")
+public class ReplicaRoutingProperties {
+    private boolean enabled = false;
+    // replica 에 연결이 안 되는 실패가 failureThreshold 번 연속이면 이 시간 동안은 replica 를 시도하지 않고 바로 primary 로
+    private Duration retryInterval = Duration.ofSeconds(30);
+    // 풀이 바빠서 커넥션 대기 시간을 넘긴 건 실패로 세지 않음
+    private int failureThreshold = 3;
+}
@@ -0,0 +1,60 @@
+package study.datajpa.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import study.datajpa.repository.shard.ShardedMemberRepository;
+import study.datajpa.repository.shard.ShardingProperties;
+import study.datajpa.repository.shard.Shards;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/*
+    datajpa.sharding.enabled=true 일 때만 샤드 커넥션 풀과 ShardedMemberRepository 를 만듦
+    - 기존 JPA DataSource/Member 는 그대로 두고 샤드는 별도 (DataSource 빈으로 등록하지 않음 => Boot 의 DataSource 자동설정과 안 섞임)
+    - 기동할 때 샤드마다 db/shard/schema.sql 실행 (이미 있으면 그대로)
+    - 풀 메트릭은 hikaricp.* 의 pool 태그 = shard0, shard1, ...
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "datajpa.sharding", name = "enabled", havingValue = "true")
+public class ShardingConfig {
+
+    @Bean(destroyMethod = "close")
+    public Shards shards(Environment environment, ShardingProperties properties, MeterRegistry meterRegistry){
+        List<HikariDataSource> dataSources = new ArrayList<>();
+        ResourceDatabasePopulator schema = new ResourceDatabasePopulator(new ClassPathResource("db/shard/schema.sql"));
+        for (int shard = 0; shard < properties.getCount(); shard++) {
+            HikariDataSource dataSource = new HikariDataSource();
+            Binder.get(environment).bind("datajpa.sharding.hikari", Bindable.ofInstance(dataSource));
+            dataSource.setJdbcUrl(dataSource.getJdbcUrl().replace("{shard}", String.valueOf(shard)));
+            dataSource.setPoolName("shard" + shard);
+            dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            schema.execute(dataSource);
+            dataSources.add(dataSource);
+        }
+
+        // 샤드 수만큼 동시에 나가는 조회를 받을 정도의 대기열, 넘치면 호출한 스레드가 직접 실행
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(properties.getParallelism(), properties.getParallelism(),
+                60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(properties.getParallelism() * properties.getCount() * 4),
+                new CustomizableThreadFactory("shard-"), new ThreadPoolExecutor.CallerRunsPolicy());
+        return new Shards(dataSources, executor, properties.getTimeout());
+    }
+
+    @Bean
+    public ShardedMemberRepository shardedMemberRepository(Shards shards){
+        return new ShardedMemberRepository(shards);
+    }
+}
@@ -0,0 +1,30 @@
+package study.datajpa.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import study.datajpa.dto.UsernameMatch;
+import study.datajpa.repository.search.MemberUsernameIndex;
+
+import java.util.List;
+
+/*
+    username 자동완성 (메모리 인덱스, DB 에 LIKE 'x%' 를 보내지 않음)
+ */
+@RestController
+@RequiredArgsConstructor
+public class MemberAutocompleteController {
+    private final MemberUsernameIndex memberUsernameIndex;
+
+    @GetMapping("/members/autocomplete")
+    public List<UsernameMatch> autocomplete(@RequestParam String prefix,
+                                            @RequestParam(defaultValue = "10") int limit){
+        if (limit < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit 는 1 이상이어야 합니다: " + limit);
+        }
+        return memberUsernameIndex.search(prefix, limit);
+    }
+}
@@ -0,0 +1,35 @@
+package study.datajpa.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import study.datajpa.service.MemberExportService;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/*
+    전체 Member export
+    응답을 다 만들어서 내려주는게 아니라 조회하면서 바로 response 에 흘려보냄 (row 수와 상관없이 메모리 일정)
+ */
+@RestController
+@RequiredArgsConstructor
+public class MemberExportController {
+    private final MemberExportService memberExportService;
+
+    @GetMapping("/members/export/ndjson")
+    public void exportNdjson(HttpServletResponse response) throws IOException {
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+        memberExportService.exportNdjson(response.getOutputStream());
+    }
+
+    @GetMapping("/members/export/csv")
+    public void exportCsv(HttpServletResponse response) throws IOException {
+        response.setContentType("text/csv");
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"members.csv\"");
+        memberExportService.exportCsv(response.getOutputStream());
+    }
+}
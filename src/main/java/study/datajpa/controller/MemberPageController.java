@@ -0,0 +1,34 @@
+package study.datajpa.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import study.datajpa.repository.paging.CountMode;
+import study.datajpa.service.MemberPageStreamService;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/*
+    나이로 Member 목록 조회 (page, size, sort 는 Spring Data 의 Pageable 파라미터 그대로)
+    Page<MemberDto> 를 반환하지 않고 조회하면서 바로 response 에 씀 (MemberPageStreamService)
+ */
+@RestController
+@RequiredArgsConstructor
+public class MemberPageController {
+    private final MemberPageStreamService memberPageStreamService;
+
+    @GetMapping("/members")
+    public void members(@RequestParam int age,
+                        @RequestParam(defaultValue = "CACHED") CountMode count,
+                        @PageableDefault(size = 20, sort = "id") Pageable pageable,
+                        HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        memberPageStreamService.writePageByAge(age, pageable, count, response.getOutputStream());
+    }
+}
@@ -0,0 +1,47 @@
+package study.datajpa.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import study.datajpa.dto.MemberSearchCondition;
+import study.datajpa.dto.MemberSummaryDto;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.paging.CursorSlice;
+
+/*
+    회원 검색 (username, usernamePrefix, ageGoe, ageLoe, teamId, teamName 중 넘어온 것만 조건으로)
+    - /members/search        : page, size, sort (Pageable)
+    - /members/search/keyset : cursor, size (username, id 순, size 는 datajpa.search.max-size 까지)
+ */
+@RestController
+@RequiredArgsConstructor
+public class MemberSearchController {
+    private final MemberRepository memberRepository;
+
+    @GetMapping("/members/search")
+    public Page<MemberSummaryDto> search(MemberSearchCondition condition,
+                                         @PageableDefault(size = 20, sort = "id") Pageable pageable){
+        return memberRepository.search(condition, pageable).map(MemberSearchController::toSummary);
+    }
+
+    @GetMapping("/members/search/keyset")
+    public CursorSlice<MemberSummaryDto> searchKeyset(MemberSearchCondition condition,
+                                                      @RequestParam(required = false) String cursor,
+                                                      @RequestParam(defaultValue = "20") int size){
+        if (size < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "size 는 1 이상이어야 합니다: " + size);
+        }
+        return memberRepository.searchKeyset(condition, cursor, size).map(MemberSearchController::toSummary);
+    }
+
+    private static MemberSummaryDto toSummary(Member member){
+        return new MemberSummaryDto(member.getId(), member.getUsername(), member.getAge());
+    }
+}
@@ -0,0 +1,11 @@
+package study.datajpa.dto;
+
+/*
+    인터페이스 기반 Projection (Closed Projection)
+    getter 이름에 맞는 컬럼만 select 하고, Spring Data 가 구현체(프록시)를 만들어줌
+ */
+public interface MemberProjection {
+    Long getId();
+    String getUsername();
+    int getAge();
+}
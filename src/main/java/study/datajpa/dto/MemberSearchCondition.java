@@ -0,0 +1,22 @@
+package study.datajpa.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/*
+    회원 검색 조건, null 인 조건은 where 에서 빠짐 (MemberSpecs)
+    - username 은 정확히 일치, usernamePrefix 는 앞부분 일치
+    - ageGoe <= age <= ageLoe (한쪽만 줘도 됌)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MemberSearchCondition {
+    private String username;
+    private String usernamePrefix;
+    private Integer ageGoe;
+    private Integer ageLoe;
+    private Long teamId;
+    private String teamName;
+}
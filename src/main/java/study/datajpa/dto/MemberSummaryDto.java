@@ -0,0 +1,16 @@
+package study.datajpa.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/*
+    클래스 기반 Projection
+    생성자 파라미터 이름이 Entity 필드 이름과 같아야 Spring Data 가 new 연산자 JPQL 을 만들어줌
+ */
+@Data
+@AllArgsConstructor
+public class MemberSummaryDto {
+    private Long id;
+    private String username;
+    private int age;
+}
@@ -0,0 +1,19 @@
+package study.datajpa.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// 팀 통계 (멤버가 없으면 minAge/maxAge 는 null)
+@Data
+@AllArgsConstructor
+public class TeamStats {
+    private Long teamId;
+    private long memberCount;
+    private long ageSum;
+    private Integer minAge;
+    private Integer maxAge;
+
+    public Double getAverageAge(){
+        return memberCount == 0 ? null : (double) ageSum / memberCount;
+    }
+}
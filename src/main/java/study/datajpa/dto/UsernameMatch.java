@@ -0,0 +1,12 @@
+package study.datajpa.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// username 자동완성 결과 (MemberUsernameIndex)
+@Data
+@AllArgsConstructor
+public class UsernameMatch {
+    private Long id;
+    private String username;
+}
@@ -1,18 +1,35 @@
 package study.datajpa.entity;
 
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
+import study.datajpa.entity.listener.MemberEntityListener;
 
 import javax.persistence.*;
 
 @Entity
+@EntityListeners(MemberEntityListener.class)
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @Getter @ToString(of = {"id", "username", "age"})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @NamedQuery(
         name="Member.findByUsername",
-        query = "select m from Member m where m.username = :username"
+        query = "select m from Member m where m.username = :username",
+        hints = @QueryHint(name = "org.hibernate.cacheable", value = "true") // 쿼리 캐시
 )
+@NamedEntityGraph(name = "Member.team", attributeNodes = @NamedAttributeNode("team"))
+// - Keyset Paging(age 조건 + username, id 정렬)을 인덱스 range scan 한번으로 처리하기 위한 복합 인덱스
+// - 팀 멤버 페이지 조회/count 용 team_id 인덱스 (FK 에 인덱스를 자동으로 안 만들어주는 DB 도 있음)
+@Table(indexes = {
+        @Index(name = "idx_member_age_username_id", columnList = "age, username, member_id"),
+        @Index(name = "idx_member_team_id", columnList = "team_id")
+})
+// 시퀀스를 allocationSize 만큼 한번에 당겨와서(pooled optimizer) insert 마다 시퀀스 조회가 나가지 않도록 함
+@SequenceGenerator(name = "member_seq_generator", sequenceName = "member_seq", allocationSize = 100)
 public class Member {
-    @Id @GeneratedValue
+    @Id @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "member_seq_generator")
     @Column(name = "member_id")
     private Long id;
 
@@ -24,6 +41,19 @@ public class Member {
     @JoinColumn(name = "team_id")
     private Team team;
 
+    /*
+        낙관적 락: update 할 때 where version = ? 을 붙이고 version 을 +1
+        => 그 사이 다른 트랜잭션이 먼저 바꿨으면 update 가 0건이 되어 OptimisticLockException (덮어쓰지 않음)
+        - null 이면 새 Entity 로 판단 (Spring Data 의 save 가 persist/merge 를 고르는 기준)
+        - Entity 를 거치지 않고 insert 한 row 도 0 이 되도록 DB default 0
+        !! JPQL bulk update 는 version 을 올리지 않음 => set m.version = m.version + 1 을 같이 해야
+           bulk update 전에 읽은 Entity 가 나중에 커밋하면서 예전 값으로 덮어쓰지 않음 (bulkAgePlus)
+     */
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
     public Member(String username) {
         this.username = username;
     }
@@ -43,10 +73,12 @@ public class Member {
 
     /* 연관관계 메서드 */
     public void changeTeam(Team team){
-        // 기존 팀에서 지우고
-        // this.team.getMembers().remove(this);
+        // 기존 팀에서 지우고 (둘 다 팀의 members 컬렉션을 로딩하지 않음)
+        if (this.team != null) {
+            this.team.removeMember(this);
+        }
         // 새로운 팀을 설정하고
         this.team = team;
-        this.team.getMembers().add(this);
+        this.team.addMember(this);
     }
 }
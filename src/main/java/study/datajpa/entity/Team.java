@@ -4,6 +4,13 @@ import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
+import org.hibernate.Hibernate;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.LazyCollection;
+import org.hibernate.annotations.LazyCollectionOption;
+import org.hibernate.annotations.OptimisticLock;
 
 import javax.persistence.*;
 import java.util.ArrayList;
@@ -12,18 +19,54 @@ import java.util.List;
 @Entity
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @Getter @ToString(of = {"id", "name"})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@SequenceGenerator(name = "team_seq_generator", sequenceName = "team_seq", allocationSize = 100)
 public class Team {
 
-    @Id @GeneratedValue
+    @Id @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "team_seq_generator")
     @Column(name = "team_id")
     private Long id;
 
     private String name;
 
+    // 낙관적 락 (Member.version 참고)
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
+    /*
+        - 컬렉션 캐시: member 가 팀을 옮기면 TeamMembersCacheInvalidator 가 양쪽 팀의 캐시를 지워줌
+        - EXTRA lazy: size()/contains() 는 컬렉션을 로딩하지 않고 count/exists 쿼리로 처리
+        - 여러 팀의 members 를 로딩할 때는 hibernate.default_batch_fetch_size 만큼 IN 으로 묶어서 한번에
+        !! 멤버가 아주 많은 팀은 전체 로딩하지 말고 MemberRepository.findByTeamId(Pageable) 로 페이지 조회
+        - OptimisticLock(excluded): 기본값이면 멤버가 들어오고 나갈 때마다 Team 의 version 도 올라감
+          => 인기 팀에 멤버가 동시에 들어오면 서로 충돌함, 실제 FK 는 member.team_id 라서 Team 은 바뀐게 없음
+     */
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+    @LazyCollection(LazyCollectionOption.EXTRA)
+    @OptimisticLock(excluded = true)
     @OneToMany(mappedBy = "team")
     private List<Member> members = new ArrayList<>();
 
     public Team(String name) {
         this.name = name;
     }
+
+    /*
+        연관관계 편의 메서드용 (Member.changeTeam)
+        mappedBy 쪽(inverse) 컬렉션이 아직 로딩 안됐으면 Hibernate 가 add/remove 를 로딩 없이 큐에 쌓아뒀다가
+        나중에 로딩될 때 반영함 => 멤버를 추가할 때 기존 멤버 수만큼 읽어오지 않음
+     */
+    void addMember(Member member){
+        members.add(member);
+    }
+
+    void removeMember(Member member){
+        // PersistentBag.remove 는 로딩을 해버려서, 로딩된 경우에만 메모리에서 지움 (DB 는 member.team 으로 반영)
+        if (Hibernate.isInitialized(members)) {
+            members.remove(member);
+        }
+    }
 }
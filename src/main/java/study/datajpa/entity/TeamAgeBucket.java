@@ -0,0 +1,37 @@
+package study.datajpa.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+
+/*
+    팀별 나이 분포 (팀 통계: 멤버 수, 나이 합/최소/최대를 member 를 세지 않고 구하기 위한 집계 테이블)
+    - (team_id, age) 마다 멤버 수 => 멤버가 빠져도 min/max 를 다시 구할 수 있음
+    - stripe: 같은 (팀, 나이) 를 트랜잭션마다 다른 row 로 나눠서 더함 => 인기 팀에 동시에 들어와도 한 row 에서 줄서지 않음
+      stripe 하나의 값은 음수일 수도 있고 (팀, 나이) 의 stripe 합이 실제 멤버 수
+    - 값은 JDBC 로 member_count = member_count + ? 로만 바꿈 (TeamAgeDeltas), Entity 는 스키마/조회용
+ */
+@Entity
+@IdClass(TeamAgeBucketId.class)
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Getter @ToString
+public class TeamAgeBucket {
+    @Id
+    @Column(name = "team_id")
+    private Long teamId;
+
+    @Id
+    private int age;
+
+    @Id
+    private int stripe;
+
+    @Column(name = "member_count", nullable = false)
+    private long memberCount;
+}
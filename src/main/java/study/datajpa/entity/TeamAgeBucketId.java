@@ -0,0 +1,17 @@
+package study.datajpa.entity;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@AllArgsConstructor
+@EqualsAndHashCode
+public class TeamAgeBucketId implements Serializable {
+    private Long teamId;
+    private int age;
+    private int stripe;
+}
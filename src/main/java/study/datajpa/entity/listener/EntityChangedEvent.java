@@ -0,0 +1,27 @@
+package study.datajpa.entity.listener;
+
+import lombok.Getter;
+import lombok.ToString;
+import org.hibernate.Hibernate;
+
+/*
+    Entity 가 insert/update/delete 될 때 발행되는 Spring 이벤트
+    Count 캐시처럼 Entity 변경에 맞춰 무효화가 필요한 곳에서 @EventListener 로 받아서 처리함
+ */
+@Getter
+@ToString
+public class EntityChangedEvent {
+    public enum Type { INSERT, UPDATE, DELETE }
+
+    private final Object entity;
+    private final Type type;
+
+    public EntityChangedEvent(Object entity, Type type) {
+        this.entity = entity;
+        this.type = type;
+    }
+
+    public Class<?> getEntityType(){
+        return Hibernate.getClass(entity);
+    }
+}
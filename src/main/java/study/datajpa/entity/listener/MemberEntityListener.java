@@ -0,0 +1,38 @@
+package study.datajpa.entity.listener;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import study.datajpa.entity.Member;
+
+import javax.persistence.PostUpdate;
+import javax.persistence.PrePersist;
+import javax.persistence.PreRemove;
+
+/*
+    JPA Entity Listener (Spring Boot 가 Hibernate 에 SpringBeanContainer 를 넣어줘서 Spring Bean 주입이 가능함)
+    insert/delete 는 flush 시점이 아니라 persist()/remove() 호출 시점에 바로 알려야
+    같은 트랜잭션 안에서 바로 이어지는 count 조회가 캐시된 옛날 값을 보지 않음
+ */
+@Component
+public class MemberEntityListener {
+    private final ApplicationEventPublisher publisher;
+
+    public MemberEntityListener(ApplicationEventPublisher publisher) {
+        this.publisher = publisher;
+    }
+
+    @PrePersist
+    public void prePersist(Member member){
+        publisher.publishEvent(new EntityChangedEvent(member, EntityChangedEvent.Type.INSERT));
+    }
+
+    @PostUpdate
+    public void postUpdate(Member member){
+        publisher.publishEvent(new EntityChangedEvent(member, EntityChangedEvent.Type.UPDATE));
+    }
+
+    @PreRemove
+    public void preRemove(Member member){
+        publisher.publishEvent(new EntityChangedEvent(member, EntityChangedEvent.Type.DELETE));
+    }
+}
@@ -0,0 +1,72 @@
+package study.datajpa.entity.listener;
+
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+/*
+    Team.members 는 mappedBy(연관관계의 주인이 아님) 컬렉션이라
+    Member.team 이 바뀌어도 Hibernate 가 Team.members 의 2차 캐시를 알아서 지워주지 않음
+    => Member 가 insert/delete 되거나 팀을 옮기면(changeTeam) 이전 팀/새 팀의 컬렉션 캐시를 직접 지움
+    (flush 직후 한번, 커밋 후 한번 -> 커밋 전에 다른 트랜잭션이 옛날 목록을 다시 캐시에 넣어도 지워짐)
+ */
+public class TeamMembersCacheInvalidator
+        implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+    public static final String ROLE = Team.class.getName() + ".members";
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Member) {
+            evict(event.getPersister(), teamOf(event.getPersister(), event.getState()));
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (!(event.getEntity() instanceof Member)) {
+            return;
+        }
+        EntityPersister persister = event.getPersister();
+        if (event.getOldState() == null) {
+            // 이전 상태를 모르면(준영속 merge 등) 어느 팀에서 빠졌는지 알 수 없으니 전체를 지움
+            persister.getFactory().getCache().evictCollectionData(ROLE);
+            return;
+        }
+        Object oldTeam = teamOf(persister, event.getOldState());
+        Object newTeam = teamOf(persister, event.getState());
+        if (oldTeam != newTeam) {
+            evict(persister, oldTeam);
+            evict(persister, newTeam);
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Member) {
+            evict(event.getPersister(), teamOf(event.getPersister(), event.getDeletedState()));
+        }
+    }
+
+    // Hibernate 5.4 에서는 deprecated 인데 아직 abstract 라서 구현해야 함
+    @Override
+    @SuppressWarnings("deprecation")
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return persister.getMappedClass() == Member.class;
+    }
+
+    private Object teamOf(EntityPersister persister, Object[] state){
+        return state[persister.getEntityMetamodel().getPropertyIndex("team")];
+    }
+
+    private void evict(EntityPersister persister, Object team){
+        if (team != null) {
+            persister.getFactory().getCache().evictCollectionData(ROLE, ((Team) team).getId());
+        }
+    }
+}
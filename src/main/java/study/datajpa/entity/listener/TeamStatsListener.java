@@ -0,0 +1,97 @@
+package study.datajpa.entity.listener;
+
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.stats.TeamAgeDeltas;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+    Member insert/delete/팀 이동/나이 변경을 team_age_bucket 에 같은 트랜잭션으로 반영
+    - flush 될 때마다 변경량만 세션별로 모아두고 (TeamAgeDeltas)
+    - 커밋 직전(Hibernate 의 beforeTransactionCompletion, 마지막 flush 이후) 에 같은 커넥션으로 한번에 UPDATE
+      => 집계 row 를 잡고 있는 시간이 커밋 직전의 아주 짧은 구간뿐
+    - 롤백되면 모아둔 것만 버림
+    !! 같은 트랜잭션 안에서 TeamRepository.findStats 를 부르면 아직 반영 전 값
+    !! oldState 가 없는 update(준영속 merge 등) 는 어디서 빠졌는지 몰라서 반영 못함 => TeamStatsReconciler 가 맞춰줌
+ */
+public class TeamStatsListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private final Map<SessionImplementor, TeamAgeDeltas> pending = new ConcurrentHashMap<>();
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Member) {
+            EntityPersister persister = event.getPersister();
+            deltas(event.getSession()).add(teamId(persister, event.getState()), age(persister, event.getState()), 1);
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (!(event.getEntity() instanceof Member) || event.getOldState() == null) {
+            return;
+        }
+        EntityPersister persister = event.getPersister();
+        Long oldTeam = teamId(persister, event.getOldState());
+        Long newTeam = teamId(persister, event.getState());
+        int oldAge = age(persister, event.getOldState());
+        int newAge = age(persister, event.getState());
+        if (oldAge != newAge || !Objects.equals(oldTeam, newTeam)) {
+            TeamAgeDeltas deltas = deltas(event.getSession());
+            deltas.add(oldTeam, oldAge, -1);
+            deltas.add(newTeam, newAge, 1);
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Member) {
+            EntityPersister persister = event.getPersister();
+            deltas(event.getSession()).add(teamId(persister, event.getDeletedState()), age(persister, event.getDeletedState()), -1);
+        }
+    }
+
+    // Hibernate 5.4 는 아직 abstract 인 deprecated 메소드 => 구현은 하되 경고만 끔
+    @Override
+    @SuppressWarnings("deprecation")
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    // 세션(= 트랜잭션)마다 처음 변경이 생길 때 커밋 전/후 처리를 한번만 등록
+    private TeamAgeDeltas deltas(EventSource session){
+        return pending.computeIfAbsent(session, s -> {
+            s.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) completing -> {
+                TeamAgeDeltas deltas = pending.remove(completing);
+                if (deltas != null) {
+                    completing.doWork(deltas::apply);
+                }
+            });
+            s.getActionQueue().registerProcess((AfterTransactionCompletionProcess) (success, completed) -> pending.remove(completed));
+            return new TeamAgeDeltas();
+        });
+    }
+
+    private Long teamId(EntityPersister persister, Object[] state){
+        Object team = state[persister.getEntityMetamodel().getPropertyIndex("team")];
+        return team == null ? null : ((Team) team).getId();
+    }
+
+    private int age(EntityPersister persister, Object[] state){
+        return (Integer) state[persister.getEntityMetamodel().getPropertyIndex("age")];
+    }
+}
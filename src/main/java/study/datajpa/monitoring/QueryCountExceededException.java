@@ -0,0 +1,7 @@
+package study.datajpa.monitoring;
+
+public class QueryCountExceededException extends IllegalStateException {
+    public QueryCountExceededException(long actual, long max) {
+        super("SQL 이 " + actual + "번 실행됨 (허용: 최대 " + max + "번)");
+    }
+}
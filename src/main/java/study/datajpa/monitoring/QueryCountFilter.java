@@ -0,0 +1,48 @@
+package study.datajpa.monitoring;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/*
+    요청 하나에서 실행된 SQL 개수를 세서 임계치를 넘으면 WARN 로그
+    => 운영에서 N+1 이 터지는 API 를 찾는 용도 (많이 반복된 SQL 도 같이 남김)
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class QueryCountFilter extends OncePerRequestFilter {
+    private final QueryCounter queryCounter;
+    private final QueryCountProperties properties;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        try (QueryCounter.Scope scope = queryCounter.start()) {
+            filterChain.doFilter(request, response);
+
+            if (scope.getCount() > properties.getWarnThreshold()) {
+                log.warn("{} {} 요청에서 SQL {}번 실행 (임계치 {}), 많이 반복된 SQL: {}",
+                        request.getMethod(), request.getRequestURI(), scope.getCount(),
+                        properties.getWarnThreshold(), topStatements(scope.getStatements()));
+            }
+        }
+    }
+
+    private String topStatements(Map<String, Integer> statements){
+        return statements.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                .limit(properties.getTopStatements())
+                .map(e -> e.getValue() + "x [" + e.getKey() + "]")
+                .collect(Collectors.joining(", "));
+    }
+}
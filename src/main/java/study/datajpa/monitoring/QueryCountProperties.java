@@ -0,0 +1,14 @@
+package study.datajpa.monitoring;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter @Setter
+@ConfigurationProperties(prefix = "datajpa.query-count")
+public class QueryCountProperties {
+    // 요청 하나에서 실행된 SQL 이 이 개수를 넘으면 WARN 로그 (N+1 의심)
+    private int warnThreshold = 20;
+    // WARN 로그에 같이 찍어줄 많이 반복된 SQL 개수
+    private int topStatements = 3;
+}
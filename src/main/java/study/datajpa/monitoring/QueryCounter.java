@@ -0,0 +1,92 @@
+package study.datajpa.monitoring;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/*
+    Hibernate 가 SQL 을 준비할 때마다 불러주는 StatementInspector 로 실행된 SQL 개수를 셈
+    - 스레드 단위로 Scope 를 열고 닫음 (요청 단위는 QueryCountFilter, 테스트에서는 count/expectAtMost)
+    - Scope 가 중첩되면 안쪽에서 센 개수는 바깥 Scope 에도 더해짐
+    - Scope 가 열려있지 않으면 아무것도 하지 않음
+ */
+@Component
+public class QueryCounter implements StatementInspector {
+    private static final int MAX_TRACKED_STATEMENTS = 100;
+
+    private final ThreadLocal<Scope> current = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        Scope scope = current.get();
+        if (scope != null) {
+            scope.record(sql);
+        }
+        return sql;
+    }
+
+    public Scope start(){
+        Scope scope = new Scope(current.get());
+        current.set(scope);
+        return scope;
+    }
+
+    public long count(Runnable work){
+        try (Scope scope = start()) {
+            work.run();
+            return scope.getCount();
+        }
+    }
+
+    // 테스트용: work 가 SQL 을 maxStatements 번 넘게 실행하면 QueryCountExceededException
+    public <T> T expectAtMost(long maxStatements, Supplier<T> work){
+        try (Scope scope = start()) {
+            T result = work.get();
+            if (scope.getCount() > maxStatements) {
+                throw new QueryCountExceededException(scope.getCount(), maxStatements);
+            }
+            return result;
+        }
+    }
+
+    public class Scope implements AutoCloseable {
+        private final Scope parent;
+        private final Map<String, Integer> statements = new LinkedHashMap<>();
+        private long count;
+
+        private Scope(Scope parent) {
+            this.parent = parent;
+        }
+
+        private void record(String sql){
+            count++;
+            // SQL 종류가 너무 많아져도 메모리를 계속 먹지 않도록 상한을 둠
+            if (statements.size() < MAX_TRACKED_STATEMENTS || statements.containsKey(sql)) {
+                statements.merge(sql, 1, Integer::sum);
+            }
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public Map<String, Integer> getStatements() {
+            return Collections.unmodifiableMap(statements);
+        }
+
+        @Override
+        public void close() {
+            if (parent != null) {
+                parent.count += count;
+                statements.forEach((sql, n) -> parent.statements.merge(sql, n, Integer::sum));
+                current.set(parent);
+            } else {
+                current.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package study.datajpa.monitoring;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+    /actuator/queryplans
+    Hibernate 쿼리 플랜 캐시 (JPQL/Criteria -> SQL 로 파싱한 결과) hit/miss
+    => 검색처럼 조건이 바뀌는 쿼리에서 miss 가 계속 늘면 값이 literal 로 들어가서 JPQL 이 매번 달라지는 것
+    같은 값이 메트릭 datajpa.queryplan.cache (result=hit/miss) 로도 나감
+ */
+@Component
+@Endpoint(id = "queryplans")
+public class QueryPlanCacheEndpoint {
+    private final Statistics statistics;
+
+    public QueryPlanCacheEndpoint(EntityManagerFactory entityManagerFactory, MeterRegistry meterRegistry) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        FunctionCounter.builder("datajpa.queryplan.cache", statistics, Statistics::getQueryPlanCacheHitCount)
+                .tag("result", "hit").register(meterRegistry);
+        FunctionCounter.builder("datajpa.queryplan.cache", statistics, Statistics::getQueryPlanCacheMissCount)
+                .tag("result", "miss").register(meterRegistry);
+    }
+
+    @ReadOperation
+    public Map<String, Object> planCache(){
+        long hits = statistics.getQueryPlanCacheHitCount();
+        long misses = statistics.getQueryPlanCacheMissCount();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("hits", hits);
+        result.put("misses", misses);
+        result.put("hitRatio", hitRatio(hits, misses));
+        return result;
+    }
+
+    public double hitRatio(){
+        return hitRatio(statistics.getQueryPlanCacheHitCount(), statistics.getQueryPlanCacheMissCount());
+    }
+
+    private static double hitRatio(long hits, long misses){
+        return hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+    }
+}
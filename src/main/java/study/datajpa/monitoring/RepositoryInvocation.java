@@ -0,0 +1,32 @@
+package study.datajpa.monitoring;
+
+/*
+    지금 스레드에서 실행 중인 Repository 메서드 ("MemberRepository.findByAge")
+    - RepositoryMetricsAspect 가 설정하고, SQL 로그(느린 쿼리 등)에서 어떤 메서드가 낸 SQL 인지 남길 때 씀
+    - Repository 안에서 다른 Repository 를 부르면 바깥(처음 호출된) 메서드를 유지
+ */
+public final class RepositoryInvocation {
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private RepositoryInvocation() {
+    }
+
+    // Repository 밖에서 실행된 SQL 이면 null
+    public static String current(){
+        return CURRENT.get();
+    }
+
+    static boolean enter(String method){
+        if (CURRENT.get() != null) {
+            return false;
+        }
+        CURRENT.set(method);
+        return true;
+    }
+
+    static void exit(boolean entered){
+        if (entered) {
+            CURRENT.remove();
+        }
+    }
+}
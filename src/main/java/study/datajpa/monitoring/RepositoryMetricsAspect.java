@@ -0,0 +1,66 @@
+package study.datajpa.monitoring;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+    Repository 메서드마다 실행 시간을 Timer 로 기록 (/actuator/metrics/datajpa.repository)
+    - Spring Data JPA 인터페이스(MemberRepository, TeamRepository) + 순수 JPA 구현(@Repository 클래스) 모두
+    - tag: repository, method, exception
+    - Stream 을 돌려주는 메서드는 Stream 을 만드는 시간까지만 잡힘 (소비하는 시간은 호출한 쪽)
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class RepositoryMetricsAspect {
+    public static final String METRIC_NAME = "datajpa.repository";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<Class<?>, String> repositoryNames = new ConcurrentHashMap<>();
+
+    @Around("this(org.springframework.data.repository.Repository) || @within(org.springframework.stereotype.Repository)")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        String repository = repositoryName(joinPoint.getThis().getClass());
+        String method = joinPoint.getSignature().getName();
+
+        boolean entered = RepositoryInvocation.enter(repository + "." + method);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String exception = "none";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            sample.stop(Timer.builder(METRIC_NAME)
+                    .tag("repository", repository)
+                    .tag("method", method)
+                    .tag("exception", exception)
+                    .register(meterRegistry));
+            RepositoryInvocation.exit(entered);
+        }
+    }
+
+    // Spring Data 프록시는 우리가 만든 Repository 인터페이스 이름, 나머지는 원래 클래스 이름
+    private String repositoryName(Class<?> proxyType){
+        return repositoryNames.computeIfAbsent(proxyType, type -> {
+            for (Class<?> candidate : ClassUtils.getAllInterfacesForClassAsSet(type)) {
+                if (Repository.class.isAssignableFrom(candidate)
+                        && !candidate.getName().startsWith("org.springframework.")) {
+                    return candidate.getSimpleName();
+                }
+            }
+            return ClassUtils.getUserClass(type).getSimpleName();
+        });
+    }
+}
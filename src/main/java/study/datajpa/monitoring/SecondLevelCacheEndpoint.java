@@ -0,0 +1,72 @@
+package study.datajpa.monitoring;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.persistence.EntityManagerFactory;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+    /actuator/l2cache
+    region 별 2차 캐시 hit/miss/put/메모리 안의 개수 (Hibernate Statistics)
+    + eviction 수 (크기 제한으로 밀려난 개수, Ehcache 의 JCache 통계 MBean)
+    => 캐시 크기(ehcache.xml 의 heap) 를 정할 때 참고
+ */
+@Component
+@Endpoint(id = "l2cache")
+@RequiredArgsConstructor
+public class SecondLevelCacheEndpoint {
+    private final EntityManagerFactory entityManagerFactory;
+
+    @ReadOperation
+    public Map<String, Object> regions(){
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        Map<String, Object> regions = new LinkedHashMap<>();
+        for (String regionName : statistics.getSecondLevelCacheRegionNames()) {
+            regions.put(regionName, region(regionName, statistics.getCacheRegionStatistics(regionName)));
+        }
+        return regions;
+    }
+
+    private Map<String, Object> region(String regionName, CacheRegionStatistics region){
+        Map<String, Object> result = new LinkedHashMap<>();
+        if (region == null) {
+            return result;
+        }
+        long hits = region.getHitCount();
+        long misses = region.getMissCount();
+        result.put("hits", hits);
+        result.put("misses", misses);
+        result.put("hitRatio", hits + misses == 0 ? 0 : (double) hits / (hits + misses));
+        result.put("puts", region.getPutCount());
+        result.put("elementsInMemory", region.getElementCountInMemory());
+        result.put("evictions", evictions(regionName));
+        return result;
+    }
+
+    private long evictions(String cacheName){
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            // Ehcache 는 MBean 이름을 만들 때 ',', ':', '=' 를 '.' 으로 바꿈
+            String sanitized = cacheName.replaceAll("[,:=\\n]", ".");
+            ObjectName query = new ObjectName("javax.cache:type=CacheStatistics,CacheManager=*,Cache=" + sanitized);
+            long evictions = 0;
+            for (ObjectName name : server.queryNames(query, null)) {
+                evictions += ((Number) server.getAttribute(name, "CacheEvictions")).longValue();
+            }
+            return evictions;
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+}
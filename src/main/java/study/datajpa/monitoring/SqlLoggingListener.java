@@ -0,0 +1,111 @@
+package study.datajpa.monitoring;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/*
+    운영용 SQL 로그 (datasource-proxy 리스너)
+    org.hibernate.SQL(debug) + org.hibernate.type(trace) 는 모든 SQL 과 바인드 파라미터를 요청 스레드에서 동기로 찍어서 느림
+    => 여기서는 필요한 것만 골라서 남김
+    - slow-threshold 이상 걸린 SQL: 항상 WARN
+    - 나머지: sample-rate 비율만큼 INFO (로그를 남길지 먼저 정하고 나서야 문자열을 만듦)
+    - 어떤 Repository 메서드에서 나갔는지(RepositoryInvocation), 걸린 시간, 바인드 파라미터를 한 줄로
+    로거 이름이 datajpa.sql 이라서 logback-spring.xml 에서 비동기 appender 로 따로 보냄
+ */
+@Component
+@ConditionalOnProperty(prefix = "datajpa.sql-log", name = "enabled", havingValue = "true")
+public class SqlLoggingListener implements QueryExecutionListener {
+    public static final String LOGGER_NAME = "datajpa.sql";
+    private static final Logger log = LoggerFactory.getLogger(LOGGER_NAME);
+    private static final String START_NANOS = SqlLoggingListener.class.getName() + ".start";
+
+    private final SqlLoggingProperties properties;
+
+    public SqlLoggingListener(SqlLoggingProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        execInfo.addCustomValue(START_NANOS, System.nanoTime());
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        Long start = execInfo.getCustomValue(START_NANOS, Long.class);
+        long elapsedNanos = start == null ? TimeUnit.MILLISECONDS.toNanos(execInfo.getElapsedTime()) : System.nanoTime() - start;
+
+        if (elapsedNanos >= properties.getSlowThreshold().toNanos()) {
+            if (log.isWarnEnabled()) {
+                log.warn("slow {}", entry(execInfo, queryInfoList, elapsedNanos));
+            }
+        } else if (sampled() && log.isInfoEnabled()) {
+            log.info("sampled {}", entry(execInfo, queryInfoList, elapsedNanos));
+        }
+    }
+
+    private boolean sampled(){
+        double rate = properties.getSampleRate();
+        return rate > 0 && (rate >= 1 || ThreadLocalRandom.current().nextDouble() < rate);
+    }
+
+    // 12.3ms MemberRepository.findByAge success batch=0 | select ... where age=? | [20]
+    private String entry(ExecutionInfo execInfo, List<QueryInfo> queryInfoList, long elapsedNanos){
+        String repositoryMethod = RepositoryInvocation.current();
+        StringBuilder entry = new StringBuilder(256)
+                .append(String.format("%.1fms", elapsedNanos / 1_000_000.0)).append(' ')
+                .append(repositoryMethod == null ? "-" : repositoryMethod)
+                .append(execInfo.isSuccess() ? " success" : " failure");
+        if (execInfo.isBatch()) {
+            entry.append(" batch=").append(execInfo.getBatchSize());
+        }
+        for (QueryInfo queryInfo : queryInfoList) {
+            entry.append(" | ").append(queryInfo.getQuery());
+            List<List<ParameterSetOperation>> parameterSets = queryInfo.getParametersList();
+            int limit = Math.min(parameterSets.size(), properties.getMaxBatchParameterSets());
+            for (int i = 0; i < limit; i++) {
+                entry.append(" | ").append(parameters(parameterSets.get(i)));
+            }
+            if (parameterSets.size() > limit) {
+                entry.append(" | ... ").append(parameterSets.size() - limit).append(" more");
+            }
+        }
+        return entry.toString();
+    }
+
+    private String parameters(List<ParameterSetOperation> operations){
+        List<ParameterSetOperation> sorted = new ArrayList<>(operations);
+        sorted.sort(Comparator.comparing(operation -> String.valueOf(operation.getArgs()[0]),
+                Comparator.comparingInt(String::length).thenComparing(Comparator.naturalOrder())));
+        StringBuilder parameters = new StringBuilder("[");
+        for (ParameterSetOperation operation : sorted) {
+            if (parameters.length() > 1) {
+                parameters.append(", ");
+            }
+            Object[] args = operation.getArgs();
+            if (ParameterSetOperation.isSetNullParameterOperation(operation)) {
+                parameters.append("NULL");
+            } else if (args.length > 1) {
+                parameters.append(truncate(String.valueOf(args[1])));
+            }
+        }
+        return parameters.append(']').toString();
+    }
+
+    private String truncate(String value){
+        int max = properties.getMaxParameterLength();
+        return value.length() <= max ? value : value.substring(0, max) + "...(" + value.length() + ")";
+    }
+}
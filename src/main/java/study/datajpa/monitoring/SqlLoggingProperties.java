@@ -0,0 +1,22 @@
+package study.datajpa.monitoring;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter @Setter
+@ConfigurationProperties(prefix = "datajpa.sql-log")
+public class SqlLoggingProperties {
+    // 켜면 org.hibernate.SQL/type 로그 대신 SqlLoggingListener 가 골라서 남김 (prod 프로필)
+    private boolean enabled = false;
+    // 이 시간 이상 걸린 SQL 은 항상 바인드 파라미터까지 WARN
+    private Duration slowThreshold = Duration.ofMillis(300);
+    // 나머지 SQL 중 이 비율만큼 샘플링해서 INFO (0 ~ 1)
+    private double sampleRate = 0.0;
+    // 파라미터 값이 이보다 길면 잘라서 남김 (큰 문자열/바이너리로 로그가 커지지 않도록)
+    private int maxParameterLength = 100;
+    // batch 는 파라미터 세트를 이 개수까지만
+    private int maxBatchParameterSets = 5;
+}
@@ -0,0 +1,16 @@
+package study.datajpa.monitoring;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter @Setter
+@ConfigurationProperties(prefix = "datajpa.sql-metrics")
+public class SqlMetricsProperties {
+    // 이 시간 이상 걸린 SQL 은 WARN 로그 (어떤 Repository 메서드에서 나갔는지 같이 남김)
+    private Duration slowQueryThreshold = Duration.ofMillis(300);
+    // SQL 문장별 통계를 따로 모을 최대 개수 (넘치면 "(other)" 로 합쳐서 메모리가 무한정 늘지 않도록)
+    private int maxStatements = 500;
+}
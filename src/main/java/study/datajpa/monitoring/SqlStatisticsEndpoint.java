@@ -0,0 +1,58 @@
+package study.datajpa.monitoring;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/*
+    /actuator/sqlstats
+    SQL 문장별 실행 횟수/총 시간/평균/최대 (총 시간이 긴 순서, ?limit=N)
+    DELETE 로 통계 초기화
+ */
+@Component
+@Endpoint(id = "sqlstats")
+@RequiredArgsConstructor
+public class SqlStatisticsEndpoint {
+    private static final int DEFAULT_LIMIT = 50;
+
+    private final SqlStatisticsListener sqlStatisticsListener;
+
+    @ReadOperation
+    public List<Map<String, Object>> statements(@Nullable Integer limit){
+        return sqlStatisticsListener.getStatements().stream()
+                .limit(limit == null ? DEFAULT_LIMIT : limit)
+                .map(this::statement)
+                .collect(Collectors.toList());
+    }
+
+    @DeleteOperation
+    public void reset(){
+        sqlStatisticsListener.reset();
+    }
+
+    private Map<String, Object> statement(SqlStatisticsListener.SqlStats stats){
+        Map<String, Object> result = new LinkedHashMap<>();
+        long executions = stats.getExecutions();
+        result.put("sql", stats.getSql());
+        result.put("executions", executions);
+        result.put("rows", stats.getRows());
+        result.put("failures", stats.getFailures());
+        result.put("totalMs", millis(stats.getTotalNanos()));
+        result.put("meanMs", executions == 0 ? 0 : millis(stats.getTotalNanos() / executions));
+        result.put("maxMs", millis(stats.getMaxNanos()));
+        return result;
+    }
+
+    private double millis(long nanos){
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
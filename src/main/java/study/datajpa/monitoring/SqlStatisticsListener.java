@@ -0,0 +1,138 @@
+package study.datajpa.monitoring;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryUtils;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/*
+    datasource-proxy 가 JDBC statement 실행 전후로 불러주는 리스너
+    - SQL 문장별 실행 횟수/시간 (/actuator/sqlstats)
+    - 종류별(select/insert/update/delete) Timer (/actuator/metrics/datajpa.sql)
+    - 임계치를 넘은 느린 쿼리는 WARN 로그 (SqlLoggingListener 를 켜면 그쪽에서 파라미터까지 남기므로 여기선 생략)
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SqlStatisticsListener implements QueryExecutionListener {
+    public static final String METRIC_NAME = "datajpa.sql";
+    static final String OTHER = "(other)";
+    private static final String START_NANOS = SqlStatisticsListener.class.getName() + ".start";
+
+    private final MeterRegistry meterRegistry;
+    private final SqlMetricsProperties properties;
+    private final SqlLoggingProperties loggingProperties;
+    private final Map<String, SqlStats> statements = new ConcurrentHashMap<>();
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        // ExecutionInfo.getElapsedTime 은 ms 단위라서 직접 nano 로 잼
+        execInfo.addCustomValue(START_NANOS, System.nanoTime());
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        Long start = execInfo.getCustomValue(START_NANOS, Long.class);
+        long elapsedNanos = start == null ? TimeUnit.MILLISECONDS.toNanos(execInfo.getElapsedTime()) : System.nanoTime() - start;
+
+        for (QueryInfo queryInfo : queryInfoList) {
+            String sql = queryInfo.getQuery();
+            int batchSize = execInfo.isBatch() ? Math.max(1, queryInfo.getParametersList().size()) : 1;
+            stats(sql).record(elapsedNanos, batchSize, execInfo.isSuccess());
+
+            Timer.builder(METRIC_NAME)
+                    .tag("type", QueryUtils.getQueryType(sql).name().toLowerCase(Locale.ROOT))
+                    .tag("success", String.valueOf(execInfo.isSuccess()))
+                    .register(meterRegistry)
+                    .record(elapsedNanos, TimeUnit.NANOSECONDS);
+        }
+
+        if (!loggingProperties.isEnabled() && elapsedNanos >= properties.getSlowQueryThreshold().toNanos()) {
+            String repositoryMethod = RepositoryInvocation.current();
+            log.warn("느린 쿼리 {}ms (임계치 {}ms, {}): {}",
+                    TimeUnit.NANOSECONDS.toMillis(elapsedNanos), properties.getSlowQueryThreshold().toMillis(),
+                    repositoryMethod == null ? "Repository 밖" : repositoryMethod,
+                    queryInfoList.stream().map(QueryInfo::getQuery).collect(Collectors.joining("; ")));
+        }
+    }
+
+    // 총 실행 시간이 긴 순서
+    public List<SqlStats> getStatements(){
+        return statements.values().stream()
+                .sorted(Comparator.comparingLong(SqlStats::getTotalNanos).reversed())
+                .collect(Collectors.toList());
+    }
+
+    public void reset(){
+        statements.clear();
+    }
+
+    private SqlStats stats(String sql){
+        SqlStats stats = statements.get(sql);
+        if (stats != null) {
+            return stats;
+        }
+        String key = statements.size() < properties.getMaxStatements() ? sql : OTHER;
+        return statements.computeIfAbsent(key, SqlStats::new);
+    }
+
+    public static class SqlStats {
+        @Getter
+        private final String sql;
+        private final LongAdder executions = new LongAdder();
+        private final LongAdder rows = new LongAdder(); // batch 면 묶여서 나간 파라미터 세트 수
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        SqlStats(String sql) {
+            this.sql = sql;
+        }
+
+        void record(long elapsedNanos, int batchSize, boolean success){
+            executions.increment();
+            rows.add(batchSize);
+            if (!success) {
+                failures.increment();
+            }
+            totalNanos.add(elapsedNanos);
+            maxNanos.accumulateAndGet(elapsedNanos, Math::max);
+        }
+
+        public long getExecutions(){
+            return executions.sum();
+        }
+
+        public long getRows(){
+            return rows.sum();
+        }
+
+        public long getFailures(){
+            return failures.sum();
+        }
+
+        public long getTotalNanos(){
+            return totalNanos.sum();
+        }
+
+        public long getMaxNanos(){
+            return maxNanos.get();
+        }
+    }
+}
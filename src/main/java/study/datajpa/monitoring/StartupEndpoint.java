@@ -0,0 +1,36 @@
+package study.datajpa.monitoring;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+    /actuator/startup
+    기동 단계별 시간과 초기화가 오래 걸린 빈 (StartupTimingListener) => 릴리즈마다 기동 시간이 늘었는지 비교
+ */
+@Component
+@Endpoint(id = "startup")
+@RequiredArgsConstructor
+public class StartupEndpoint {
+    private final ObjectProvider<StartupReport> startupReport;
+
+    @ReadOperation
+    public Map<String, Object> report(){
+        Map<String, Object> result = new LinkedHashMap<>();
+        StartupReport report = startupReport.getIfAvailable();
+        if (report == null) {
+            return result;
+        }
+        result.put("totalMs", report.getTotalMillis());
+        result.put("phasesMs", report.getPhases());
+        Map<String, Long> beans = new LinkedHashMap<>();
+        report.getSlowestBeans().forEach(e -> beans.put(e.getKey(), e.getValue()));
+        result.put("slowestBeansMs", beans);
+        return result;
+    }
+}
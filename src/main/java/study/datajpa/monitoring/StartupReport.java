@@ -0,0 +1,55 @@
+package study.datajpa.monitoring;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/*
+    기동 단계별 소요 시간 + 초기화가 오래 걸린 빈 (StartupTimingListener 가 채움)
+    /actuator/startup 과 기동 완료 로그로 확인
+ */
+public class StartupReport {
+    private static final int SLOWEST_BEANS = 10;
+
+    private final Map<String, Long> phases = new LinkedHashMap<>();
+    private final Map<String, Long> beans = new ConcurrentHashMap<>();
+    private volatile long totalMillis;
+
+    synchronized void phase(String name, long millis){
+        phases.merge(name, millis, Long::sum);
+    }
+
+    void bean(String name, long millis){
+        beans.put(name, millis);
+    }
+
+    void total(long millis){
+        this.totalMillis = millis;
+    }
+
+    public long getTotalMillis(){
+        return totalMillis;
+    }
+
+    public synchronized Map<String, Long> getPhases(){
+        return new LinkedHashMap<>(phases);
+    }
+
+    // 초기화(afterPropertiesSet, @PostConstruct 등) 시간이 긴 순서
+    public List<Map.Entry<String, Long>> getSlowestBeans(){
+        return beans.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+                .limit(SLOWEST_BEANS)
+                .map(e -> Map.entry(e.getKey(), e.getValue()))
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    @Override
+    public String toString() {
+        return "total " + totalMillis + "ms, phases " + getPhases() + ", slowest beans " + getSlowestBeans();
+    }
+}
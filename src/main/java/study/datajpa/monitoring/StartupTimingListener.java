@@ -0,0 +1,78 @@
+package study.datajpa.monitoring;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.event.*;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.event.ContextRefreshedEvent;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/*
+    기동 단계별 시간 측정 (META-INF/spring.factories 로 등록 => 컨텍스트가 만들어지기 전 이벤트부터 받음)
+    - environment: 설정 파일/프로필 로딩
+    - context: ApplicationContext 생성 + 빈 정의 로딩
+    - refresh: 빈 생성 (JPA 초기화 포함, deferred 면 Repository 초기화까지)
+    - runners: CommandLineRunner/ApplicationRunner
+    + 빈마다 초기화 시간을 재서 오래 걸린 빈 목록
+    결과는 StartupReport 빈으로 등록 (/actuator/startup) 하고 기동이 끝나면 INFO 로그
+ */
+@Slf4j
+public class StartupTimingListener implements ApplicationListener<ApplicationEvent> {
+    private final StartupReport report = new StartupReport();
+    private final long startedAt = System.nanoTime();
+    private long lastMark = startedAt;
+    private ConfigurableApplicationContext context;
+
+    @Override
+    public void onApplicationEvent(ApplicationEvent event) {
+        if (event instanceof ApplicationEnvironmentPreparedEvent) {
+            mark("environment");
+        } else if (event instanceof ApplicationPreparedEvent) {
+            context = ((ApplicationPreparedEvent) event).getApplicationContext();
+            context.getBeanFactory().registerSingleton("startupReport", report);
+            context.getBeanFactory().addBeanPostProcessor(new BeanInitTimer(report));
+            mark("context");
+        } else if (event instanceof ContextRefreshedEvent && ((ContextRefreshedEvent) event).getApplicationContext() == context) {
+            mark("refresh");
+        } else if (event instanceof ApplicationReadyEvent && ((ApplicationReadyEvent) event).getApplicationContext() == context) {
+            mark("runners");
+            report.total(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+            log.info("startup timing: {}", report);
+        }
+    }
+
+    private synchronized void mark(String phase){
+        long now = System.nanoTime();
+        report.phase(phase, TimeUnit.NANOSECONDS.toMillis(now - lastMark));
+        lastMark = now;
+    }
+
+    private static class BeanInitTimer implements BeanPostProcessor {
+        private final StartupReport report;
+        private final Map<String, Long> starts = new ConcurrentHashMap<>();
+
+        private BeanInitTimer(StartupReport report) {
+            this.report = report;
+        }
+
+        @Override
+        public Object postProcessBeforeInitialization(Object bean, String beanName) {
+            starts.put(beanName, System.nanoTime());
+            return bean;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            Long start = starts.remove(beanName);
+            if (start != null) {
+                report.bean(beanName, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+            return bean;
+        }
+    }
+}
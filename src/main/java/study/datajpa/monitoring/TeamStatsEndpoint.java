@@ -0,0 +1,30 @@
+package study.datajpa.monitoring;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+import study.datajpa.repository.stats.TeamStatsReconciler;
+import study.datajpa.repository.stats.TeamStatsReport;
+
+/*
+    /actuator/teamstats
+    GET 은 팀 통계(team_age_bucket) 가 member 와 틀어진 팀 목록만 확인, POST 하면 틀어진 팀을 다시 만듦
+ */
+@Component
+@Endpoint(id = "teamstats")
+@RequiredArgsConstructor
+public class TeamStatsEndpoint {
+    private final TeamStatsReconciler teamStatsReconciler;
+
+    @ReadOperation
+    public TeamStatsReport verify(){
+        return teamStatsReconciler.verify();
+    }
+
+    @WriteOperation
+    public TeamStatsReport reconcile(){
+        return teamStatsReconciler.reconcile();
+    }
+}
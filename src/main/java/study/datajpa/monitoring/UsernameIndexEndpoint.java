@@ -0,0 +1,49 @@
+package study.datajpa.monitoring;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+import study.datajpa.repository.search.MemberUsernameIndex;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+    /actuator/usernameindex
+    username 자동완성 인덱스 크기/추정 메모리 (bytesPerMillionEntries = 1M 건일 때 예상 메모리)
+    POST 하면 DB 에서 다시 읽어서 새로 만듦
+ */
+@Component
+@Endpoint(id = "usernameindex")
+@RequiredArgsConstructor
+public class UsernameIndexEndpoint {
+    private final ObjectProvider<MemberUsernameIndex> usernameIndex;
+
+    @ReadOperation
+    public Map<String, Object> stats(){
+        Map<String, Object> result = new LinkedHashMap<>();
+        MemberUsernameIndex index = usernameIndex.getIfAvailable();
+        if (index == null) {
+            result.put("enabled", false);
+            return result;
+        }
+        long entries = index.size();
+        long bytes = index.estimatedBytes();
+        result.put("enabled", true);
+        result.put("ready", index.isReady());
+        result.put("entries", entries);
+        result.put("pendingChanges", index.pendingChanges());
+        result.put("estimatedBytes", bytes);
+        result.put("bytesPerMillionEntries", entries == 0 ? 0 : bytes * 1_000_000 / entries);
+        result.put("lastBuildMs", index.getLastBuildMillis());
+        return result;
+    }
+
+    @WriteOperation
+    public void rebuild(){
+        usernameIndex.ifAvailable(MemberUsernameIndex::scheduleRebuild);
+    }
+}
@@ -1,23 +1,74 @@
 package study.datajpa.repository;
 
+import lombok.RequiredArgsConstructor;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.StatelessSession;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Repository;
 import study.datajpa.entity.Member;
+import study.datajpa.repository.paging.ConcurrentCountPager;
+import study.datajpa.repository.paging.CountCache;
+import study.datajpa.repository.paging.CountMode;
+import study.datajpa.repository.paging.CountResult;
+import study.datajpa.repository.paging.CountedPage;
+import study.datajpa.repository.paging.CursorSlice;
+import study.datajpa.repository.paging.MemberCursor;
+import study.datajpa.repository.support.BulkInsertResult;
+import study.datajpa.repository.support.BulkInserter;
+import study.datajpa.repository.support.BulkMutator;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import java.sql.Connection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 @Repository
+@RequiredArgsConstructor
 public class MemberJpaRepository {
+    private static final int STREAM_FETCH_SIZE = 1000;
+
     @PersistenceContext
     private EntityManager em;
 
+    private final CountCache countCache;
+    private final BulkInserter bulkInserter;
+    private final BulkMutator bulkMutator;
+    private final ConcurrentCountPager concurrentCountPager;
+
     public Member save(Member member){
         em.persist(member);
         return member;
     }
 
+    // 대량 적재용: JDBC batch insert + 주기적인 flush/clear (영속성 컨텍스트가 비워지는 것에 주의)
+    public BulkInsertResult bulkInsert(Iterable<Member> members){
+        return bulkInserter.insert(Member.class, members);
+    }
+
+    /*
+        Bulk 연산: em.remove/변경감지처럼 Entity 를 하나씩 읽지 않고 update/delete 쿼리 한번(chunk 단위)으로 처리
+        !! 영속성 컨텍스트를 거치지 않으므로 실행 후 clear 됨 (BulkMutator) -> 그 전에 조회한 Entity 는 다시 조회해야함
+     */
+    public long bulkAgePlus(int age){
+        return bulkMutator.execute(Member.class, "m",
+                "update Member m set m.age = m.age + 1, m.version = m.version + 1 where m.age >= :age", Map.of("age", age));
+    }
+
+    public long bulkDeleteByAgeLessThan(int age){
+        return bulkMutator.execute(Member.class, "m",
+                "delete from Member m where m.age < :age", Map.of("age", age));
+    }
+
     public Member find(Long id){
         return em.find(Member.class, id);
     }
@@ -30,6 +81,42 @@ public class MemberJpaRepository {
         return em.createQuery("select m from Member m", Member.class).getResultList();
     }
 
+    /*
+        전체 조회를 List 가 아니라 Stream 으로
+        StatelessSession(영속성 컨텍스트/스냅샷/1차캐시 없음) + FORWARD_ONLY 커서 + fetchSize
+        => row 수와 상관없이 메모리 사용량이 일정함
+        - 현재 트랜잭션의 커넥션을 같이 써서 같은 트랜잭션 안의 데이터가 보임 (트랜잭션 안에서 호출해야함)
+        - 지연로딩이 안되므로 team 같은 연관관계는 건드리면 안됌
+        - 다 쓰고 나면 꼭 close 해야함 (try-with-resources)
+     */
+    public Stream<Member> streamAll(){
+        Session session = em.unwrap(Session.class);
+        session.flush(); // StatelessSession 은 auto flush 를 안해주므로 아직 안 나간 insert 를 먼저 반영
+        Connection connection = session.doReturningWork(c -> c);
+        StatelessSession statelessSession = session.getSessionFactory().openStatelessSession(connection);
+
+        ScrollableResults results = statelessSession.createQuery("select m from Member m", Member.class)
+                .setFetchSize(STREAM_FETCH_SIZE)
+                .setReadOnly(true)
+                .scroll(ScrollMode.FORWARD_ONLY);
+
+        Spliterator<Member> spliterator = new Spliterators.AbstractSpliterator<Member>(Long.MAX_VALUE, Spliterator.ORDERED) {
+            @Override
+            public boolean tryAdvance(Consumer<? super Member> action) {
+                if (!results.next()) {
+                    return false;
+                }
+                action.accept((Member) results.get(0));
+                return true;
+            }
+        };
+        return StreamSupport.stream(spliterator, false)
+                .onClose(() -> {
+                    results.close();
+                    statelessSession.close();
+                });
+    }
+
     public Optional<Member> findById(Long id){
         Member member = em.find(Member.class, id);
         return Optional.ofNullable(member);
@@ -58,11 +145,74 @@ public class MemberJpaRepository {
                 .getResultList();
     }
 
-    public long totalCount(int age){
-        return em.createQuery("select count(m) from Member m where m.age = :age", Long.class)
-                .setParameter("age", age)
+    // 팀 멤버 페이지 조회 (team.getMembers() 를 통째로 로딩하지 않고)
+    public List<Member> findByTeamId(Long teamId, int offset, int limit){
+        return em.createQuery("select m from Member m where m.team.id = :teamId order by m.username, m.id", Member.class)
+                .setParameter("teamId", teamId)
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    public long countByTeamId(Long teamId){
+        return em.createQuery("select count(m) from Member m where m.team.id = :teamId", Long.class)
+                .setParameter("teamId", teamId)
                 .getSingleResult();
     }
 
+    // count 쿼리는 매번 날리면 페이지 조회보다 비쌀 수 있어서 캐시를 거침 (Member 가 save/delete 되면 무효화)
+    public long totalCount(int age){
+        return totalCount(age, CountMode.CACHED).getTotal();
+    }
+
+    public CountResult totalCount(int age, CountMode mode){
+        return countCache.count(Member.class, "Member.countByAge", List.of(age), mode,
+                () -> em.createQuery("select count(m) from Member m where m.age = :age", Long.class)
+                        .setParameter("age", age)
+                        .getSingleResult());
+    }
+
+    /*
+        findByPaging + totalCount 를 순서대로가 아니라 동시에 (ConcurrentCountPager)
+        - count 는 별도 커넥션에서 실행, 마지막 페이지면 count 를 기다리지 않음
+        - timeout 안에 count 가 안 끝나면 total 은 TotalAccuracy.UNKNOWN (하한값)
+     */
+    public CountedPage<Member> findPageConcurrently(int age, Pageable pageable, CountMode mode){
+        return concurrentCountPager.findPage(pageable,
+                limit -> findByPaging(age, (int) pageable.getOffset(), limit),
+                () -> totalCount(age, mode));
+    }
+
+    /*
+        Keyset(Seek) Paging
+        OFFSET 은 건너뛸 row 를 DB가 전부 읽고 버려야해서 뒤 페이지로 갈수록 느려짐
+        => 마지막으로 본 (username, id) 다음부터 읽으면 (age, username, member_id) 인덱스에서 바로 시작 위치를 찾음
+        => 중간에 row 가 insert 되어도 이미 본 row 가 밀려서 중복/누락되지 않음
+     */
+    public CursorSlice<Member> findKeysetByAge(int age, String cursor, int size){
+        MemberCursor after = cursor == null ? null : MemberCursor.decode(cursor);
+        TypedQuery<Member> query;
+        if (after == null) {
+            query = em.createQuery("select m from Member m where m.age = :age" +
+                    " order by m.username asc, m.id asc", Member.class);
+        } else if (after.getUsername() == null) {
+            // username 이 null 인 row 에서 끝났으면 남은 null 과 null 아닌 username 전부 (null 이 맨 앞)
+            query = em.createQuery("select m from Member m where m.age = :age" +
+                    " and (m.username is not null or m.id > :id)" +
+                    " order by m.username asc, m.id asc", Member.class)
+                    .setParameter("id", after.getId());
+        } else {
+            query = em.createQuery("select m from Member m where m.age = :age" +
+                    " and (m.username > :username or (m.username = :username and m.id > :id))" +
+                    " order by m.username asc, m.id asc", Member.class)
+                    .setParameter("username", after.getUsername())
+                    .setParameter("id", after.getId());
+        }
 
+        List<Member> result = query
+                .setParameter("age", age)
+                .setMaxResults(size + 1) // 다음 페이지 존재 여부 확인용으로 +1
+                .getResultList();
+        return CursorSlice.of(result, size, member -> MemberCursor.of(member).encode());
+    }
 }
@@ -1,24 +1,39 @@
 package study.datajpa.repository;
 
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import study.datajpa.dto.MemberDto;
+import study.datajpa.dto.MemberProjection;
+import study.datajpa.dto.MemberSearchCondition;
+import study.datajpa.dto.UsernameMatch;
 import study.datajpa.entity.Member;
+import study.datajpa.repository.paging.CursorSlice;
+import study.datajpa.repository.paging.MemberCursor;
+import study.datajpa.repository.search.MemberSpecs;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface MemberRepository extends JpaRepository<Member, Long> {
+public interface MemberRepository extends JpaRepository<Member, Long>, JpaSpecificationExecutor<Member>, MemberRepositoryCustom {
     List<Member> findByUsernameAndAgeGreaterThan(String username, int age);
 
     /*
         Entity에 NamedQuery 만들어놓은 것 호출 => (Entity.MethodName) 으로 먼저 찾으니까
         @Query(name = "namedquery~~~") 어노테이션은 생략해도됌
      */
+    // * NamedQuery 에 쿼리 캐시 hint 가 있어서 결과(id 목록)가 2차 캐시에 저장됨
     @Query(name = "Member.findByUsername")
     List<Member> findByUsername(@Param("username") String username); // setParameter 역할을 하는 @Param을 꼭 써줘야함
 
@@ -26,10 +41,12 @@ public interface MemberRepository extends JpaRepository<Member, Long> {
     /*
         Named Query랑 똑같이 App Loading 시점에 JPQL 검사를 해줌
      */
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     @Query("select m from Member m where m.username = :username and m.age = :age")
     List<Member> findNandA(@Param("username") String username, @Param("age") int age);
 
     // * JPA의 Embedded 타입도 조회가 가능함
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     @Query("select m.username from Member m")
     List<String> findUsernameList();
 
@@ -38,6 +55,7 @@ public interface MemberRepository extends JpaRepository<Member, Long> {
     List<MemberDto> findMemberDto();
 
     // * 여러개를 조회하고 싶을 때, Collection을 지원함(SQL IN 구문)
+    //   이름이 수백~수천개면 SQL 이 너무 길어지니까 findByNamesInChunks 사용
     @Query("select m from Member m where m.username in :names")
     List<Member> findByNames(@Param("names") List<String> names);
 
@@ -51,5 +69,136 @@ public interface MemberRepository extends JpaRepository<Member, Long> {
             countQuery = "select count(m) from Member m") // 조인이 걸려있는 상황에서 카운트를 구하고 싶으면 따로 카운트 쿼리만 작성해서 성능 향상
     Page<Member> findByAge(int age, Pageable pageable); // 일반적인 Paging
     List<Member> findTop3ByAge(int age);
+
+    // 팀 멤버(roster)를 team.getMembers() 전체 로딩 대신 페이지 단위로 (member.team_id 인덱스)
+    Page<Member> findByTeamId(Long teamId, Pageable pageable);
+    long countByTeamId(Long teamId);
+    boolean existsByTeamIdAndId(Long teamId, Long memberId);
+
+    /*
+        N+1 문제: team 은 LAZY 라서 member.getTeam().getName() 을 부르면 row 마다 team select 가 나감
+        => fetch join 이나 EntityGraph 로 한번에 같이 가져오는 버전을 따로 둠
+     */
+    @Query("select m from Member m left join fetch m.team")
+    List<Member> findMemberFetchJoin();
+
+    // * JPQL 없이 EntityGraph 만 붙여도 fetch join 처럼 동작함
+    @EntityGraph(attributePaths = {"team"})
+    @Query("select m from Member m")
+    List<Member> findMemberEntityGraph();
+
+    // * Entity 에 정의한 @NamedEntityGraph 사용
+    @EntityGraph("Member.team")
+    List<Member> findEntityGraphByUsername(@Param("username") String username);
+
+    // 단건 + team (준영속으로 넘겨줄 때, AsyncMemberRepository)
+    @EntityGraph(attributePaths = {"team"})
+    Optional<Member> findWithTeamById(Long id);
+
+    // * ManyToOne 은 fetch join 해도 row 수가 늘어나지 않아서 Paging 이 가능함
+    @EntityGraph(attributePaths = {"team"})
+    @Query(value = "select m from Member m where m.age = :age",
+            countQuery = "select count(m) from Member m where m.age = :age")
+    Page<Member> findWithTeamByAge(@Param("age") int age, Pageable pageable);
+
+    /*
+        전체 export 용 Stream 조회: List 로 한번에 올리지 않고 fetchSize 만큼씩 커서로 읽어옴
+        - 트랜잭션 안에서 사용하고 꼭 close 해야함 (try-with-resources)
+        - Entity 버전은 readOnly 라 스냅샷은 안 만들지만 영속성 컨텍스트에는 쌓이므로 다 쓴 Entity 는 detach 해야함
+          => 메모리를 일정하게 유지해야 하면 DTO 버전을 사용
+     */
+    @QueryHints(value = {
+            @QueryHint(name = "org.hibernate.fetchSize", value = "1000"),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")
+    })
+    @Query("select m from Member m")
+    Stream<Member> streamAll();
+
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+    @Query("select new study.datajpa.dto.MemberDto(m.id, m.username, t.name) from Member m left join m.team t")
+    Stream<MemberDto> streamMemberDto();
+
+    // 한 페이지를 DTO Stream 으로 (MemberPageStreamService 가 JSON 으로 바로 씀), count 는 따로 countByAge
+    @Query("select new study.datajpa.dto.MemberDto(m.id, m.username, t.name) from Member m left join m.team t where m.age = :age")
+    Stream<MemberDto> streamMemberDtoByAge(@Param("age") int age, Pageable pageable);
+
+    // username 자동완성 인덱스(MemberUsernameIndex) 를 만들 때 username, id 만 Stream 으로
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+    @Query("select new study.datajpa.dto.UsernameMatch(m.id, m.username) from Member m where m.username is not null")
+    Stream<UsernameMatch> streamUsernames();
+
+    // 인덱스가 준비되기 전에 쓰는 DB 버전 (username like 'prefix%', %/_ 는 Spring Data 가 escape 해줌)
+    List<UsernameMatch> findByUsernameStartingWith(String prefix, Pageable pageable);
+
+    /*
+        조회 전용(Read-Only) 버전
+        Entity 로 조회하면 영속성 컨텍스트가 스냅샷을 떠두고 flush 때마다 dirty checking 을 함 -> 읽기만 할 때는 낭비
+
+        1. Projection: 필요한 컬럼만 select, Entity 가 아니라서 영속성 컨텍스트에 올라가지 않음
+           type 에 MemberProjection(인터페이스), MemberSummaryDto(클래스) 등을 넘기면 됌 (Dynamic Projection)
+     */
+    <T> List<T> findProjectionsByUsername(@Param("username") String username, Class<T> type);
+
+    <T> Optional<T> findProjectionsById(Long id, Class<T> type);
+
+    <T> Page<T> findProjectionsByAge(int age, Pageable pageable, Class<T> type);
+
+    @Query("select m.id as id, m.username as username, m.age as age from Member m where m.username in :names")
+    List<MemberProjection> findProjectionsByNames(@Param("names") Collection<String> names);
+
+    /*
+        2. Entity 가 꼭 필요하면 readOnly hint + readOnly 트랜잭션
+           - hint: 스냅샷을 만들지 않음 (변경해도 update 안나감)
+           - readOnly 트랜잭션: FlushMode.MANUAL 이라 flush(dirty checking) 자체를 안함
+             (이미 쓰기 트랜잭션이 열려있으면 거기에 참여하므로 hint 만 적용됨)
+     */
+    @Transactional(readOnly = true)
+    @QueryHints(@QueryHint(name = "org.hibernate.readOnly", value = "true"))
+    List<Member> findReadOnlyByUsername(String username);
+
+    @Transactional(readOnly = true)
+    @QueryHints(@QueryHint(name = "org.hibernate.readOnly", value = "true"))
+    Page<Member> findReadOnlyByAge(int age, Pageable pageable);
+
+    @Transactional(readOnly = true)
+    @QueryHints(@QueryHint(name = "org.hibernate.readOnly", value = "true"))
+    @Query("select m from Member m where m.username in :names")
+    List<Member> findReadOnlyByNames(@Param("names") Collection<String> names);
 //    Slice<Member> findByAge(int age, Pageable pageable); // 모바일화면의 '더보기' 처럼 원하는 Paging 개수보다 +1 더 요청해서 가져옴
+
+    // Keyset(Seek) Paging => OFFSET 없이 (age, username, member_id) 인덱스에서 커서 다음 위치부터 읽음
+    @Query("select m from Member m where m.age = :age order by m.username asc, m.id asc")
+    List<Member> findKeysetFirstByAge(@Param("age") int age, Pageable pageable);
+
+    @Query("select m from Member m where m.age = :age" +
+            " and (m.username > :username or (m.username = :username and m.id > :id))" +
+            " order by m.username asc, m.id asc")
+    List<Member> findKeysetNextByAge(@Param("age") int age, @Param("username") String username,
+                                     @Param("id") Long id, Pageable pageable);
+
+    // 커서의 username 이 null 일 때 (null 이 맨 앞이라 남은 null 다음엔 null 아닌 username 전부)
+    @Query("select m from Member m where m.age = :age" +
+            " and (m.username is not null or m.id > :id)" +
+            " order by m.username asc, m.id asc")
+    List<Member> findKeysetNextAfterNullByAge(@Param("age") int age, @Param("id") Long id, Pageable pageable);
+
+    // cursor 가 null 이면 첫 페이지, 아니면 이전 결과의 nextCursor 를 그대로 넘기면 됌
+    default CursorSlice<Member> findKeysetByAge(int age, String cursor, int size){
+        PageRequest limit = PageRequest.of(0, size + 1); // 다음 페이지 존재 여부 확인용으로 +1
+        List<Member> result;
+        if (cursor == null) {
+            result = findKeysetFirstByAge(age, limit);
+        } else {
+            MemberCursor after = MemberCursor.decode(cursor);
+            result = after.getUsername() == null
+                    ? findKeysetNextAfterNullByAge(age, after.getId(), limit)
+                    : findKeysetNextByAge(age, after.getUsername(), after.getId(), limit);
+        }
+        return CursorSlice.of(result, size, member -> MemberCursor.of(member).encode());
+    }
+
+    // 검색 조건 조합 (MemberSpecs), 정렬/페이지는 Pageable 그대로. Keyset 은 MemberRepositoryCustom.searchKeyset
+    default Page<Member> search(MemberSearchCondition condition, Pageable pageable){
+        return findAll(MemberSpecs.search(condition), pageable);
+    }
 }
@@ -0,0 +1,55 @@
+package study.datajpa.repository;
+
+import org.springframework.data.domain.Pageable;
+import study.datajpa.dto.MemberSearchCondition;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.paging.CountMode;
+import study.datajpa.repository.paging.CountResult;
+import study.datajpa.repository.paging.CountedPage;
+import study.datajpa.repository.paging.CursorSlice;
+import study.datajpa.repository.support.BulkInsertResult;
+
+import java.util.Collection;
+import java.util.List;
+
+/*
+    Spring Data JPA 가 만들어주는 메서드로 안되는 것들은 사용자 정의 리포지토리로 직접 구현
+    => MemberRepository 가 이 인터페이스를 상속하면 MemberRepositoryImpl 의 구현을 찾아서 같이 붙여줌
+ */
+public interface MemberRepositoryCustom {
+    // count 를 캐시(CountCache)를 거쳐서 구하는 Paging. totalElements 가 정확한 값인지는 CountedPage 에 같이 담김
+    CountedPage<Member> findPageByAge(int age, Pageable pageable, CountMode countMode);
+
+    // findPageByAge 와 같은데 content 와 count 를 동시에 실행 (ConcurrentCountPager), 늦은 count 는 total 이 UNKNOWN
+    CountedPage<Member> findPageByAgeConcurrently(int age, Pageable pageable, CountMode countMode);
+
+    // findPageByAge 가 쓰는 count (CountCache 를 거침), content 를 따로 읽는 곳에서 total 만 필요할 때
+    CountResult countByAge(int age, CountMode countMode);
+
+    // saveAll 은 merge/isNew 판단 + 영속성 컨텍스트가 계속 커짐 => 대량 적재는 이걸 사용
+    BulkInsertResult bulkInsert(Iterable<Member> members);
+
+    /*
+        findByNames 를 대량 입력용으로: 중복 제거 + IN 절을 chunk 로 나눠서 조회, 결과는 입력한 이름 순서 (ChunkedLookup)
+        parallel 이면 chunk 마다 별도 커넥션에서 동시에 조회 (결과는 준영속)
+     */
+    List<Member> findByNamesInChunks(Collection<String> names, boolean parallel);
+
+    // id 여러건 조회, 없는 id 는 빠지고 입력 순서대로
+    List<Member> findAllByIdInChunks(Collection<Long> ids, boolean parallel);
+
+    /*
+        Bulk 연산 (@Modifying 과 같은 JPQL update/delete 를 id 범위 chunk 로 나눠서 실행, BulkMutator)
+        - Entity 를 읽지 않고 DB 에 바로 반영 후 영속성 컨텍스트를 비움 => 실행 후엔 다시 조회해서 써야함
+        - 반환값은 영향받은 row 수
+     */
+    long bulkAgePlus(int age); // age 이상인 회원 나이 +1
+    long bulkDeleteByAgeLessThan(int age);
+
+    /*
+        검색 조건 조합(MemberSpecs) + Keyset Paging, 정렬은 username, id 고정
+        cursor 가 null 이면 첫 페이지, 아니면 이전 결과의 nextCursor
+        size 는 datajpa.search.max-size 까지로 줄이고, 1 보다 작으면 IllegalArgumentException (리포지토리 밖에선 InvalidDataAccessApiUsageException)
+     */
+    CursorSlice<Member> searchKeyset(MemberSearchCondition condition, String cursor, int size);
+}
@@ -0,0 +1,139 @@
+package study.datajpa.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import study.datajpa.dto.MemberSearchCondition;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.paging.ConcurrentCountPager;
+import study.datajpa.repository.paging.CountCache;
+import study.datajpa.repository.paging.CountMode;
+import study.datajpa.repository.paging.CountResult;
+import study.datajpa.repository.paging.CountedPage;
+import study.datajpa.repository.paging.CursorSlice;
+import study.datajpa.repository.paging.MemberCursor;
+import study.datajpa.repository.paging.TotalAccuracy;
+import study.datajpa.repository.search.MemberSearchProperties;
+import study.datajpa.repository.search.MemberSpecs;
+import study.datajpa.repository.support.BulkInsertResult;
+import study.datajpa.repository.support.BulkInserter;
+import study.datajpa.repository.support.BulkMutator;
+import study.datajpa.repository.support.ChunkedLookup;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/*
+    이름을 꼭 (리포지토리 인터페이스 이름 + Impl) 로 맞춰야 Spring Data JPA 가 찾아줌
+ */
+@RequiredArgsConstructor
+public class MemberRepositoryImpl implements MemberRepositoryCustom {
+    @PersistenceContext
+    private EntityManager em;
+
+    private final CountCache countCache;
+    private final BulkInserter bulkInserter;
+    private final ChunkedLookup chunkedLookup;
+    private final BulkMutator bulkMutator;
+    private final ConcurrentCountPager concurrentCountPager;
+    private final MemberSearchProperties searchProperties;
+
+    @Override
+    public CountedPage<Member> findPageByAge(int age, Pageable pageable, CountMode countMode) {
+        List<Member> content = findContentByAge(age, pageable, pageable.getPageSize());
+
+        // 마지막 페이지라는게 content 만으로 확실하면 count 쿼리 자체를 생략 (Spring Data 의 PageableExecutionUtils 와 같은 방식)
+        if (content.size() < pageable.getPageSize() && (pageable.getOffset() == 0 || !content.isEmpty())) {
+            return new CountedPage<>(content, pageable, pageable.getOffset() + content.size(), TotalAccuracy.EXACT);
+        }
+
+        CountResult count = countByAge(age, countMode);
+        return new CountedPage<>(content, pageable, count.getTotal(), count.getAccuracy());
+    }
+
+    @Override
+    public CountedPage<Member> findPageByAgeConcurrently(int age, Pageable pageable, CountMode countMode) {
+        return concurrentCountPager.findPage(pageable,
+                limit -> findContentByAge(age, pageable, limit),
+                () -> countByAge(age, countMode));
+    }
+
+    private List<Member> findContentByAge(int age, Pageable pageable, int maxResults){
+        String jpql = QueryUtils.applySorting("select m from Member m where m.age = :age", pageable.getSort(), "m");
+        return em.createQuery(jpql, Member.class)
+                .setParameter("age", age)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(maxResults)
+                .getResultList();
+    }
+
+    @Override
+    public CountResult countByAge(int age, CountMode countMode) {
+        return countCache.count(Member.class, "Member.countByAge", List.of(age), countMode,
+                () -> em.createQuery("select count(m) from Member m where m.age = :age", Long.class)
+                        .setParameter("age", age)
+                        .getSingleResult());
+    }
+
+    @Override
+    public BulkInsertResult bulkInsert(Iterable<Member> members) {
+        return bulkInserter.insert(Member.class, members);
+    }
+
+    @Override
+    public List<Member> findByNamesInChunks(Collection<String> names, boolean parallel) {
+        return chunkedLookup.find(names, Member::getUsername, chunk ->
+                em.createQuery("select m from Member m where m.username in :names", Member.class)
+                        .setParameter("names", chunk)
+                        .getResultList(), parallel);
+    }
+
+    @Override
+    public List<Member> findAllByIdInChunks(Collection<Long> ids, boolean parallel) {
+        return chunkedLookup.findAllById(Member.class, ids, Member::getId, parallel);
+    }
+
+    @Override
+    public long bulkAgePlus(int age) {
+        return bulkMutator.execute(Member.class, "m",
+                "update Member m set m.age = m.age + 1, m.version = m.version + 1 where m.age >= :age", Map.of("age", age));
+    }
+
+    @Override
+    public long bulkDeleteByAgeLessThan(int age) {
+        return bulkMutator.execute(Member.class, "m",
+                "delete from Member m where m.age < :age", Map.of("age", age));
+    }
+
+    @Override
+    public CursorSlice<Member> searchKeyset(MemberSearchCondition condition, String cursor, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("size 는 1 이상이어야 합니다: " + size);
+        }
+        int limit = Math.min(size, searchProperties.getMaxSize());
+        Specification<Member> spec = MemberSpecs.search(condition)
+                .and(MemberSpecs.after(cursor == null ? null : MemberCursor.decode(cursor)));
+
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Member> query = cb.createQuery(Member.class);
+        Root<Member> root = query.from(Member.class);
+        Predicate where = spec.toPredicate(root, query, cb);
+        if (where != null) {
+            query.where(where);
+        }
+        query.select(root).orderBy(cb.asc(root.get("username")), cb.asc(root.get("id")));
+
+        List<Member> result = em.createQuery(query)
+                .setMaxResults(limit + 1) // 다음 페이지 존재 여부 확인용으로 +1
+                .getResultList();
+        return CursorSlice.of(result, limit, member -> MemberCursor.of(member).encode());
+    }
+}
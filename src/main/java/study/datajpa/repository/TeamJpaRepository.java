@@ -1,7 +1,10 @@
 package study.datajpa.repository;
 
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Repository;
 import study.datajpa.entity.Team;
+import study.datajpa.repository.support.BulkInsertResult;
+import study.datajpa.repository.support.BulkInserter;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
@@ -13,15 +16,22 @@ import java.util.Optional;
     반복이 심하다
  */
 @Repository
+@RequiredArgsConstructor
 public class TeamJpaRepository {
     @PersistenceContext
     private EntityManager em;
 
+    private final BulkInserter bulkInserter;
+
     public Team save(Team team){
         em.persist(team);
         return team;
     }
 
+    public BulkInsertResult bulkInsert(Iterable<Team> teams){
+        return bulkInserter.insert(Team.class, teams);
+    }
+
     public void delete(Team team){
         em.remove(team);
     }
@@ -0,0 +1,21 @@
+package study.datajpa.repository;
+
+import study.datajpa.dto.TeamStats;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.support.BulkInsertResult;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface TeamRepositoryCustom {
+    BulkInsertResult bulkInsert(Iterable<Team> teams);
+
+    // id 여러건 조회, 없는 id 는 빠지고 입력 순서대로 (ChunkedLookup)
+    List<Team> findAllByIdInChunks(Collection<Long> ids, boolean parallel);
+
+    /*
+        팀 멤버 수/나이 합/최소/최대 (team_age_bucket 에서 읽음, member 를 세거나 Team.members 를 로딩하지 않음)
+        팀 크기와 상관없이 (나이 종류 x stripe) 개 row 만 읽음
+     */
+    TeamStats findStats(Long teamId);
+}
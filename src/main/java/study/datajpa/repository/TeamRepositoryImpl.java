@@ -0,0 +1,53 @@
+package study.datajpa.repository;
+
+import lombok.RequiredArgsConstructor;
+import study.datajpa.dto.TeamStats;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.support.BulkInsertResult;
+import study.datajpa.repository.support.BulkInserter;
+import study.datajpa.repository.support.ChunkedLookup;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.Collection;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class TeamRepositoryImpl implements TeamRepositoryCustom {
+    @PersistenceContext
+    private EntityManager em;
+
+    private final BulkInserter bulkInserter;
+    private final ChunkedLookup chunkedLookup;
+
+    @Override
+    public BulkInsertResult bulkInsert(Iterable<Team> teams) {
+        return bulkInserter.insert(Team.class, teams);
+    }
+
+    @Override
+    public List<Team> findAllByIdInChunks(Collection<Long> ids, boolean parallel) {
+        return chunkedLookup.findAllById(Team.class, ids, Team::getId, parallel);
+    }
+
+    @Override
+    public TeamStats findStats(Long teamId) {
+        List<Object[]> buckets = em.createQuery(
+                "select b.age, sum(b.memberCount) from TeamAgeBucket b where b.teamId = :teamId" +
+                        " group by b.age having sum(b.memberCount) > 0", Object[].class)
+                .setParameter("teamId", teamId)
+                .getResultList();
+
+        long count = 0, ageSum = 0;
+        Integer minAge = null, maxAge = null;
+        for (Object[] bucket : buckets) {
+            int age = (Integer) bucket[0];
+            long members = (Long) bucket[1];
+            count += members;
+            ageSum += age * members;
+            minAge = minAge == null ? age : Math.min(minAge, age);
+            maxAge = maxAge == null ? age : Math.max(maxAge, age);
+        }
+        return new TeamStats(teamId, count, ageSum, minAge, maxAge);
+    }
+}
@@ -0,0 +1,41 @@
+package study.datajpa.repository.async;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/*
+    MemberRepository 의 주요 조회를 RepositoryBulkhead 에서 비동기로
+    - 결과 Entity 는 준영속 => team 은 fetch join(EntityGraph) 으로 같이 읽어둠 (밖에서 지연로딩하면 LazyInitializationException)
+    - 포화 상태면 BulkheadRejectedException 으로 실패한 future 가 바로 나옴
+ */
+@Component
+@RequiredArgsConstructor
+public class AsyncMemberRepository {
+    private final MemberRepository memberRepository;
+    private final RepositoryBulkhead bulkhead;
+
+    public CompletableFuture<Optional<Member>> findById(Long id){
+        return bulkhead.submit(AsyncOperation.MEMBER_BY_ID, () -> memberRepository.findWithTeamById(id));
+    }
+
+    public CompletableFuture<List<Member>> findByUsername(String username){
+        return bulkhead.submit(AsyncOperation.MEMBERS_BY_USERNAME, () -> memberRepository.findEntityGraphByUsername(username));
+    }
+
+    public CompletableFuture<Page<Member>> findByAge(int age, Pageable pageable){
+        return bulkhead.submit(AsyncOperation.MEMBERS_BY_AGE, () -> memberRepository.findWithTeamByAge(age, pageable));
+    }
+
+    public CompletableFuture<List<MemberDto>> findMemberDto(){
+        return bulkhead.submit(AsyncOperation.MEMBER_DTOS, memberRepository::findMemberDto);
+    }
+}
@@ -0,0 +1,21 @@
+package study.datajpa.repository.async;
+
+import java.util.Locale;
+
+/*
+    비동기 조회 종류, 종류마다 동시 실행 개수를 따로 제한 (datajpa.async.limits)
+    => 느린 조회(목록/DTO)가 몰려도 빠른 단건 조회 몫의 스레드/커넥션은 남아있게
+ */
+public enum AsyncOperation {
+    MEMBER_BY_ID,
+    MEMBERS_BY_USERNAME,
+    MEMBERS_BY_AGE,
+    MEMBER_DTOS,
+    TEAM_BY_ID,
+    TEAM_STATS;
+
+    // 메트릭 태그용 (member-by-id)
+    public String tag(){
+        return name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+}
@@ -0,0 +1,30 @@
+package study.datajpa.repository.async;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/*
+    비동기 조회 (AsyncMemberRepository, AsyncTeamRepository) 의 bulkhead 설정
+ */
+@Getter @Setter
+@ConfigurationProperties(prefix = "datajpa.async")
+public class AsyncRepositoryProperties {
+    // 실행 스레드 수, 0 이면 커넥션 풀(spring.datasource.hikari.maximum-pool-size) 의 절반 (나머지는 동기 요청 몫)
+    private int threads = 0;
+    // 실행 대기열 크기, 꽉 차면 바로 거절
+    private int queueCapacity = 100;
+    // 대기열에서 이 시간 넘게 기다린 조회는 실행하지 않고 실패 (이미 호출한 쪽이 포기했을 시간)
+    private Duration queueTimeout = Duration.ofMillis(500);
+    // 조회 종류별 동시 실행(대기 포함) 개수, 없는 종류는 defaultLimit
+    private int defaultLimit = 4;
+    private Map<AsyncOperation, Integer> limits = new EnumMap<>(AsyncOperation.class);
+
+    public int limitOf(AsyncOperation operation){
+        return limits.getOrDefault(operation, defaultLimit);
+    }
+}
@@ -0,0 +1,29 @@
+package study.datajpa.repository.async;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import study.datajpa.dto.TeamStats;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.TeamRepository;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/*
+    TeamRepository 의 주요 조회를 RepositoryBulkhead 에서 비동기로
+    !! 반환된 Team 은 준영속이라 members 는 읽을 수 없음 (팀 멤버 수 등은 findStats 로)
+ */
+@Component
+@RequiredArgsConstructor
+public class AsyncTeamRepository {
+    private final TeamRepository teamRepository;
+    private final RepositoryBulkhead bulkhead;
+
+    public CompletableFuture<Optional<Team>> findById(Long id){
+        return bulkhead.submit(AsyncOperation.TEAM_BY_ID, () -> teamRepository.findById(id));
+    }
+
+    public CompletableFuture<TeamStats> findStats(Long teamId){
+        return bulkhead.submit(AsyncOperation.TEAM_STATS, () -> teamRepository.findStats(teamId));
+    }
+}
@@ -0,0 +1,27 @@
+package study.datajpa.repository.async;
+
+import lombok.Getter;
+
+/*
+    bulkhead 가 조회를 받지 않거나(포화) 대기 시간이 지나서 실행하지 않음 => DB 에는 아무것도 보내지 않은 상태라 재시도해도 안전
+ */
+@Getter
+public class BulkheadRejectedException extends RuntimeException {
+    public enum Reason {
+        // 조회 종류별 동시 실행 제한 초과
+        LIMIT,
+        // 실행 대기열이 꽉 참
+        QUEUE_FULL,
+        // 대기열에서 queue-timeout 넘게 기다림
+        QUEUE_TIMEOUT
+    }
+
+    private final AsyncOperation operation;
+    private final Reason reason;
+
+    public BulkheadRejectedException(AsyncOperation operation, Reason reason) {
+        super(operation + " 조회 거절: " + reason);
+        this.operation = operation;
+        this.reason = reason;
+    }
+}
@@ -0,0 +1,132 @@
+package study.datajpa.repository.async;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.repository.async.BulkheadRejectedException.Reason;
+
+import javax.annotation.PreDestroy;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/*
+    비동기 조회를 실행하는 격벽(bulkhead)
+    DB 가 느려져도 요청 스레드가 Hikari getConnection 에 줄줄이 묶이지 않도록 들어오는 양을 앞단에서 자름
+    - 스레드 수는 커넥션 풀보다 작게 => 실행 중인 조회는 커넥션을 기다리지 않음
+    - 조회 종류별 Semaphore (대기열에 있는 것 포함), 못 얻으면 기다리지 않고 바로 거절
+    - 대기열이 꽉 차도 바로 거절, 대기열에서 queue-timeout 넘게 기다린 건 실행하지 않고 실패
+    - 거절/만료는 모두 BulkheadRejectedException 으로 실패한 future (호출한 스레드에서 예외를 던지지 않음)
+    - 조회는 읽기 전용 트랜잭션에서 실행 => 반환된 Entity 는 준영속이라 필요한 연관은 fetch join 으로 같이 읽어야함
+    메트릭: datajpa.async.queue.size, datajpa.async.active, datajpa.async.inflight{operation},
+           datajpa.async.wait{operation} (대기열에서 기다린 시간), datajpa.async.rejected{operation, reason}
+ */
+@Component
+public class RepositoryBulkhead {
+    private final AsyncRepositoryProperties properties;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ThreadPoolTaskExecutor executor;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<AsyncOperation, Semaphore> permits = new EnumMap<>(AsyncOperation.class);
+    private final Map<AsyncOperation, Timer> waitTimers = new EnumMap<>(AsyncOperation.class);
+
+    public RepositoryBulkhead(AsyncRepositoryProperties properties, PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry,
+                              @Value("${spring.datasource.hikari.maximum-pool-size:10}") int connectionPoolSize) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+
+        int threads = properties.getThreads() > 0 ? properties.getThreads() : Math.max(1, connectionPoolSize / 2);
+        this.executor = new ThreadPoolTaskExecutor();
+        this.executor.setCorePoolSize(threads);
+        this.executor.setMaxPoolSize(threads);
+        this.executor.setQueueCapacity(properties.getQueueCapacity());
+        this.executor.setThreadNamePrefix("repository-async-");
+        this.executor.initialize();
+
+        ThreadPoolExecutor pool = executor.getThreadPoolExecutor();
+        Gauge.builder("datajpa.async.queue.size", pool, p -> p.getQueue().size()).register(meterRegistry);
+        Gauge.builder("datajpa.async.active", pool, ThreadPoolExecutor::getActiveCount).register(meterRegistry);
+        for (AsyncOperation operation : AsyncOperation.values()) {
+            int limit = properties.limitOf(operation);
+            Semaphore semaphore = new Semaphore(limit);
+            permits.put(operation, semaphore);
+            Gauge.builder("datajpa.async.inflight", semaphore, s -> limit - s.availablePermits())
+                    .tag("operation", operation.tag()).register(meterRegistry);
+            waitTimers.put(operation, Timer.builder("datajpa.async.wait")
+                    .tag("operation", operation.tag()).register(meterRegistry));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown(){
+        executor.shutdown();
+    }
+
+    public <T> CompletableFuture<T> submit(AsyncOperation operation, Supplier<T> query){
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Semaphore semaphore = permits.get(operation);
+        if (!semaphore.tryAcquire()) {
+            return reject(result, operation, Reason.LIMIT);
+        }
+
+        long enqueuedAt = System.nanoTime();
+        try {
+            executor.execute(() -> {
+                try {
+                    run(operation, query, result, enqueuedAt);
+                } finally {
+                    semaphore.release();
+                }
+            });
+        } catch (TaskRejectedException e) {
+            semaphore.release();
+            return reject(result, operation, Reason.QUEUE_FULL);
+        }
+        return result;
+    }
+
+    private <T> void run(AsyncOperation operation, Supplier<T> query, CompletableFuture<T> result, long enqueuedAt){
+        long waited = System.nanoTime() - enqueuedAt;
+        waitTimers.get(operation).record(waited, TimeUnit.NANOSECONDS);
+
+        // 기다리는 동안 호출한 쪽이 취소했으면 커넥션을 잡지 않음
+        if (result.isDone()) {
+            return;
+        }
+        if (waited > properties.getQueueTimeout().toNanos()) {
+            reject(result, operation, Reason.QUEUE_TIMEOUT);
+            return;
+        }
+        try {
+            result.complete(readOnlyTransaction.execute(status -> query.get()));
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+        }
+    }
+
+    private <T> CompletableFuture<T> reject(CompletableFuture<T> result, AsyncOperation operation, Reason reason){
+        Counter.builder("datajpa.async.rejected")
+                .tag("operation", operation.tag())
+                .tag("reason", reason.name().toLowerCase(Locale.ROOT))
+                .register(meterRegistry)
+                .increment();
+        result.completeExceptionally(new BulkheadRejectedException(operation, reason));
+        return result;
+    }
+}
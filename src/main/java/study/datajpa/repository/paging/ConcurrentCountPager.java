@@ -0,0 +1,133 @@
+package study.datajpa.repository.paging;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/*
+    Page 의 content 쿼리와 count 쿼리를 동시에 실행 (순서대로면 응답시간 = content + count)
+    - count 는 별도 스레드 + 별도 읽기 전용 트랜잭션(= 별도 커넥션), content 는 호출한 스레드/트랜잭션에서
+      !! count 에는 호출한 쪽 트랜잭션의 커밋 안된 변경이 안 보임
+    - content 는 pageSize + 1 개를 읽어서 +1 이 없으면 마지막 페이지 => total 을 바로 알 수 있으니 count 를 기다리지 않음
+      (아직 대기열에 있던 count 는 취소돼서 실행되지 않음)
+    - timeout 안에 count 가 안 끝나거나 대기열이 꽉 차면 total 을 모르는 채로 (TotalAccuracy.UNKNOWN) 반환
+      늦게 끝난 count 도 CountCache 에는 들어가서 다음 조회는 캐시에서 바로 나옴
+ */
+@Slf4j
+@Component
+public class ConcurrentCountPager {
+    private final ConcurrentCountProperties properties;
+    private final TransactionTemplate countTransaction;
+    private final ThreadPoolTaskExecutor executor;
+
+    private final Counter completed;
+    private final Counter skipped;
+    private final Counter timedOut;
+    private final Counter rejected;
+
+    public ConcurrentCountPager(ConcurrentCountProperties properties, PlatformTransactionManager transactionManager,
+                                MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.countTransaction = new TransactionTemplate(transactionManager);
+        this.countTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.countTransaction.setReadOnly(true);
+
+        this.executor = new ThreadPoolTaskExecutor();
+        this.executor.setCorePoolSize(properties.getParallelism());
+        this.executor.setMaxPoolSize(properties.getParallelism());
+        this.executor.setQueueCapacity(properties.getQueueCapacity());
+        this.executor.setThreadNamePrefix("page-count-");
+        this.executor.initialize();
+
+        this.completed = outcome(meterRegistry, "completed");
+        this.skipped = outcome(meterRegistry, "skipped");
+        this.timedOut = outcome(meterRegistry, "timeout");
+        this.rejected = outcome(meterRegistry, "rejected");
+    }
+
+    @PreDestroy
+    public void shutdown(){
+        executor.shutdown();
+    }
+
+    /*
+        contentQuery: maxResults 를 받아서 offset 부터 그만큼 조회
+        countQuery  : 별도 트랜잭션 안에서 실행됨 (CountCache 를 거치는 count 를 그대로 넘기면 됌)
+     */
+    public <T> CountedPage<T> findPage(Pageable pageable,
+                                       IntFunction<List<T>> contentQuery, Supplier<CountResult> countQuery){
+        long deadline = System.nanoTime() + properties.getTimeout().toNanos();
+        CompletableFuture<CountResult> count = submit(countQuery);
+
+        List<T> fetched = contentQuery.apply(pageable.getPageSize() + 1);
+        int pageSize = pageable.getPageSize();
+        long offset = pageable.getOffset();
+
+        if (fetched.size() <= pageSize && (offset == 0 || !fetched.isEmpty())) {
+            if (count != null && count.cancel(false)) {
+                skipped.increment();
+            }
+            return new CountedPage<>(fetched, pageable, offset + fetched.size(), TotalAccuracy.EXACT);
+        }
+
+        List<T> content = fetched.size() > pageSize ? new ArrayList<>(fetched.subList(0, pageSize)) : fetched;
+        CountResult total = await(count, deadline);
+        if (total == null) {
+            // 적어도 다음 페이지 첫 row 까지는 있음 (content 가 비었으면 offset 이 범위를 넘은 것)
+            long lowerBound = content.isEmpty() ? 0 : offset + content.size() + 1;
+            return new CountedPage<>(content, pageable, lowerBound, TotalAccuracy.UNKNOWN);
+        }
+        return new CountedPage<>(content, pageable, total.getTotal(), total.getAccuracy());
+    }
+
+    private CompletableFuture<CountResult> submit(Supplier<CountResult> countQuery){
+        try {
+            return CompletableFuture.supplyAsync(() -> countTransaction.execute(status -> countQuery.get()), executor);
+        } catch (TaskRejectedException e) {
+            rejected.increment();
+            return null;
+        }
+    }
+
+    private CountResult await(CompletableFuture<CountResult> count, long deadline){
+        if (count == null) {
+            return null;
+        }
+        try {
+            CountResult result = count.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            completed.increment();
+            return result;
+        } catch (TimeoutException e) {
+            timedOut.increment();
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            // count 가 실패해도 content 는 돌려줌
+            log.warn("count 쿼리 실패, total 없이 반환", e.getCause());
+            return null;
+        }
+    }
+
+    private static Counter outcome(MeterRegistry meterRegistry, String outcome){
+        return Counter.builder("datajpa.paging.count").tag("outcome", outcome).register(meterRegistry);
+    }
+}
@@ -0,0 +1,18 @@
+package study.datajpa.repository.paging;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter @Setter
+@ConfigurationProperties(prefix = "datajpa.concurrent-count")
+public class ConcurrentCountProperties {
+    // count 를 돌리는 스레드 수 = 동시에 쓰는 커넥션 수 (content 쪽 커넥션과 합쳐서 커넥션 풀보다 작게)
+    private int parallelism = 4;
+    // 대기열이 차면 count 없이 (UNKNOWN) 반환
+    private int queueCapacity = 64;
+    // 페이지 조회 시작부터 이 시간 안에 count 가 안 끝나면 UNKNOWN 으로 반환
+    private Duration timeout = Duration.ofMillis(200);
+}
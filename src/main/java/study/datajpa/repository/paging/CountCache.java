@@ -0,0 +1,145 @@
+package study.datajpa.repository.paging;
+
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.datajpa.entity.listener.EntityChangedEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/*
+    Page 조회용 count 쿼리 결과 캐시
+    - key: (Entity 타입, 쿼리 이름, 파라미터)
+    - CACHED 모드: TTL 안이면서 해당 Entity 가 save/delete 되지 않았을 때만 재사용
+    - ESTIMATED 모드: 변경이 있었더라도 estimate-max-age 안의 값이면 추정치로 재사용
+    무효화는 Entity 타입별 generation 을 올리는 방식 -> 키가 아무리 많아도 무효화는 O(1)
+ */
+@Component
+@RequiredArgsConstructor
+public class CountCache {
+    private final CountCacheProperties properties;
+
+    private final ConcurrentMap<CountKey, CachedCount> counts = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Class<?>, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    public CountResult count(Class<?> entityType, String queryName, List<?> params,
+                             CountMode mode, LongSupplier countQuery){
+        CountKey key = new CountKey(entityType, queryName, params);
+        long now = System.currentTimeMillis();
+        CachedCount cached = counts.get(key);
+
+        if (cached != null && mode != CountMode.EXACT) {
+            boolean invalidated = cached.generation != generation(entityType).get();
+            if (!invalidated && now - cached.computedAt < properties.getTtl().toMillis()) {
+                return new CountResult(cached.total, TotalAccuracy.EXACT);
+            }
+            if (mode == CountMode.ESTIMATED && now - cached.computedAt < properties.getEstimateMaxAge().toMillis()) {
+                return new CountResult(cached.total, TotalAccuracy.ESTIMATED);
+            }
+        }
+
+        // count 를 세는 도중에 무효화가 일어나면 다음 조회 때 다시 세도록 시작 시점의 generation 으로 저장
+        long generation = generation(entityType).get();
+        long total = countQuery.getAsLong();
+        // 이 트랜잭션에서 이미 바꾼(flush 된) row 가 포함된 값일 수 있음 => 커밋 전이라 다른 트랜잭션에 보이면 안 되니 저장하지 않음
+        if (TransactionSynchronizationManager.hasResource(resourceKey(entityType))) {
+            return new CountResult(total, TotalAccuracy.EXACT);
+        }
+        if (counts.size() >= properties.getMaxEntries()) {
+            evictExpired(now);
+        }
+        counts.put(key, new CachedCount(total, generation, now));
+        return new CountResult(total, TotalAccuracy.EXACT);
+    }
+
+    public void invalidate(Class<?> entityType){
+        generation(entityType).incrementAndGet();
+    }
+
+    public void clear(){
+        counts.clear();
+    }
+
+    /*
+        변경 시점에 한번, 트랜잭션이 끝난 뒤에 한번 더 무효화
+        => 커밋 전에 다른 트랜잭션이 예전 count 를 다시 캐시에 넣어도 커밋 후엔 버려짐
+     */
+    @EventListener
+    public void onEntityChanged(EntityChangedEvent event){
+        invalidateWithTransaction(event.getEntityType());
+    }
+
+    // Entity 이벤트가 안 나가는 변경(bulk update/delete 등)은 직접 호출
+    public void invalidateWithTransaction(Class<?> entityType){
+        invalidate(entityType);
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        // bulk insert 처럼 한 트랜잭션에서 수많은 row 가 바뀌어도 트랜잭션당 한번만 등록
+        String resourceKey = resourceKey(entityType);
+        if (TransactionSynchronizationManager.hasResource(resourceKey)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(resourceKey, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(resourceKey);
+                invalidate(entityType);
+            }
+        });
+    }
+
+    // 트랜잭션 안에서 entityType 이 바뀌었다는 표시 (트랜잭션이 끝나면 풀림)
+    private static String resourceKey(Class<?> entityType){
+        return CountCache.class.getName() + "#" + entityType.getName();
+    }
+
+    private AtomicLong generation(Class<?> entityType){
+        return generations.computeIfAbsent(entityType, type -> new AtomicLong());
+    }
+
+    private void evictExpired(long now){
+        long maxAge = Math.max(properties.getTtl().toMillis(), properties.getEstimateMaxAge().toMillis());
+        counts.values().removeIf(cached -> now - cached.computedAt >= maxAge);
+        if (counts.size() >= properties.getMaxEntries()) {
+            counts.clear();
+        }
+    }
+
+    @EqualsAndHashCode
+    @ToString
+    private static final class CountKey {
+        private final Class<?> entityType;
+        private final String queryName;
+        private final List<Object> params;
+
+        private CountKey(Class<?> entityType, String queryName, List<?> params) {
+            this.entityType = entityType;
+            this.queryName = queryName;
+            this.params = new ArrayList<>(params);
+        }
+    }
+
+    private static final class CachedCount {
+        private final long total;
+        private final long generation;
+        private final long computedAt;
+
+        private CachedCount(long total, long generation, long computedAt) {
+            this.total = total;
+            this.generation = generation;
+            this.computedAt = computedAt;
+        }
+    }
+}
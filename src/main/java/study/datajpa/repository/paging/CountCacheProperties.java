@@ -0,0 +1,18 @@
+package study.datajpa.repository.paging;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter @Setter
+@ConfigurationProperties(prefix = "datajpa.count-cache")
+public class CountCacheProperties {
+    // CACHED 모드에서 count 결과를 재사용하는 시간
+    private Duration ttl = Duration.ofSeconds(30);
+    // ESTIMATED 모드에서 무효화된 값이라도 허용하는 최대 나이
+    private Duration estimateMaxAge = Duration.ofMinutes(10);
+    // 파라미터 조합이 너무 많아져서 메모리를 먹지 않도록 상한
+    private int maxEntries = 10_000;
+}
@@ -0,0 +1,13 @@
+package study.datajpa.repository.paging;
+
+/*
+    Page 의 totalCount 를 어떻게 구할지
+ */
+public enum CountMode {
+    // 항상 count 쿼리를 날림 (캐시는 새 값으로 갱신)
+    EXACT,
+    // TTL 안이고 Entity 변경으로 무효화되지 않았으면 캐시된 값 사용
+    CACHED,
+    // 무효화/TTL 이 지났어도 estimate-max-age 안의 값이면 그대로 사용 (대략적인 값이어도 되는 화면용)
+    ESTIMATED
+}
@@ -0,0 +1,20 @@
+package study.datajpa.repository.paging;
+
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+public class CountResult {
+    private final long total;
+    private final TotalAccuracy accuracy;
+
+    public CountResult(long total, TotalAccuracy accuracy) {
+        this.total = total;
+        this.accuracy = accuracy;
+    }
+
+    public boolean isExact(){
+        return accuracy == TotalAccuracy.EXACT;
+    }
+}
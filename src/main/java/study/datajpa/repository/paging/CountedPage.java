@@ -0,0 +1,34 @@
+package study.datajpa.repository.paging;
+
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/*
+    totalElements 가 정확한 값인지(EXACT) 추정치인지(ESTIMATED) 같이 알려주는 Page
+ */
+public class CountedPage<T> extends PageImpl<T> {
+    private final TotalAccuracy totalAccuracy;
+
+    public CountedPage(List<T> content, Pageable pageable, long total, TotalAccuracy totalAccuracy) {
+        super(content, pageable, total);
+        this.totalAccuracy = totalAccuracy;
+    }
+
+    public TotalAccuracy getTotalAccuracy() {
+        return totalAccuracy;
+    }
+
+    public boolean isTotalExact(){
+        return totalAccuracy == TotalAccuracy.EXACT;
+    }
+
+    @Override
+    public <U> CountedPage<U> map(Function<? super T, ? extends U> converter) {
+        List<U> content = getContent().stream().map(converter).collect(Collectors.toList());
+        return new CountedPage<>(content, getPageable(), getTotalElements(), totalAccuracy);
+    }
+}
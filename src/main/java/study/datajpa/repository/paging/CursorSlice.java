@@ -0,0 +1,48 @@
+package study.datajpa.repository.paging;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/*
+    Slice 처럼 '더보기' 용도의 결과
+    page 번호 대신 다음 페이지를 가리키는 nextCursor 를 같이 돌려줌 (마지막 페이지면 null)
+ */
+@Getter
+@ToString
+public class CursorSlice<T> {
+    private final List<T> content;
+    private final String nextCursor;
+
+    public CursorSlice(List<T> content, String nextCursor) {
+        this.content = Collections.unmodifiableList(content);
+        this.nextCursor = nextCursor;
+    }
+
+    /*
+        size + 1 개를 조회한 결과를 넘겨주면 +1 개 여부로 다음 페이지 존재를 판단함 (Slice 와 같은 방식)
+     */
+    public static <T> CursorSlice<T> of(List<T> fetched, int size, Function<? super T, String> cursorOf){
+        if (size < 1) {
+            throw new IllegalArgumentException("size 는 1 이상이어야 합니다: " + size);
+        }
+        if (fetched.size() <= size) {
+            return new CursorSlice<>(new ArrayList<>(fetched), null);
+        }
+        List<T> content = new ArrayList<>(fetched.subList(0, size));
+        return new CursorSlice<>(content, cursorOf.apply(content.get(size - 1)));
+    }
+
+    public boolean hasNext(){
+        return nextCursor != null;
+    }
+
+    public <U> CursorSlice<U> map(Function<? super T, ? extends U> converter){
+        return new CursorSlice<>(content.stream().map(converter).collect(Collectors.toList()), nextCursor);
+    }
+}
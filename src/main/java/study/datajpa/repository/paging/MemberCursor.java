@@ -0,0 +1,53 @@
+package study.datajpa.repository.paging;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import study.datajpa.entity.Member;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/*
+    Keyset(Seek) Paging 용 커서
+    마지막으로 내려준 row 의 (username, id) 를 담아서 클라이언트에게는 불투명한 토큰(Base64)으로만 보여줌
+    !! username 은 null 일 수 있음 => 토큰에 구분자 없이 id 만 넣어서 "null" 이라는 username 과 구분
+       H2 는 null 을 맨 앞으로 정렬하므로 다음 페이지 조건은 (username is null and id > :id) or username is not null
+ */
+@Getter
+@EqualsAndHashCode
+@ToString
+public class MemberCursor {
+    private static final char SEPARATOR = ':';
+
+    private final String username;
+    private final Long id;
+
+    public MemberCursor(String username, Long id) {
+        this.username = username;
+        this.id = id;
+    }
+
+    public static MemberCursor of(Member member){
+        return new MemberCursor(member.getUsername(), member.getId());
+    }
+
+    public String encode(){
+        String raw = username == null ? String.valueOf(id) : id + String.valueOf(SEPARATOR) + username;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static MemberCursor decode(String token){
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int idx = raw.indexOf(SEPARATOR);
+            if (idx < 0) {
+                return new MemberCursor(null, Long.valueOf(raw));
+            }
+            // username 에 ':' 이 들어가도 되도록 id(숫자)를 앞에 두고 첫번째 구분자로만 자름
+            return new MemberCursor(raw.substring(idx + 1), Long.valueOf(raw.substring(0, idx)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("잘못된 커서 토큰입니다: " + token, e);
+        }
+    }
+}
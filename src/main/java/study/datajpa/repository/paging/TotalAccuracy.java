@@ -0,0 +1,11 @@
+package study.datajpa.repository.paging;
+
+/*
+    Page 에 담긴 totalElements 가 정확한 값인지
+ */
+public enum TotalAccuracy {
+    EXACT,
+    ESTIMATED,
+    // count 가 제한시간 안에 안 끝남 => totalElements 는 '최소 이만큼은 있다' 는 하한 (다음 페이지가 있는 것만 확실)
+    UNKNOWN
+}
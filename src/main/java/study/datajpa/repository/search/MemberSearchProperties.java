@@ -0,0 +1,12 @@
+package study.datajpa.repository.search;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter @Setter
+@ConfigurationProperties(prefix = "datajpa.search")
+public class MemberSearchProperties {
+    // keyset 검색(searchKeyset) 한번에 돌려주는 최대 개수, 더 크게 요청하면 이 값으로 줄임
+    private int maxSize = 1000;
+}
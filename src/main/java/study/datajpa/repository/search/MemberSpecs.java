@@ -0,0 +1,86 @@
+package study.datajpa.repository.search;
+
+import org.springframework.data.jpa.domain.Specification;
+import study.datajpa.dto.MemberSearchCondition;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.paging.MemberCursor;
+
+import javax.persistence.criteria.JoinType;
+
+/*
+    MemberSearchCondition 의 조건들을 Specification 으로 조립
+    - 값이 없는 조건은 null 을 돌려줘서 and 에서 빠지게 함 => 조건 조합(모양) 마다 JPQL 이 하나씩 만들어짐
+    - 값은 literal_handling_mode: bind 로 파라미터가 되니 같은 모양이면 값이 달라도 같은 JPQL
+      => Hibernate 쿼리 플랜 캐시에서 파싱 결과를 재사용 (/actuator/queryplans 에서 hit 율 확인)
+ */
+public class MemberSpecs {
+    private static final char ESCAPE = '\\';
+
+    private MemberSpecs() {
+    }
+
+    public static Specification<Member> search(MemberSearchCondition condition){
+        return Specification.where(usernameEq(condition.getUsername()))
+                .and(usernameStartsWith(condition.getUsernamePrefix()))
+                .and(ageGoe(condition.getAgeGoe()))
+                .and(ageLoe(condition.getAgeLoe()))
+                .and(teamIdEq(condition.getTeamId()))
+                .and(teamNameEq(condition.getTeamName()));
+    }
+
+    public static Specification<Member> usernameEq(String username){
+        return username == null ? null : (root, query, cb) -> cb.equal(root.get("username"), username);
+    }
+
+    public static Specification<Member> usernameStartsWith(String prefix){
+        if (prefix == null || prefix.isEmpty()) {
+            return null;
+        }
+        String pattern = escapeLike(prefix) + "%";
+        return (root, query, cb) -> cb.like(root.get("username"), pattern, ESCAPE);
+    }
+
+    public static Specification<Member> ageGoe(Integer age){
+        return age == null ? null : (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("age"), age);
+    }
+
+    public static Specification<Member> ageLoe(Integer age){
+        return age == null ? null : (root, query, cb) -> cb.lessThanOrEqualTo(root.get("age"), age);
+    }
+
+    // FK 컬럼만 보면 되니 team 을 join 하지 않음
+    public static Specification<Member> teamIdEq(Long teamId){
+        return teamId == null ? null : (root, query, cb) -> cb.equal(root.get("team").get("id"), teamId);
+    }
+
+    public static Specification<Member> teamNameEq(String teamName){
+        return teamName == null ? null : (root, query, cb) -> cb.equal(root.join("team", JoinType.INNER).get("name"), teamName);
+    }
+
+    // Keyset 다음 페이지 조건 (username, id) > cursor, 정렬도 username, id 순이어야 함 (null username 이 맨 앞)
+    public static Specification<Member> after(MemberCursor cursor){
+        if (cursor == null) {
+            return null;
+        }
+        if (cursor.getUsername() == null) {
+            return (root, query, cb) -> cb.or(
+                    cb.isNotNull(root.get("username")),
+                    cb.greaterThan(root.get("id"), cursor.getId()));
+        }
+        return (root, query, cb) -> cb.or(
+                cb.greaterThan(root.get("username"), cursor.getUsername()),
+                cb.and(cb.equal(root.get("username"), cursor.getUsername()),
+                        cb.greaterThan(root.get("id"), cursor.getId())));
+    }
+
+    private static String escapeLike(String value){
+        StringBuilder sb = new StringBuilder(value.length());
+        for (char c : value.toCharArray()) {
+            if (c == '%' || c == '_' || c == ESCAPE) {
+                sb.append(ESCAPE);
+            }
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+}
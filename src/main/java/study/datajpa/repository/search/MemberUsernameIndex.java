@@ -0,0 +1,230 @@
+package study.datajpa.repository.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.dto.UsernameMatch;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.support.BulkMutatedEvent;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/*
+    Member.username 자동완성 (UsernamePrefixIndex 를 Member 에 연결)
+    - 기동이 끝나면(ApplicationReady) 백그라운드에서 username/id 만 Stream 으로 읽어서 인덱스를 만듦
+      만들어지기 전에는 DB 로 조회 (username like 'prefix%')
+    - 이후 변경은 커밋된 것만 반영: Hibernate post-commit 이벤트로 insert/username 변경/delete 를 받음
+      (롤백된 변경은 onPost...CommitFailed 로 오니까 무시)
+    - bulk delete 처럼 Entity 를 거치지 않는 변경은 커밋 후에 전체를 다시 읽음 (BulkMutatedEvent)
+    !! 인덱스는 인스턴스마다 따로 => 서버가 여러대면 다른 서버에서 바꾼 건 다음 rebuild 때 반영됨
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "datajpa.username-index", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class MemberUsernameIndex
+        implements PostCommitInsertEventListener, PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final MemberRepository memberRepository;
+    private final UsernameIndexProperties properties;
+    private final TransactionTemplate readOnlyTransaction;
+    private final TransactionTemplate primaryRead;
+    private final ThreadPoolTaskExecutor executor;
+
+    private final UsernamePrefixIndex index;
+    private final AtomicBoolean rebuildPending = new AtomicBoolean();
+    private volatile boolean ready;
+    private volatile long lastBuildMillis;
+
+    public MemberUsernameIndex(EntityManagerFactory entityManagerFactory, MemberRepository memberRepository,
+                               UsernameIndexProperties properties, PlatformTransactionManager transactionManager) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.memberRepository = memberRepository;
+        this.properties = properties;
+        this.index = new UsernamePrefixIndex(properties.getCompactRatio());
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        // rebuild 는 기존 인덱스를 통째로 갈아끼움 => replica 로 읽으면 아직 복제 안 된 커밋이 다음 rebuild 까지 빠짐, primary 에서 읽음
+        this.primaryRead = new TransactionTemplate(transactionManager);
+
+        this.executor = new ThreadPoolTaskExecutor();
+        this.executor.setCorePoolSize(1);
+        this.executor.setMaxPoolSize(1);
+        this.executor.setThreadNamePrefix("username-index-");
+        this.executor.initialize();
+    }
+
+    @PreDestroy
+    public void shutdown(){
+        executor.shutdown();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start(){
+        // EntityManagerFactory 를 꺼내는 것부터 백그라운드에서 (deferred bootstrap 이면 준비될 때까지 기다려야 함)
+        // 리스너를 먼저 등록하고 스캔 => 스캔 도중에 커밋된 변경도 빠지지 않음
+        executor.execute(() -> {
+            registerListeners();
+            rebuild();
+        });
+    }
+
+    // prefix 로 시작하는 username 을 (username, id) 순서로 최대 limit 개
+    public List<UsernameMatch> search(String prefix, int limit){
+        // 인덱스가 준비됐든 아니든 같은 결과가 나오게 (PageRequest 는 0 이하를 못 받음)
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit 는 1 이상이어야 합니다: " + limit);
+        }
+        int size = Math.min(limit, properties.getMaxLimit());
+        if (ready) {
+            return index.search(prefix, size);
+        }
+        return readOnlyTransaction.execute(status -> memberRepository.findByUsernameStartingWith(prefix,
+                PageRequest.of(0, size, Sort.by("username", "id"))));
+    }
+
+    // 이미 예약된 rebuild 가 있으면 하나로 합침
+    public void scheduleRebuild(){
+        if (rebuildPending.compareAndSet(false, true)) {
+            executor.execute(this::rebuild);
+        }
+    }
+
+    // Entity 를 거치지 않고 username 을 바꾼 경우 (write-behind 등), 커밋된 뒤에 호출
+    public void onUsernameChanged(long memberId, String oldUsername, String newUsername){
+        index.update(memberId, oldUsername, newUsername);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBulkMutated(BulkMutatedEvent event){
+        if (event.getEntityType() == Member.class && event.getAffected() > 0) {
+            scheduleRebuild();
+        }
+    }
+
+    public boolean isReady(){
+        return ready;
+    }
+
+    public long getLastBuildMillis(){
+        return lastBuildMillis;
+    }
+
+    public long size(){
+        return index.size();
+    }
+
+    public int pendingChanges(){
+        return index.pendingChanges();
+    }
+
+    public long estimatedBytes(){
+        return index.estimatedBytes();
+    }
+
+    private void rebuild(){
+        rebuildPending.set(false);
+        long start = System.currentTimeMillis();
+        try {
+            primaryRead.executeWithoutResult(status -> {
+                try (Stream<UsernameMatch> usernames = memberRepository.streamUsernames()) {
+                    index.rebuild(usernames.iterator());
+                }
+            });
+            lastBuildMillis = System.currentTimeMillis() - start;
+            ready = true;
+
+            long entries = index.size();
+            long bytes = index.estimatedBytes();
+            log.info("username index: {} entries, {} KB (1M 건당 약 {} MB), {} ms", entries, bytes / 1024,
+                    entries == 0 ? 0 : bytes * 1_000_000 / entries / (1024 * 1024), lastBuildMillis);
+        } catch (RuntimeException e) {
+            // 실패해도 이전 인덱스(또는 DB 조회)로 계속 동작
+            log.warn("username index rebuild 실패", e);
+        }
+    }
+
+    private void registerListeners(){
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Member) {
+            index.add((Long) event.getId(), usernameOf(event.getPersister(), event.getState()));
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (!(event.getEntity() instanceof Member)) {
+            return;
+        }
+        long id = (Long) event.getId();
+        String username = usernameOf(event.getPersister(), event.getState());
+        if (event.getOldState() == null) {
+            // 이전 username 을 모르면 id 로 찾아서 지움
+            index.removeById(id);
+            index.add(id, username);
+            return;
+        }
+        index.update(id, usernameOf(event.getPersister(), event.getOldState()), username);
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Member) {
+            index.remove((Long) event.getId(), usernameOf(event.getPersister(), event.getDeletedState()));
+        }
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    // deprecated 지만 5.4 에서는 구현 안 하면 컴파일이 안 됨 (기본 구현 없음)
+    @Override
+    @SuppressWarnings("deprecation")
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return persister.getMappedClass() == Member.class;
+    }
+
+    private String usernameOf(EntityPersister persister, Object[] state){
+        return (String) state[persister.getEntityMetamodel().getPropertyIndex("username")];
+    }
+}
@@ -0,0 +1,15 @@
+package study.datajpa.repository.search;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter @Setter
+@ConfigurationProperties(prefix = "datajpa.username-index")
+public class UsernameIndexProperties {
+    private boolean enabled = true;
+    // 추가/삭제분이 base 의 이 비율을 넘으면 base 로 합침
+    private double compactRatio = 0.1;
+    // 한번에 돌려주는 최대 개수
+    private int maxLimit = 100;
+}
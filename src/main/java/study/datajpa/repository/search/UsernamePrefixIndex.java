@@ -0,0 +1,344 @@
+package study.datajpa.repository.search;
+
+import study.datajpa.dto.UsernameMatch;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/*
+    username -> member id 메모리 인덱스 (prefix 검색 = 자동완성)
+    - base: (username, id) 를 정렬해서 username(UTF-8) 은 byte[] 하나에 이어붙이고 offset/id 는 int[]/long[] 로
+      => Entry 마다 String/객체를 만들지 않아서 1건당 (username 바이트 수 + 12) byte 정도
+      => prefix 검색은 이진 탐색으로 시작 위치를 찾고 거기서부터 순서대로 limit 개 (O(log n + limit))
+    - 변경분: 추가는 added(skip list), 삭제는 removed(tombstone) 에 쌓고 검색할 때 base 와 merge
+      변경분이 base 의 compactRatio 를 넘으면 새 base 로 합침(compact)
+    - 읽기는 volatile 로 현재 상태를 잡고 lock 없이, 쓰기(add/remove/compact/rebuild)만 synchronized
+    정렬 순서는 UTF-8 바이트 순서(= 유니코드 code point 순서), 같은 username 이면 id 순서
+ */
+public class UsernamePrefixIndex {
+    private final double compactRatio;
+    private volatile State state = new State(Base.EMPTY);
+    // rebuild 중에 들어온 변경 (rebuild 중이 아니면 null)
+    private List<Change> changesDuringRebuild;
+
+    public UsernamePrefixIndex(double compactRatio) {
+        this.compactRatio = compactRatio;
+    }
+
+    public List<UsernameMatch> search(String prefix, int limit){
+        if (prefix == null || limit <= 0) {
+            return Collections.emptyList();
+        }
+        State current = state;
+        Base base = current.base;
+        byte[] p = utf8(prefix);
+
+        int i = base.lowerBound(p);
+        Iterator<Key> delta = current.added.tailSet(new Key(p, Long.MIN_VALUE)).iterator();
+        Key next = nextMatching(delta, p);
+
+        List<UsernameMatch> result = new ArrayList<>(Math.min(limit, 16));
+        Key last = null;
+        while (result.size() < limit) {
+            boolean baseMatches = i < base.size && base.startsWith(i, p);
+            if (!baseMatches && next == null) {
+                break;
+            }
+            Key candidate;
+            if (baseMatches && (next == null || base.compareTo(i, next) <= 0)) {
+                candidate = base.key(i++);
+            } else {
+                candidate = next;
+                next = nextMatching(delta, p);
+            }
+            // base 와 added 에 같은 값이 있을 수 있음 (rebuild 중에 들어온 변경분)
+            if (candidate.equals(last) || current.removed.contains(candidate)) {
+                continue;
+            }
+            result.add(new UsernameMatch(candidate.id, new String(candidate.username, StandardCharsets.UTF_8)));
+            last = candidate;
+        }
+        return result;
+    }
+
+    public synchronized void add(long id, String username){
+        if (username == null) {
+            return;
+        }
+        apply(new Change(new Key(utf8(username), id), true));
+    }
+
+    public synchronized void remove(long id, String username){
+        if (username == null) {
+            return;
+        }
+        apply(new Change(new Key(utf8(username), id), false));
+    }
+
+    public synchronized void update(long id, String oldUsername, String newUsername){
+        if (oldUsername != null && oldUsername.equals(newUsername)) {
+            return;
+        }
+        remove(id, oldUsername);
+        add(id, newUsername);
+    }
+
+    // 이전 username 을 모를 때 (드묾) => base 전체를 훑어서 id 로 찾음 O(n)
+    public synchronized void removeById(long id){
+        State current = state;
+        List<Key> keys = new ArrayList<>();
+        for (Key key : current.added) {
+            if (key.id == id) {
+                keys.add(key);
+            }
+        }
+        for (int i = 0; i < current.base.size; i++) {
+            if (current.base.ids[i] == id) {
+                keys.add(current.base.key(i));
+            }
+        }
+        keys.forEach(key -> apply(new Change(key, false)));
+    }
+
+    /*
+        DB 를 처음부터 다시 읽어서 base 를 새로 만듦 (entries 는 순서 상관없음, 한번에 하나의 스레드에서만 호출)
+        - 그 전까지 쌓인 변경분은 버림 (DB 에 이미 반영되어 있으니까)
+        - 읽는 동안 들어온 변경분은 새 base 위에 다시 얹음
+          => 스캔이 이미 읽고 지나간 row 가 그 사이에 삭제/변경되어도 tombstone 으로 가려짐
+     */
+    public void rebuild(Iterator<UsernameMatch> entries){
+        synchronized (this) {
+            changesDuringRebuild = new ArrayList<>();
+        }
+        List<Key> keys = new ArrayList<>();
+        while (entries.hasNext()) {
+            UsernameMatch entry = entries.next();
+            if (entry.getUsername() != null) {
+                keys.add(new Key(utf8(entry.getUsername()), entry.getId()));
+            }
+        }
+        Collections.sort(keys);
+        Base base = Base.of(keys);
+
+        synchronized (this) {
+            State rebuilt = new State(base);
+            changesDuringRebuild.forEach(change -> change.applyTo(rebuilt));
+            changesDuringRebuild = null;
+            state = rebuilt;
+            compactIfNeeded();
+        }
+    }
+
+    public synchronized void compact(){
+        State current = state;
+        Base base = current.base;
+        List<Key> merged = new ArrayList<>(base.size + current.added.size());
+        Iterator<Key> delta = current.added.iterator();
+        Key next = delta.hasNext() ? delta.next() : null;
+        int i = 0;
+        while (i < base.size || next != null) {
+            Key candidate;
+            if (i < base.size && (next == null || base.compareTo(i, next) <= 0)) {
+                candidate = base.key(i++);
+            } else {
+                candidate = next;
+                next = delta.hasNext() ? delta.next() : null;
+            }
+            boolean duplicate = !merged.isEmpty() && merged.get(merged.size() - 1).equals(candidate);
+            if (!duplicate && !current.removed.contains(candidate)) {
+                merged.add(candidate);
+            }
+        }
+        state = new State(Base.of(merged));
+    }
+
+    // 대략적인 개수 (tombstone 이 base 에 없는 값을 가리키거나 added 가 base 와 겹치면 오차가 있음, compact 후에는 정확)
+    public long size(){
+        State current = state;
+        return Math.max(0, current.base.size + current.added.size() - current.removed.size());
+    }
+
+    public int pendingChanges(){
+        State current = state;
+        return current.added.size() + current.removed.size();
+    }
+
+    /*
+        추정 메모리 사용량 (64bit JVM, compressed oops 기준)
+        - base: 배열 3개 (헤더 16 byte 씩)
+        - added/removed: Key 객체(24) + byte[](16 + 길이) + skip list/hash set 노드 (대략 48)
+     */
+    public long estimatedBytes(){
+        State current = state;
+        Base base = current.base;
+        long bytes = (16 + base.bytes.length) + (16 + 4L * base.offsets.length) + (16 + 8L * base.ids.length);
+        for (Key key : current.added) {
+            bytes += 88 + key.username.length;
+        }
+        bytes += (88 + 16) * (long) current.removed.size(); // tombstone 은 username 길이를 평균 16 으로 가정
+        return bytes;
+    }
+
+    private void apply(Change change){
+        change.applyTo(state);
+        if (changesDuringRebuild != null) {
+            changesDuringRebuild.add(change);
+        }
+        compactIfNeeded();
+    }
+
+    private void compactIfNeeded(){
+        State current = state;
+        int pending = current.added.size() + current.removed.size();
+        if (pending > 1024 && pending > current.base.size * compactRatio) {
+            compact();
+        }
+    }
+
+    private static Key nextMatching(Iterator<Key> delta, byte[] prefix){
+        if (!delta.hasNext()) {
+            return null;
+        }
+        Key key = delta.next();
+        return startsWith(key.username, 0, key.username.length, prefix) ? key : null;
+    }
+
+    private static boolean startsWith(byte[] bytes, int from, int to, byte[] prefix){
+        return to - from >= prefix.length
+                && Arrays.equals(bytes, from, from + prefix.length, prefix, 0, prefix.length);
+    }
+
+    private static byte[] utf8(String value){
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static final class State {
+        private final Base base;
+        private final ConcurrentSkipListSet<Key> added = new ConcurrentSkipListSet<>();
+        private final Set<Key> removed = ConcurrentHashMap.newKeySet();
+
+        private State(Base base) {
+            this.base = base;
+        }
+    }
+
+    private static final class Change {
+        private final Key key;
+        private final boolean add;
+
+        private Change(Key key, boolean add) {
+            this.key = key;
+            this.add = add;
+        }
+
+        private void applyTo(State state){
+            if (add) {
+                state.removed.remove(key);
+                state.added.add(key);
+            } else {
+                state.added.remove(key);
+                state.removed.add(key);
+            }
+        }
+    }
+
+    // 정렬된 (username, id) 배열. 만든 뒤에는 바뀌지 않음
+    private static final class Base {
+        private static final Base EMPTY = of(Collections.emptyList());
+
+        private final byte[] bytes;
+        private final int[] offsets; // i 번째 username = bytes[offsets[i], offsets[i + 1])
+        private final long[] ids;
+        private final int size;
+
+        private Base(byte[] bytes, int[] offsets, long[] ids) {
+            this.bytes = bytes;
+            this.offsets = offsets;
+            this.ids = ids;
+            this.size = ids.length;
+        }
+
+        private static Base of(List<Key> sorted){
+            int total = 0;
+            for (Key key : sorted) {
+                total += key.username.length;
+            }
+            byte[] bytes = new byte[total];
+            int[] offsets = new int[sorted.size() + 1];
+            long[] ids = new long[sorted.size()];
+            int position = 0;
+            for (int i = 0; i < sorted.size(); i++) {
+                Key key = sorted.get(i);
+                offsets[i] = position;
+                System.arraycopy(key.username, 0, bytes, position, key.username.length);
+                position += key.username.length;
+                ids[i] = key.id;
+            }
+            offsets[sorted.size()] = position;
+            return new Base(bytes, offsets, ids);
+        }
+
+        // username >= prefix 인 첫번째 위치
+        private int lowerBound(byte[] prefix){
+            int low = 0, high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (Arrays.compareUnsigned(bytes, offsets[mid], offsets[mid + 1], prefix, 0, prefix.length) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private boolean startsWith(int i, byte[] prefix){
+            return UsernamePrefixIndex.startsWith(bytes, offsets[i], offsets[i + 1], prefix);
+        }
+
+        private int compareTo(int i, Key key){
+            int result = Arrays.compareUnsigned(bytes, offsets[i], offsets[i + 1], key.username, 0, key.username.length);
+            return result != 0 ? result : Long.compare(ids[i], key.id);
+        }
+
+        private Key key(int i){
+            return new Key(Arrays.copyOfRange(bytes, offsets[i], offsets[i + 1]), ids[i]);
+        }
+    }
+
+    private static final class Key implements Comparable<Key> {
+        private final byte[] username;
+        private final long id;
+
+        private Key(byte[] username, long id) {
+            this.username = username;
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            int result = Arrays.compareUnsigned(username, other.username);
+            return result != 0 ? result : Long.compare(id, other.id);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return id == key.id && Arrays.equals(username, key.username);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Arrays.hashCode(username) + Long.hashCode(id);
+        }
+    }
+}
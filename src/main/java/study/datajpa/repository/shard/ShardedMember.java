@@ -0,0 +1,16 @@
+package study.datajpa.repository.shard;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// 샤드에 있는 member row (Entity 가 아니라 JDBC 로 읽은 값)
+@Data
+@AllArgsConstructor
+public class ShardedMember {
+    private Long id;
+    private String username;
+    private int age;
+    private Long teamId;
+    // 낙관적 락, 팀 이동(changeTeam) 때 where version = ? 로 확인
+    private long version;
+}
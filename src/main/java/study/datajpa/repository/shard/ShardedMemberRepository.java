@@ -0,0 +1,210 @@
+package study.datajpa.repository.shard;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.RowMapper;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.repository.paging.CursorSlice;
+import study.datajpa.repository.paging.MemberCursor;
+
+import javax.persistence.EntityNotFoundException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.PriorityQueue;
+
+/*
+    team_id 로 나눈 여러 DB(샤드)에 Member 를 저장/조회 (JPA 가 아니라 샤드별 JDBC)
+    - 샤드 하나로 끝나는 것: id 조회, save, 같은 샤드 안의 팀 이동, 팀 멤버 목록
+    - 모든 샤드에 보내는 것(scatter-gather): username/age 조회, DTO 전체 조회
+      샤드마다 같은 순서로 정렬해서 받고 k-way merge 로 합침 (정렬을 다시 하지 않음)
+      limit 은 샤드에도 내려보냄: offset 페이지는 샤드마다 offset + size 개, keyset 은 size + 1 개만 받음
+      => offset 이 커지면 샤드 수 x offset 만큼 읽으니 깊은 페이지는 findKeysetByAge 로
+    !! 다른 샤드의 팀으로 옮기면 새 샤드에 insert 후 원래 샤드에서 delete (id 가 바뀜, 두 샤드를 묶는 트랜잭션은 없음)
+       동시에 옮기는 건 version 으로 막음 (changeTeam)
+ */
+public class ShardedMemberRepository {
+    private static final String MEMBER_COLUMNS = "member_id, username, age, team_id, version";
+    private static final RowMapper<ShardedMember> MEMBER_MAPPER = (rs, rowNum) ->
+            new ShardedMember(rs.getLong(1), rs.getString(2), rs.getInt(3), rs.getObject(4, Long.class), rs.getLong(5));
+    // findByAge/findKeysetByAge 정렬 (샤드 쿼리의 order by 와 같아야 merge 가 맞음)
+    private static final Comparator<ShardedMember> BY_USERNAME_ID = Comparator
+            .comparing(ShardedMember::getUsername, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(ShardedMember::getId);
+
+    private final Shards shards;
+
+    public ShardedMemberRepository(Shards shards) {
+        this.shards = shards;
+    }
+
+    public long saveTeam(String name){
+        int shard = shards.place();
+        long teamId = shards.nextId(shard, "team_seq");
+        shards.shard(shard).update("insert into team (team_id, name) values (?, ?)", teamId, name);
+        return teamId;
+    }
+
+    public ShardedMember save(String username, int age, Long teamId){
+        int shard = teamId == null ? shards.place() : shards.shardOf(teamId);
+        long id = shards.nextId(shard, "member_seq");
+        shards.shard(shard).update("insert into member (" + MEMBER_COLUMNS + ") values (?, ?, ?, ?, 0)", id, username, age, teamId);
+        return new ShardedMember(id, username, age, teamId, 0);
+    }
+
+    public Optional<ShardedMember> findById(long id){
+        return shards.shard(shards.shardOf(id))
+                .query("select " + MEMBER_COLUMNS + " from member where member_id = ?", MEMBER_MAPPER, id)
+                .stream().findFirst();
+    }
+
+    // 팀 멤버 목록 (팀이 있는 샤드 하나만)
+    public List<ShardedMember> findByTeamId(long teamId, int offset, int limit){
+        return shards.shard(shards.shardOf(teamId)).query(
+                "select " + MEMBER_COLUMNS + " from member where team_id = ? order by member_id limit ? offset ?",
+                MEMBER_MAPPER, teamId, limit, offset);
+    }
+
+    /*
+        같은 샤드면 update 한번, 다른 샤드면 옮김 (반환값의 id 가 새 id)
+        옮길 때는 새 샤드에 먼저 넣고 원래 샤드에서 지움 => 중간에 실패해도 member 가 사라지지는 않음
+        update/delete 모두 where version = ? => 그 사이 다른 곳에서 바꿨거나 옮겼으면 0건
+          -> 새 샤드에 넣은 복사본을 지우고 OptimisticLockingFailureException (@RetryOnOptimisticLock 으로 재시도 가능)
+     */
+    public ShardedMember changeTeam(long memberId, long teamId){
+        ShardedMember member = findById(memberId)
+                .orElseThrow(() -> new EntityNotFoundException("member " + memberId));
+        return changeTeam(member, teamId);
+    }
+
+    // 미리 읽어둔 member 기준으로 옮김 (읽은 뒤에 바뀌었으면 실패)
+    public ShardedMember changeTeam(ShardedMember member, long teamId){
+        long memberId = member.getId();
+        int from = shards.shardOf(memberId);
+        int to = shards.shardOf(teamId);
+        if (from == to) {
+            int updated = shards.shard(from).update("update member set team_id = ?, version = version + 1" +
+                    " where member_id = ? and version = ?", teamId, memberId, member.getVersion());
+            if (updated == 0) {
+                throw conflict(memberId);
+            }
+            return new ShardedMember(memberId, member.getUsername(), member.getAge(), teamId, member.getVersion() + 1);
+        }
+
+        ShardedMember moved = save(member.getUsername(), member.getAge(), teamId);
+        int deleted = shards.shard(from).update("delete from member where member_id = ? and version = ?",
+                memberId, member.getVersion());
+        if (deleted == 0) {
+            shards.shard(to).update("delete from member where member_id = ?", moved.getId());
+            throw conflict(memberId);
+        }
+        return moved;
+    }
+
+    private static OptimisticLockingFailureException conflict(long memberId){
+        return new OptimisticLockingFailureException("member " + memberId + " 가 다른 곳에서 먼저 변경/이동됨");
+    }
+
+    public List<ShardedMember> findByUsername(String username){
+        List<List<ShardedMember>> results = shards.scatter(shard -> shard.query(
+                "select " + MEMBER_COLUMNS + " from member where username = ? order by member_id", MEMBER_MAPPER, username));
+        return merge(results, Comparator.comparing(ShardedMember::getId), Integer.MAX_VALUE);
+    }
+
+    // username, id 순서 페이지 (Pageable 의 sort 는 쓰지 않음), total 은 샤드별 count 의 합
+    public Page<ShardedMember> findByAge(int age, Pageable pageable){
+        int limit = Math.toIntExact(pageable.getOffset() + pageable.getPageSize());
+        List<ShardResult> results = shards.scatter(shard -> new ShardResult(
+                shard.query("select " + MEMBER_COLUMNS + " from member where age = ? order by username, member_id limit ?",
+                        MEMBER_MAPPER, age, limit),
+                shard.queryForObject("select count(*) from member where age = ?", Long.class, age)));
+
+        List<List<ShardedMember>> rows = new ArrayList<>();
+        long total = 0;
+        for (ShardResult result : results) {
+            rows.add(result.rows);
+            total += result.count;
+        }
+        List<ShardedMember> merged = merge(rows, BY_USERNAME_ID, limit);
+        List<ShardedMember> content = merged.subList(Math.min((int) pageable.getOffset(), merged.size()), merged.size());
+        return new PageImpl<>(new ArrayList<>(content), pageable, total);
+    }
+
+    // keyset: 샤드마다 cursor 다음 size + 1 개만 읽음 => 몇번째 페이지든 샤드당 읽는 양이 같음
+    public CursorSlice<ShardedMember> findKeysetByAge(int age, String cursor, int size){
+        MemberCursor after = cursor == null ? null : MemberCursor.decode(cursor);
+        List<List<ShardedMember>> results = shards.scatter(shard -> after == null
+                ? shard.query("select " + MEMBER_COLUMNS + " from member where age = ? order by username, member_id limit ?",
+                        MEMBER_MAPPER, age, size + 1)
+                : after.getUsername() == null
+                ? shard.query("select " + MEMBER_COLUMNS + " from member where age = ?" +
+                                " and (username is not null or member_id > ?)" +
+                                " order by username, member_id limit ?",
+                        MEMBER_MAPPER, age, after.getId(), size + 1)
+                : shard.query("select " + MEMBER_COLUMNS + " from member where age = ?" +
+                                " and (username > ? or (username = ? and member_id > ?))" +
+                                " order by username, member_id limit ?",
+                        MEMBER_MAPPER, age, after.getUsername(), after.getUsername(), after.getId(), size + 1));
+        return CursorSlice.of(merge(results, BY_USERNAME_ID, size + 1), size,
+                member -> new MemberCursor(member.getUsername(), member.getId()).encode());
+    }
+
+    // 팀이 member 와 같은 샤드에 있으니 join 도 샤드 안에서 끝남
+    public List<MemberDto> findMemberDto(){
+        List<List<MemberDto>> results = shards.scatter(shard -> shard.query(
+                "select m.member_id, m.username, t.name from member m join team t on m.team_id = t.team_id order by m.member_id",
+                (rs, rowNum) -> new MemberDto(rs.getLong(1), rs.getString(2), rs.getString(3))));
+        return merge(results, Comparator.comparing(MemberDto::getId), Integer.MAX_VALUE);
+    }
+
+    // 각각 정렬된 샤드 결과를 앞에서부터 limit 개까지 합침 (샤드 수 k 일 때 row 하나에 O(log k))
+    private static <T> List<T> merge(List<List<T>> sorted, Comparator<? super T> comparator, int limit){
+        PriorityQueue<Cursor<T>> heads = new PriorityQueue<>((a, b) -> comparator.compare(a.head(), b.head()));
+        int capacity = 0;
+        for (List<T> rows : sorted) {
+            if (!rows.isEmpty()) {
+                heads.add(new Cursor<>(rows));
+                capacity += rows.size();
+            }
+        }
+        List<T> merged = new ArrayList<>(Math.min(capacity, limit));
+        while (!heads.isEmpty() && merged.size() < limit) {
+            Cursor<T> cursor = heads.poll();
+            merged.add(cursor.head());
+            if (cursor.advance()) {
+                heads.add(cursor);
+            }
+        }
+        return merged;
+    }
+
+    private static class Cursor<T> {
+        private final List<T> rows;
+        private int position;
+
+        Cursor(List<T> rows) {
+            this.rows = rows;
+        }
+
+        T head(){
+            return rows.get(position);
+        }
+
+        boolean advance(){
+            return ++position < rows.size();
+        }
+    }
+
+    private static class ShardResult {
+        private final List<ShardedMember> rows;
+        private final long count;
+
+        ShardResult(List<ShardedMember> rows, long count) {
+            this.rows = rows;
+            this.count = count;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package study.datajpa.repository.shard;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/*
+    team_id 기준 Member 샤딩 (ShardedMemberRepository)
+    커넥션 풀 설정은 datajpa.sharding.hikari.* (spring.datasource.hikari.* 와 같은 항목) 를 샤드마다 똑같이 쓰고
+    jdbc-url 의 {shard} 만 샤드 번호로 바뀜 (예: jdbc:h2:mem:shard{shard} -> shard0, shard1, ...)
+ */
+@Getter @Setter
+@ConfigurationProperties(prefix = "datajpa.sharding")
+public class ShardingProperties {
+    private boolean enabled = false;
+    // 샤드 수, id 가 샤드 번호를 담고 있어서(id % count) 운영 중에 바꾸면 안 됨
+    private int count = 2;
+    // 여러 샤드에 동시에 보내는 조회를 실행할 스레드 수
+    private int parallelism = 8;
+    // scatter-gather 조회 전체 제한 시간 (가장 느린 샤드 기준)
+    private Duration timeout = Duration.ofSeconds(5);
+}
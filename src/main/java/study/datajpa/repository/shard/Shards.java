@@ -0,0 +1,94 @@
+package study.datajpa.repository.shard;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/*
+    샤드 커넥션 풀 + 라우팅 규칙
+    - team/member id = 샤드 시퀀스 * 샤드 수 + 샤드 번호 => shardOf(id) = id % 샤드 수
+    - member 는 팀과 같은 샤드에 둠 (팀 멤버 조회, 같은 샤드 안의 팀 이동은 샤드 하나로 끝남)
+    - 팀 없는 member/새 팀은 돌아가면서 배치
+    - scatter: 모든 샤드에 동시에 보내고 다 올 때까지 기다림 (timeout 이 지나면 QueryTimeoutException)
+ */
+public class Shards implements AutoCloseable {
+    private final List<HikariDataSource> dataSources;
+    private final List<JdbcTemplate> templates = new ArrayList<>();
+    private final ExecutorService executor;
+    private final Duration timeout;
+    private final AtomicInteger nextPlacement = new AtomicInteger();
+
+    public Shards(List<HikariDataSource> dataSources, ExecutorService executor, Duration timeout) {
+        this.dataSources = dataSources;
+        this.executor = executor;
+        this.timeout = timeout;
+        for (HikariDataSource dataSource : dataSources) {
+            JdbcTemplate template = new JdbcTemplate(dataSource);
+            template.setQueryTimeout((int) Math.max(1, timeout.getSeconds()));
+            templates.add(template);
+        }
+    }
+
+    public int count(){
+        return templates.size();
+    }
+
+    public int shardOf(long id){
+        return (int) (id % templates.size());
+    }
+
+    public JdbcTemplate shard(int shard){
+        return templates.get(shard);
+    }
+
+    // 새 row 를 놓을 샤드 (팀이 없을 때)
+    public int place(){
+        return Math.floorMod(nextPlacement.getAndIncrement(), templates.size());
+    }
+
+    public long nextId(int shard, String sequence){
+        Long seq = templates.get(shard).queryForObject("select next value for " + sequence, Long.class);
+        return seq * templates.size() + shard;
+    }
+
+    public <T> List<T> scatter(Function<JdbcTemplate, T> query){
+        List<CompletableFuture<T>> futures = new ArrayList<>(templates.size());
+        for (JdbcTemplate template : templates) {
+            futures.add(CompletableFuture.supplyAsync(() -> query.apply(template), executor));
+        }
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw new QueryTimeoutException("샤드 응답이 " + timeout.toMillis() + "ms 안에 오지 않음");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        List<T> results = new ArrayList<>(futures.size());
+        futures.forEach(future -> results.add(future.join()));
+        return results;
+    }
+
+    @Override
+    public void close(){
+        executor.shutdownNow();
+        dataSources.forEach(HikariDataSource::close);
+    }
+}
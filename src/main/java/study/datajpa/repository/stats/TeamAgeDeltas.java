@@ -0,0 +1,91 @@
+package study.datajpa.repository.stats;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/*
+    트랜잭션 하나에서 생긴 team_age_bucket 변경량을 모았다가 커밋 직전에 한번에 반영
+    - 같은 (팀, 나이) 로 여러번 들어오면 합쳐서 UPDATE 한번 (들어왔다 나가서 0 이면 생략)
+    - stripe 는 트랜잭션마다 랜덤 => 동시에 같은 팀을 바꾸는 트랜잭션들이 대부분 서로 다른 row 를 잠금
+    - (팀, 나이) 순서로 반영해서 트랜잭션끼리 반대 순서로 row 를 잡는 데드락을 피함
+    - UPDATE 가 0 row 면 INSERT, 그 사이 다른 트랜잭션이 먼저 넣었으면(중복 키) 다시 UPDATE
+      !! H2 는 실패한 문장만 취소됨, PostgreSQL 처럼 트랜잭션 전체가 깨지는 DB 면 insert ... on conflict do update 로
+ */
+public class TeamAgeDeltas {
+    public static final int STRIPES = 8;
+
+    private static final String UPDATE_SQL =
+            "update team_age_bucket set member_count = member_count + ? where team_id = ? and age = ? and stripe = ?";
+    private static final String INSERT_SQL =
+            "insert into team_age_bucket (team_id, age, stripe, member_count) values (?, ?, ?, ?)";
+    private static final String DUPLICATE_KEY = "23505";
+
+    private final int stripe = ThreadLocalRandom.current().nextInt(STRIPES);
+    private final Map<Key, Long> deltas = new TreeMap<>();
+
+    public void add(Long teamId, int age, long delta){
+        if (teamId != null) {
+            deltas.merge(new Key(teamId, age), delta, Long::sum);
+        }
+    }
+
+    public boolean isEmpty(){
+        return deltas.values().stream().allMatch(delta -> delta == 0);
+    }
+
+    public void apply(Connection connection) throws SQLException {
+        if (isEmpty()) {
+            return;
+        }
+        try (PreparedStatement update = connection.prepareStatement(UPDATE_SQL);
+             PreparedStatement insert = connection.prepareStatement(INSERT_SQL)) {
+            for (Map.Entry<Key, Long> entry : deltas.entrySet()) {
+                Key key = entry.getKey();
+                long delta = entry.getValue();
+                if (delta == 0 || update(update, key, delta) > 0) {
+                    continue;
+                }
+                try {
+                    insert.setLong(1, key.teamId);
+                    insert.setInt(2, key.age);
+                    insert.setInt(3, stripe);
+                    insert.setLong(4, delta);
+                    insert.executeUpdate();
+                } catch (SQLException e) {
+                    if (!DUPLICATE_KEY.equals(e.getSQLState())) {
+                        throw e;
+                    }
+                    update(update, key, delta);
+                }
+            }
+        }
+    }
+
+    private int update(PreparedStatement update, Key key, long delta) throws SQLException {
+        update.setLong(1, delta);
+        update.setLong(2, key.teamId);
+        update.setInt(3, key.age);
+        update.setInt(4, stripe);
+        return update.executeUpdate();
+    }
+
+    private static class Key implements Comparable<Key> {
+        private final long teamId;
+        private final int age;
+
+        Key(long teamId, int age) {
+            this.teamId = teamId;
+            this.age = age;
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            int byTeam = Long.compare(teamId, other.teamId);
+            return byTeam != 0 ? byTeam : Integer.compare(age, other.age);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package study.datajpa.repository.stats;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter @Setter
+@ConfigurationProperties(prefix = "datajpa.team-stats")
+public class TeamStatsProperties {
+    // 집계와 member 를 비교해서 틀어진 팀을 다시 만드는 주기 (0 이면 안 돌림)
+    private Duration reconcileInterval = Duration.ofMinutes(10);
+    // 틀어진 팀을 한 트랜잭션에서 몇 팀씩 다시 만들지
+    private int repairChunkSize = 500;
+}
@@ -0,0 +1,164 @@
+package study.datajpa.repository.stats;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.support.BulkMutatedEvent;
+
+import javax.annotation.PreDestroy;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/*
+    team_age_bucket 이 member 와 틀어졌는지 확인하고 다시 맞춤
+    - 틀어지는 경우: Entity 를 거치지 않은 변경(JDBC, 네이티브 쿼리), oldState 없는 update, 수동 수정 등
+    - verify: (팀, 나이) 별 실제 멤버 수와 집계를 비교 => 다른 팀 목록
+      둘 다 한 트랜잭션에서 primary 로 읽음 (readOnly 면 replica 로 가서 복제 지연만큼 틀어졌다고 나옴)
+    - reconcile: verify 후 틀어진 팀만 repairChunkSize 씩 delete + insert select 로 다시 만듦 (stripe 도 하나로 합쳐짐)
+      verify 와 repair 사이에 커밋된 변경 때문에 멀쩡한 팀이 섞여도 다시 만들 뿐이라 결과는 맞음
+      !! delete 는 이미 있는 집계 row 만 잠금 => delete 와 insert select 사이에 새 stripe row 를 넣고 커밋한 member 는 두번 세어짐
+         (그 row 가 stripe 0 이면 insert select 가 중복 키로 실패) => 그 팀은 다음 reconcile 때 다시 틀어진 걸로 잡혀서 맞춰짐
+    - bulk update/delete (BulkMutatedEvent) 뒤에는 커밋 후 전체를 다시 만듦
+ */
+@Slf4j
+@Component
+public class TeamStatsReconciler {
+    private static final String ACTUAL_SQL =
+            "select team_id, age, count(*) from member where team_id is not null group by team_id, age";
+    private static final String STORED_SQL =
+            "select team_id, age, sum(member_count) from team_age_bucket group by team_id, age having sum(member_count) <> 0";
+    private static final String INSERT_SELECT_SQL =
+            "insert into team_age_bucket (team_id, age, stripe, member_count)" +
+                    " select team_id, age, 0, count(*) from member where team_id is not null";
+    private static final String GROUP_BY = " group by team_id, age";
+
+    private final TeamStatsProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate primaryRead;
+    private final TransactionTemplate repairTransaction;
+    private final Counter repairedTeams;
+    private final ThreadPoolTaskScheduler scheduler;
+
+    public TeamStatsReconciler(TeamStatsProperties properties, JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        // 실제 값과 집계를 같은 트랜잭션에서 primary 로 읽음 (호출한 쪽이 readOnly 트랜잭션이어도 참여하지 않게 새 트랜잭션)
+        this.primaryRead = new TransactionTemplate(transactionManager);
+        this.primaryRead.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        // bulk 이벤트는 원래 트랜잭션 커밋 후(afterCommit)에 오므로 새 트랜잭션으로
+        this.repairTransaction = new TransactionTemplate(transactionManager);
+        this.repairTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.repairedTeams = Counter.builder("datajpa.teamstats.repaired").register(meterRegistry);
+
+        this.scheduler = new ThreadPoolTaskScheduler();
+        this.scheduler.setPoolSize(1);
+        this.scheduler.setThreadNamePrefix("team-stats-");
+        this.scheduler.initialize();
+        long interval = properties.getReconcileInterval().toMillis();
+        if (interval > 0) {
+            this.scheduler.scheduleWithFixedDelay(this::reconcileQuietly,
+                    new Date(System.currentTimeMillis() + interval), interval);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown(){
+        scheduler.shutdown();
+    }
+
+    public TeamStatsReport verify(){
+        long start = System.currentTimeMillis();
+        Map<Long, Map<Integer, Long>> actual = new HashMap<>();
+        Map<Long, Map<Integer, Long>> stored = new HashMap<>();
+        primaryRead.executeWithoutResult(status -> {
+            actual.putAll(load(ACTUAL_SQL));
+            stored.putAll(load(STORED_SQL));
+        });
+
+        Set<Long> teams = new HashSet<>(actual.keySet());
+        teams.addAll(stored.keySet());
+        List<Long> drifted = new TreeSet<>(teams).stream()
+                .filter(teamId -> !Objects.equals(actual.get(teamId), stored.get(teamId)))
+                .collect(Collectors.toList());
+        return new TeamStatsReport(teams.size(), drifted, false, System.currentTimeMillis() - start);
+    }
+
+    public TeamStatsReport reconcile(){
+        long start = System.currentTimeMillis();
+        TeamStatsReport report = verify();
+        List<Long> drifted = report.getDrifted();
+        for (int from = 0; from < drifted.size(); from += properties.getRepairChunkSize()) {
+            List<Long> chunk = drifted.subList(from, Math.min(from + properties.getRepairChunkSize(), drifted.size()));
+            try {
+                repairTransaction.executeWithoutResult(status -> {
+                    MapSqlParameterSource params = new MapSqlParameterSource("ids", chunk);
+                    namedJdbcTemplate.update("delete from team_age_bucket where team_id in (:ids)", params);
+                    namedJdbcTemplate.update(INSERT_SELECT_SQL + " and team_id in (:ids)" + GROUP_BY, params);
+                });
+            } catch (DataIntegrityViolationException e) {
+                // 동시에 stripe 0 row 가 들어옴 => 롤백됐으니 그대로, 다음 reconcile 때 다시
+                log.warn("팀 통계 다시 만들기 실패, 다음 reconcile 때 다시 시도: {}", chunk, e);
+            }
+        }
+        if (!drifted.isEmpty()) {
+            repairedTeams.increment(drifted.size());
+            log.warn("팀 통계 {}개 팀이 틀어져서 다시 만듦: {}", drifted.size(),
+                    drifted.size() > 20 ? drifted.subList(0, 20) + "..." : drifted);
+        }
+        return new TeamStatsReport(report.getTeams(), drifted, true, System.currentTimeMillis() - start);
+    }
+
+    // 전체를 다시 만듦 (bulk 변경 후, JDBC 로 대량 적재한 뒤)
+    public void rebuild(){
+        long start = System.currentTimeMillis();
+        repairTransaction.executeWithoutResult(status -> {
+            jdbcTemplate.update("delete from team_age_bucket");
+            jdbcTemplate.update(INSERT_SELECT_SQL + GROUP_BY);
+        });
+        log.info("팀 통계 전체 다시 만듦 {}ms", System.currentTimeMillis() - start);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBulkMutated(BulkMutatedEvent event){
+        if (event.getEntityType() == Member.class && event.getAffected() > 0) {
+            rebuild();
+        }
+    }
+
+    private Map<Long, Map<Integer, Long>> load(String sql){
+        Map<Long, Map<Integer, Long>> result = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            result.computeIfAbsent(rs.getLong(1), teamId -> new HashMap<>()).put(rs.getInt(2), rs.getLong(3));
+        });
+        return result;
+    }
+
+    private void reconcileQuietly(){
+        try {
+            reconcile();
+        } catch (RuntimeException e) {
+            log.warn("팀 통계 검증 실패", e);
+        }
+    }
+}
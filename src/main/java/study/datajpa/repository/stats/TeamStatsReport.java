@@ -0,0 +1,23 @@
+package study.datajpa.repository.stats;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+// 집계 검증 결과 (drifted = 집계가 member 와 다른 팀)
+@Getter
+@ToString
+public class TeamStatsReport {
+    private final int teams;
+    private final List<Long> drifted;
+    private final boolean repaired;
+    private final long elapsedMillis;
+
+    public TeamStatsReport(int teams, List<Long> drifted, boolean repaired, long elapsedMillis) {
+        this.teams = teams;
+        this.drifted = drifted;
+        this.repaired = repaired;
+        this.elapsedMillis = elapsedMillis;
+    }
+}
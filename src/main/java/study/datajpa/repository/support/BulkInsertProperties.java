@@ -0,0 +1,14 @@
+package study.datajpa.repository.support;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter @Setter
+@ConfigurationProperties(prefix = "datajpa.bulk")
+public class BulkInsertProperties {
+    // 이 개수마다 flush + clear (hibernate.jdbc.batch_size 의 배수로 맞추는게 좋음)
+    private int flushSize = 1000;
+    // bulk update/delete 를 이 row 수 단위(id 범위)로 나눠서 실행 => 한 statement 가 잡는 lock/undo 크기 제한
+    private int mutationChunkSize = 10000;
+}
@@ -0,0 +1,25 @@
+package study.datajpa.repository.support;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Duration;
+
+@Getter
+@ToString
+public class BulkInsertResult {
+    private final String entityName;
+    private final long rows;
+    private final Duration elapsed;
+
+    public BulkInsertResult(String entityName, long rows, Duration elapsed) {
+        this.entityName = entityName;
+        this.rows = rows;
+        this.elapsed = elapsed;
+    }
+
+    public double getRowsPerSecond(){
+        long nanos = elapsed.toNanos();
+        return nanos == 0 ? 0 : rows * 1_000_000_000d / nanos;
+    }
+}
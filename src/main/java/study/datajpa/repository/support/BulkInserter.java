@@ -0,0 +1,49 @@
+package study.datajpa.repository.support;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.Duration;
+
+/*
+    대량 insert 전용
+    - id 는 시퀀스를 allocationSize 만큼 미리 당겨와서 씀 (pooled optimizer, Entity 의 @SequenceGenerator)
+    - insert 는 hibernate.jdbc.batch_size 단위로 JDBC batch 전송 (order_inserts 로 테이블별 정렬)
+    - flush-size 마다 flush + clear 해서 영속성 컨텍스트가 계속 커지지 않게 함 => heap 사용량이 일정
+    !! clear 를 하기 때문에 같은 트랜잭션에서 미리 조회해둔 Entity 들도 준영속 상태가 됨
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BulkInserter {
+    @PersistenceContext
+    private EntityManager em;
+
+    private final BulkInsertProperties properties;
+
+    @Transactional
+    public <T> BulkInsertResult insert(Class<T> entityType, Iterable<? extends T> entities){
+        long start = System.nanoTime();
+        int flushSize = properties.getFlushSize();
+        long rows = 0;
+
+        for (T entity : entities) {
+            em.persist(entity);
+            if (++rows % flushSize == 0) {
+                em.flush();
+                em.clear();
+            }
+        }
+        em.flush();
+        em.clear();
+
+        BulkInsertResult result = new BulkInsertResult(entityType.getSimpleName(), rows, Duration.ofNanos(System.nanoTime() - start));
+        log.info("bulk insert {}: {} rows in {} ms ({} rows/sec)", result.getEntityName(), rows,
+                result.getElapsed().toMillis(), String.format("%.0f", result.getRowsPerSecond()));
+        return result;
+    }
+}
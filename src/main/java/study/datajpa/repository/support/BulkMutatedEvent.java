@@ -0,0 +1,21 @@
+package study.datajpa.repository.support;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/*
+    BulkMutator 로 bulk update/delete 를 실행한 뒤 발행되는 Spring 이벤트
+    Entity 를 거치지 않아서 EntityChangedEvent/Hibernate 이벤트가 나가지 않으므로
+    Entity 변경을 따라가는 곳(username 인덱스 등)은 이걸 받아서 다시 읽어야함
+ */
+@Getter
+@ToString
+public class BulkMutatedEvent {
+    private final Class<?> entityType;
+    private final long affected;
+
+    public BulkMutatedEvent(Class<?> entityType, long affected) {
+        this.entityType = entityType;
+        this.affected = affected;
+    }
+}
@@ -0,0 +1,104 @@
+package study.datajpa.repository.support;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.repository.paging.CountCache;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import javax.persistence.metamodel.EntityType;
+import java.util.List;
+import java.util.Map;
+
+/*
+    JPQL bulk update/delete 를 id 범위 chunk 로 나눠서 실행 (Entity 를 하나씩 읽어서 바꾸지 않고 set 단위로)
+    - jpql 은 "update Member m set ... where ..." 처럼 alias + where 절까지 작성, 여기서 id 범위 조건을 붙임
+    - 트랜잭션 밖에서 호출하면 chunk 마다 별도 트랜잭션으로 커밋 => lock 잡는 시간/undo 크기가 chunk 만큼으로 제한
+      (대신 전체가 원자적이지 않음. 중간에 실패하면 앞 chunk 들은 이미 반영되어 있음)
+    - 트랜잭션 안에서 호출하면 그 트랜잭션에 참여 (같은 트랜잭션이 잡은 lock 과 충돌하지 않도록)
+    - 실행 전에 flush, 실행 후에 영속성 컨텍스트를 clear => DB 와 다른 예전 Entity 가 남지 않음
+      (2차 캐시/쿼리 캐시는 Hibernate 가 bulk 쿼리 실행 시 해당 Entity region 을 비워줌, count 캐시는 여기서 무효화)
+    - 끝나면 BulkMutatedEvent 발행 (트랜잭션 안이면 @TransactionalEventListener 쪽은 커밋 후에 받음)
+ */
+@Slf4j
+@Component
+public class BulkMutator {
+    @PersistenceContext
+    private EntityManager em;
+
+    private final BulkInsertProperties properties;
+    private final CountCache countCache;
+    private final ApplicationEventPublisher publisher;
+    private final TransactionTemplate chunkTransaction;
+
+    public BulkMutator(BulkInsertProperties properties, CountCache countCache, ApplicationEventPublisher publisher,
+                       PlatformTransactionManager transactionManager) {
+        this.properties = properties;
+        this.countCache = countCache;
+        this.publisher = publisher;
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // 영향받은 row 수를 돌려줌
+    public long execute(Class<?> entityType, String alias, String jpql, Map<String, ?> params){
+        long start = System.nanoTime();
+        boolean inTransaction = TransactionSynchronizationManager.isActualTransactionActive();
+        if (inTransaction) {
+            em.flush();
+        }
+
+        EntityType<?> entity = em.getMetamodel().entity(entityType);
+        String idPath = alias + "." + entity.getId(entity.getIdType().getJavaType()).getName();
+        String lastChunkJpql = jpql + " and " + idPath + " >= :chunkFrom";
+        String chunkJpql = lastChunkJpql + " and " + idPath + " < :chunkTo";
+        String boundaryJpql = "select " + idPath + " from " + entity.getName() + " " + alias +
+                " where " + idPath + " >= :from order by " + idPath;
+
+        long affected = 0;
+        int chunks = 0;
+        Long from = em.createQuery("select min(" + idPath + ") from " + entity.getName() + " " + alias, Long.class)
+                .getSingleResult();
+        while (from != null) {
+            // PK 인덱스에서 chunk 크기만큼 건너뛴 id 를 다음 시작점으로 => id 가 듬성듬성해도 chunk 크기가 일정함
+            List<Long> next = em.createQuery(boundaryJpql, Long.class)
+                    .setParameter("from", from)
+                    .setFirstResult(properties.getMutationChunkSize())
+                    .setMaxResults(1)
+                    .getResultList();
+            Long to = next.isEmpty() ? null : next.get(0);
+
+            Long chunkFrom = from;
+            String statement = to == null ? lastChunkJpql : chunkJpql;
+            Integer updated = inTransaction
+                    ? executeChunk(statement, params, chunkFrom, to)
+                    : chunkTransaction.execute(status -> executeChunk(statement, params, chunkFrom, to));
+            affected += updated == null ? 0 : updated;
+            chunks++;
+            from = to;
+        }
+
+        em.clear();
+        countCache.invalidateWithTransaction(entityType);
+        publisher.publishEvent(new BulkMutatedEvent(entityType, affected));
+
+        log.info("bulk {}: {} rows in {} chunks, {} ms", entityType.getSimpleName(), affected, chunks,
+                (System.nanoTime() - start) / 1_000_000);
+        return affected;
+    }
+
+    private int executeChunk(String jpql, Map<String, ?> params, Long from, Long to){
+        Query query = em.createQuery(jpql).setParameter("chunkFrom", from);
+        if (to != null) {
+            query.setParameter("chunkTo", to);
+        }
+        params.forEach(query::setParameter);
+        return query.executeUpdate();
+    }
+}
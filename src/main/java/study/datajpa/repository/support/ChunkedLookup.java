@@ -0,0 +1,138 @@
+package study.datajpa.repository.support;
+
+import org.hibernate.Session;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.Serializable;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/*
+    키 목록으로 여러건 조회 (IN 절)
+    - 중복/null 제거 후 chunkSize 씩 잘라서 조회 => SQL 이 무한정 길어지지 않음
+    - IN 절 크기는 hibernate.query.in_clause_parameter_padding 으로 2의 거듭제곱으로 맞춰져서 쿼리 플랜 캐시가 몇개로 고정됨
+    - 결과는 입력한 키 순서대로 (같은 키에 여러 row 면 조회된 순서대로 묶어서)
+    - parallel: chunk 마다 다른 스레드 + 별도 읽기 전용 트랜잭션(= 별도 커넥션)에서 조회
+      스레드/대기열이 다 차면 남은 chunk 는 호출한 스레드에서 조회 (호출한 쪽 트랜잭션이 있으면 거기 참여)
+      !! 호출한 쪽의 영속성 컨텍스트와 무관하게 조회되므로 결과는 준영속 상태이고, 커밋 안된 변경은 보이지 않음
+ */
+@Component
+public class ChunkedLookup {
+    @PersistenceContext
+    private EntityManager em;
+
+    private final ChunkedLookupProperties properties;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ThreadPoolTaskExecutor executor;
+
+    public ChunkedLookup(ChunkedLookupProperties properties, PlatformTransactionManager transactionManager) {
+        this.properties = properties;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+
+        this.executor = new ThreadPoolTaskExecutor();
+        this.executor.setCorePoolSize(properties.getParallelism());
+        this.executor.setMaxPoolSize(properties.getParallelism());
+        this.executor.setQueueCapacity(properties.getQueueCapacity());
+        // 대기열이 차면 호출한 스레드가 직접 실행 => 부하가 몰리면 순차 조회처럼 느려질 뿐 작업이 쌓이지는 않음
+        this.executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        this.executor.setThreadNamePrefix("chunked-lookup-");
+        this.executor.initialize();
+    }
+
+    @PreDestroy
+    public void shutdown(){
+        executor.shutdown();
+    }
+
+    public <K, T> List<T> find(Collection<K> keys, Function<T, K> keyOf, Function<List<K>, List<T>> query, boolean parallel){
+        List<List<K>> chunks = chunks(keys);
+        if (chunks.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<T> fetched;
+        if (parallel && chunks.size() > 1) {
+            List<CompletableFuture<List<T>>> futures = chunks.stream()
+                    .map(chunk -> CompletableFuture.supplyAsync(
+                            () -> readOnlyTransaction.execute(status -> query.apply(chunk)), executor))
+                    .collect(Collectors.toList());
+            fetched = new ArrayList<>();
+            for (CompletableFuture<List<T>> future : futures) {
+                fetched.addAll(join(future));
+            }
+        } else {
+            // 호출한 쪽 트랜잭션이 있으면 거기에 참여 (영속성 컨텍스트 공유)
+            fetched = readOnlyTransaction.execute(status -> {
+                List<T> rows = new ArrayList<>();
+                for (List<K> chunk : chunks) {
+                    rows.addAll(query.apply(chunk));
+                }
+                return rows;
+            });
+        }
+        return inKeyOrder(chunks, fetched, keyOf);
+    }
+
+    /*
+        id 로 여러건 조회 (Session.byMultipleIds)
+        - 영속성 컨텍스트/2차 캐시에 이미 있는 건 SQL 없이 꺼내고 나머지만 IN 으로 조회
+        - 없는 id 는 결과에서 빠짐
+     */
+    public <T, ID extends Serializable> List<T> findAllById(Class<T> entityType, Collection<ID> ids, Function<T, ID> idOf, boolean parallel){
+        return find(ids, idOf, chunk -> em.unwrap(Session.class)
+                .byMultipleIds(entityType)
+                .withBatchSize(properties.getChunkSize())
+                .multiLoad(chunk)
+                .stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList()), parallel);
+    }
+
+    private <K> List<List<K>> chunks(Collection<K> keys){
+        List<K> distinct = keys.stream().filter(Objects::nonNull).distinct().collect(Collectors.toList());
+        int chunkSize = properties.getChunkSize();
+
+        List<List<K>> chunks = new ArrayList<>();
+        for (int from = 0; from < distinct.size(); from += chunkSize) {
+            chunks.add(distinct.subList(from, Math.min(from + chunkSize, distinct.size())));
+        }
+        return chunks;
+    }
+
+    private <K, T> List<T> inKeyOrder(List<List<K>> chunks, List<T> fetched, Function<T, K> keyOf){
+        Map<K, List<T>> byKey = new HashMap<>();
+        for (T row : fetched) {
+            byKey.computeIfAbsent(keyOf.apply(row), k -> new ArrayList<>()).add(row);
+        }
+
+        List<T> result = new ArrayList<>(fetched.size());
+        for (List<K> chunk : chunks) {
+            for (K key : chunk) {
+                result.addAll(byKey.getOrDefault(key, Collections.emptyList()));
+            }
+        }
+        return result;
+    }
+
+    private <T> T join(CompletableFuture<T> future){
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
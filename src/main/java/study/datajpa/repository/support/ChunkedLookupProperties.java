@@ -0,0 +1,16 @@
+package study.datajpa.repository.support;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter @Setter
+@ConfigurationProperties(prefix = "datajpa.lookup")
+public class ChunkedLookupProperties {
+    // IN 절 하나에 들어가는 최대 파라미터 수 (in_clause_parameter_padding 이 2의 거듭제곱으로 채우니까 2의 거듭제곱으로)
+    private int chunkSize = 512;
+    // 병렬 조회 시 동시에 쓰는 커넥션 수 (커넥션 풀 크기보다 충분히 작게)
+    private int parallelism = 4;
+    // 병렬 조회 대기열 크기, 꽉 차면 그 chunk 는 호출한 스레드에서 바로 조회 (대기열이 끝없이 쌓이지 않게)
+    private int queueCapacity = 64;
+}
@@ -0,0 +1,33 @@
+package study.datajpa.repository.writebehind;
+
+import lombok.Getter;
+import lombok.ToString;
+import study.datajpa.dto.MemberSummaryDto;
+
+/*
+    아직 DB 에 반영 안된 Member 변경분 (null 인 필드는 안 바뀐 것)
+    같은 member 에 여러번 쓰면 mergeWith 로 하나로 합쳐서 UPDATE 한번만 나감
+ */
+@Getter
+@ToString
+public class MemberPatch {
+    private final Integer age;
+    private final String username;
+
+    public MemberPatch(Integer age, String username) {
+        this.age = age;
+        this.username = username;
+    }
+
+    // newer 가 나중에 들어온 변경 => 겹치는 필드는 newer 가 이김
+    public MemberPatch mergeWith(MemberPatch newer){
+        return new MemberPatch(newer.age != null ? newer.age : age,
+                newer.username != null ? newer.username : username);
+    }
+
+    public MemberSummaryDto applyTo(MemberSummaryDto member){
+        return new MemberSummaryDto(member.getId(),
+                username != null ? username : member.getUsername(),
+                age != null ? age : member.getAge());
+    }
+}
@@ -0,0 +1,378 @@
+package study.datajpa.repository.writebehind;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.dto.MemberSummaryDto;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.paging.CountCache;
+import study.datajpa.repository.search.MemberUsernameIndex;
+import study.datajpa.repository.stats.TeamAgeDeltas;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManagerFactory;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+    Member 의 잦은 변경(age/username)을 메모리에 모았다가 JDBC batch UPDATE 로 한번에 반영 (write-behind)
+    - member id 별로 합쳐서(coalesce) 같은 member 를 100번 바꿔도 UPDATE 는 한번
+    - flush: flush-size 만큼 쌓이거나 flush-interval 마다, 그리고 종료될 때 남은 것 전부
+    - 버퍼가 max-pending 만큼 차면 자리가 날 때까지 기다리고(backpressure), offer-timeout 이 지나면 호출한 스레드가 직접 flush
+    - find: DB 값 위에 아직 반영 안된 변경을 덮어서 돌려줌 => 자기가 쓴 값은 바로 보임
+    - 반영할 때 version 도 +1 (Entity 로 읽어서 바꾸고 있던 트랜잭션은 낙관적 락 충돌로 알게 됨),
+      Entity 를 거치지 않으니 2차 캐시/쿼리 캐시/count 캐시/username 인덱스/팀 통계는 여기서 직접 맞춰줌
+    !! 반영 전에 서버가 죽으면(kill -9 등) 버퍼에 있던 변경은 유실됨 => 잃어도 되는 변경(마지막 접속 시각 같은)에만 사용
+    !! JPA(MemberRepository)로 읽으면 버퍼는 안 보임 => 버퍼를 거친 값이 필요하면 find 사용
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "datajpa.write-behind", name = "enabled", havingValue = "true")
+public class MemberWriteBehindBuffer {
+    private static final int LOOKUP_CHUNK = 500;
+    private static final String UPDATE_SQL = "update member set age = coalesce(?, age), username = coalesce(?, username)," +
+            " version = version + 1 where member_id = ?";
+
+    private final WriteBehindProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final MemberRepository memberRepository;
+    private final EntityManagerFactory entityManagerFactory;
+    private final CountCache countCache;
+    private final ObjectProvider<MemberUsernameIndex> usernameIndex;
+    private final TransactionTemplate flushTransaction;
+    private final TransactionTemplate primaryRead;
+    private final TransactionTemplate primaryReadNew;
+    private final ThreadPoolTaskScheduler scheduler;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    // 아직 flush 안 된 변경
+    private Map<Long, MemberPatch> pending = new LinkedHashMap<>();
+    // flush 중인 변경 (커밋되기 전까지는 읽을 때 이것도 덮어써야 함)
+    private Map<Long, MemberPatch> inFlight = new HashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private boolean flushRequested;
+
+    private final Counter writes;
+    private final Counter coalesced;
+    private final Counter flushedRows;
+    private final Counter callerFlushes;
+    private final Timer flushTimer;
+
+    public MemberWriteBehindBuffer(WriteBehindProperties properties, JdbcTemplate jdbcTemplate, MemberRepository memberRepository,
+                                   EntityManagerFactory entityManagerFactory, CountCache countCache,
+                                   ObjectProvider<MemberUsernameIndex> usernameIndex,
+                                   PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.memberRepository = memberRepository;
+        this.entityManagerFactory = entityManagerFactory;
+        this.countCache = countCache;
+        this.usernameIndex = usernameIndex;
+
+        // 호출한 쪽 트랜잭션과 상관없이 따로 커밋
+        this.flushTransaction = new TransactionTemplate(transactionManager);
+        this.flushTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        // find 는 readOnly 로 읽으면 replica 로 라우팅됨 (DataSourceRoutingConfig) => flush 직후 값이 안 보일 수 있어서 primary 에서
+        // 호출한 쪽이 읽기 전용 트랜잭션이면 참여하는 순간 replica 커넥션이라 새 트랜잭션으로
+        this.primaryRead = new TransactionTemplate(transactionManager);
+        this.primaryReadNew = new TransactionTemplate(transactionManager);
+        this.primaryReadNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        this.writes = Counter.builder("datajpa.writebehind.writes").register(meterRegistry);
+        this.coalesced = Counter.builder("datajpa.writebehind.coalesced").register(meterRegistry);
+        this.flushedRows = Counter.builder("datajpa.writebehind.flushed").register(meterRegistry);
+        this.callerFlushes = Counter.builder("datajpa.writebehind.caller.flushes").register(meterRegistry);
+        this.flushTimer = Timer.builder("datajpa.writebehind.flush").register(meterRegistry);
+        Gauge.builder("datajpa.writebehind.pending", this, MemberWriteBehindBuffer::pendingCount).register(meterRegistry);
+
+        this.scheduler = new ThreadPoolTaskScheduler();
+        this.scheduler.setPoolSize(1);
+        this.scheduler.setThreadNamePrefix("write-behind-");
+        this.scheduler.setWaitForTasksToCompleteOnShutdown(true);
+        this.scheduler.setAwaitTerminationSeconds(10);
+        this.scheduler.initialize();
+        this.scheduler.scheduleWithFixedDelay(this::flushQuietly, properties.getFlushInterval().toMillis());
+    }
+
+    // 종료될 때 남은 변경을 전부 반영 (DataSource 보다 먼저 destroy 됨)
+    @PreDestroy
+    public void shutdown(){
+        scheduler.shutdown(); // 주기 flush 는 취소하고, 실행 중인 flush 는 끝날 때까지 기다림
+        while (pendingCount() > 0) {
+            if (flush() == 0) {
+                log.warn("종료 중 write-behind flush 실패, 변경 {}건 유실", pendingCount());
+                break;
+            }
+        }
+    }
+
+    public void updateAge(Long memberId, int age){
+        write(memberId, new MemberPatch(age, null));
+    }
+
+    public void updateUsername(Long memberId, String username){
+        write(memberId, new MemberPatch(null, username));
+    }
+
+    /*
+        DB 값 + 아직 반영 안된 변경
+        변경을 먼저 꺼내고 DB 를 읽어야 그 사이 flush 가 끝나도 예전 값이 보이지 않음
+        (변경을 꺼냈으면 DB 가 어느 쪽이든 덮어쓰니 같고, 못 꺼냈으면 이미 커밋된 뒤라 primary 에 있음)
+     */
+    public Optional<MemberSummaryDto> find(Long memberId){
+        Optional<MemberPatch> patch = pendingPatch(memberId);
+        TransactionTemplate read = TransactionSynchronizationManager.isCurrentTransactionReadOnly() ? primaryReadNew : primaryRead;
+        Optional<MemberSummaryDto> stored = read.execute(status ->
+                memberRepository.findProjectionsById(memberId, MemberSummaryDto.class));
+        return stored.map(member -> patch.map(p -> p.applyTo(member)).orElse(member));
+    }
+
+    public Optional<MemberPatch> pendingPatch(Long memberId){
+        lock.lock();
+        try {
+            MemberPatch flushing = inFlight.get(memberId);
+            MemberPatch waiting = pending.get(memberId);
+            if (flushing == null || waiting == null) {
+                return Optional.ofNullable(waiting != null ? waiting : flushing);
+            }
+            return Optional.of(flushing.mergeWith(waiting));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int pendingCount(){
+        lock.lock();
+        try {
+            return pending.size() + inFlight.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /*
+        지금까지 쌓인 변경을 batch UPDATE 로 반영하고 반영한 row 수를 돌려줌
+        한번에 하나만 실행 (주기 flush 와 가득 차서 호출한 쪽의 flush 가 겹치지 않도록)
+     */
+    public int flush(){
+        flushLock.lock();
+        try {
+            Map<Long, MemberPatch> batch = drain();
+            if (batch.isEmpty()) {
+                return 0;
+            }
+            try {
+                int rows = flushTimer.record(() -> writeBatch(batch));
+                flushedRows.increment(rows);
+                afterFlush(batch);
+                return rows;
+            } catch (RuntimeException e) {
+                restore(batch);
+                throw e;
+            }
+        } finally {
+            lock.lock();
+            try {
+                inFlight = new HashMap<>();
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            flushLock.unlock();
+        }
+    }
+
+    private void write(Long memberId, MemberPatch patch){
+        boolean flushNow = false;
+        lock.lock();
+        try {
+            MemberPatch previous = pending.get(memberId);
+            if (previous == null) {
+                if (!awaitCapacity()) {
+                    flushNow = true;
+                }
+                // 기다리는 동안 다른 스레드가 같은 member 를 넣었을 수 있음
+                previous = pending.get(memberId);
+            }
+            if (previous != null) {
+                coalesced.increment();
+                pending.put(memberId, previous.mergeWith(patch));
+            } else {
+                pending.put(memberId, patch);
+            }
+            writes.increment();
+            if (pending.size() >= properties.getFlushSize() && !flushRequested) {
+                flushRequested = true;
+                scheduler.execute(this::flushQuietly);
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (flushNow) {
+            // 잠깐 max-pending 을 넘어서 넣고 호출한 스레드가 직접 비움 => 쓰는 쪽 속도가 flush 속도에 맞춰짐
+            callerFlushes.increment();
+            flush();
+        }
+    }
+
+    // lock 을 잡은 상태에서 호출, 자리가 나면 true
+    private boolean awaitCapacity(){
+        long nanos = properties.getOfferTimeout().toNanos();
+        try {
+            while (pending.size() + inFlight.size() >= properties.getMaxPending()) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = notFull.awaitNanos(nanos);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private Map<Long, MemberPatch> drain(){
+        lock.lock();
+        try {
+            Map<Long, MemberPatch> batch = pending;
+            pending = new LinkedHashMap<>();
+            inFlight = batch;
+            flushRequested = false;
+            return batch;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // 실패한 변경을 다시 버퍼에 (그 사이 들어온 변경이 더 최신)
+    private void restore(Map<Long, MemberPatch> batch){
+        lock.lock();
+        try {
+            Map<Long, MemberPatch> restored = new LinkedHashMap<>(batch);
+            pending.forEach((id, patch) -> restored.merge(id, patch, MemberPatch::mergeWith));
+            pending = restored;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int writeBatch(Map<Long, MemberPatch> batch){
+        return flushTransaction.execute(status -> {
+            Map<Long, String> oldUsernames = new HashMap<>();
+            TeamAgeDeltas teamStats = new TeamAgeDeltas();
+            lockCurrentRows(batch, oldUsernames, teamStats);
+            int[][] counts = jdbcTemplate.batchUpdate(UPDATE_SQL, batch.entrySet(), properties.getFlushSize(), (ps, entry) -> {
+                MemberPatch patch = entry.getValue();
+                ps.setObject(1, patch.getAge(), Types.INTEGER);
+                ps.setString(2, patch.getUsername());
+                ps.setLong(3, entry.getKey());
+            });
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                teamStats.apply(connection);
+                return null;
+            });
+            if (!oldUsernames.isEmpty()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        usernameIndex.ifAvailable(index -> oldUsernames.forEach((id, oldUsername) ->
+                                index.onUsernameChanged(id, oldUsername, batch.get(id).getUsername())));
+                    }
+                });
+            }
+            int rows = 0;
+            for (int[] chunk : counts) {
+                for (int count : chunk) {
+                    rows += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(count, 0); // 그 사이 삭제된 member 는 0
+                }
+            }
+            return rows;
+        });
+    }
+
+    /*
+        바뀌기 전 값을 읽으면서 row 를 잠가서(for update) 커밋 전에 다른 트랜잭션이 바꾸지 못하게 함
+        - oldUsernames: username 을 바꾸는 member 의 바뀌기 전 username (인덱스에서 지우려면 필요)
+        - teamStats: 나이가 바뀌는 member 의 팀 통계(team_age_bucket) 변경량, Hibernate 이벤트를 안 타니까 직접 구함
+        !! 따로 읽으면 그 사이 Entity 로 바꾼 username 이 커밋될 수 있음 => 인덱스에 같은 id 가 두 username 으로 남음, 한 쿼리로 읽음
+     */
+    private void lockCurrentRows(Map<Long, MemberPatch> batch, Map<Long, String> oldUsernames, TeamAgeDeltas teamStats){
+        boolean trackUsernames = usernameIndex.getIfAvailable() != null;
+        List<Long> ids = new ArrayList<>();
+        batch.forEach((id, patch) -> {
+            if (patch.getAge() != null || (trackUsernames && patch.getUsername() != null)) {
+                ids.add(id);
+            }
+        });
+        for (int from = 0; from < ids.size(); from += LOOKUP_CHUNK) {
+            List<Long> chunk = ids.subList(from, Math.min(from + LOOKUP_CHUNK, ids.size()));
+            namedJdbcTemplate.query("select member_id, team_id, age, username from member where member_id in (:ids) for update",
+                    new MapSqlParameterSource("ids", chunk),
+                    rs -> {
+                        long id = rs.getLong(1);
+                        MemberPatch patch = batch.get(id);
+                        if (trackUsernames && patch.getUsername() != null) {
+                            oldUsernames.put(id, rs.getString(4));
+                        }
+                        if (patch.getAge() != null) {
+                            Long teamId = rs.getObject(2, Long.class);
+                            int oldAge = rs.getInt(3);
+                            int newAge = patch.getAge();
+                            if (oldAge != newAge) {
+                                teamStats.add(teamId, oldAge, -1);
+                                teamStats.add(teamId, newAge, 1);
+                            }
+                        }
+                    });
+        }
+    }
+
+    // Hibernate 를 거치지 않고 바꿨으니 캐시들을 직접 비움
+    private void afterFlush(Map<Long, MemberPatch> batch){
+        Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        batch.keySet().forEach(id -> cache.evict(Member.class, id));
+        cache.evictQueryRegions();
+        if (batch.values().stream().anyMatch(patch -> patch.getAge() != null)) {
+            countCache.invalidate(Member.class);
+        }
+    }
+
+    private void flushQuietly(){
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            // 버퍼에 다시 넣었으니 다음 주기에 재시도
+            log.warn("write-behind flush 실패, {}건은 다음에 다시 시도", pendingCount(), e);
+        }
+    }
+}
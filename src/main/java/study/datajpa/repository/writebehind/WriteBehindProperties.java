@@ -0,0 +1,21 @@
+package study.datajpa.repository.writebehind;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter @Setter
+@ConfigurationProperties(prefix = "datajpa.write-behind")
+public class WriteBehindProperties {
+    private boolean enabled = false;
+    // 버퍼에 쌓아둘 수 있는 최대 member 수 (같은 member 는 하나로 합쳐지므로 row 수 기준)
+    private int maxPending = 10000;
+    // 이 개수가 쌓이면 주기를 기다리지 않고 flush
+    private int flushSize = 500;
+    // 적게 쌓여도 이 주기마다 flush (= 최대 반영 지연)
+    private Duration flushInterval = Duration.ofSeconds(1);
+    // 버퍼가 가득 찼을 때 자리가 나기를 기다리는 시간, 넘으면 호출한 스레드가 직접 flush
+    private Duration offerTimeout = Duration.ofMillis(200);
+}
@@ -0,0 +1,93 @@
+package study.datajpa.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.repository.MemberRepository;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/*
+    Member 전체를 DTO Stream 으로 읽으면서 바로 OutputStream 에 씀
+    => 전체 목록을 메모리에 올리지 않고, FLUSH_INTERVAL 마다 클라이언트로 밀어냄
+ */
+@Service
+@RequiredArgsConstructor
+public class MemberExportService {
+    private static final int FLUSH_INTERVAL = 1000;
+
+    private final MemberRepository memberRepository;
+    private final ObjectMapper objectMapper;
+
+    // 한 줄에 JSON 하나 (NDJSON)
+    @Transactional(readOnly = true)
+    public long exportNdjson(OutputStream out) throws IOException {
+        // row 마다 flush 하지 않도록 FLUSH_AFTER_WRITE_VALUE 는 끄고 FLUSH_INTERVAL 마다 직접 flush
+        ObjectWriter rowWriter = objectMapper.writerFor(MemberDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        long rows = 0;
+        try (Stream<MemberDto> members = memberRepository.streamMemberDto();
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null); // 기본값(공백) 대신 row 마다 직접 개행을 씀
+
+            Iterator<MemberDto> iterator = members.iterator();
+            while (iterator.hasNext()) {
+                rowWriter.writeValue(generator, iterator.next());
+                generator.writeRaw('\n');
+                if (++rows % FLUSH_INTERVAL == 0) {
+                    generator.flush();
+                }
+            }
+        }
+        return rows;
+    }
+
+    @Transactional(readOnly = true)
+    public long exportCsv(OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write("id,username,teamname\n");
+
+        long rows = 0;
+        try (Stream<MemberDto> members = memberRepository.streamMemberDto()) {
+            Iterator<MemberDto> iterator = members.iterator();
+            while (iterator.hasNext()) {
+                MemberDto member = iterator.next();
+                writer.write(String.valueOf(member.getId()));
+                writer.write(',');
+                writer.write(csv(member.getUsername()));
+                writer.write(',');
+                writer.write(csv(member.getTeamname()));
+                writer.write('\n');
+                if (++rows % FLUSH_INTERVAL == 0) {
+                    writer.flush();
+                }
+            }
+        }
+        writer.flush();
+        return rows;
+    }
+
+    private String csv(String value){
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
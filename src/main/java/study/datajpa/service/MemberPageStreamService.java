@@ -0,0 +1,101 @@
+package study.datajpa.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.paging.CountMode;
+import study.datajpa.repository.paging.CountResult;
+import study.datajpa.repository.paging.TotalAccuracy;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/*
+    Member 페이지를 JSON 으로 바로 씀
+    page.map(m -> new MemberDto(...)) 후 반환하면 Entity 목록 -> DTO 목록 -> Jackson 직렬화를 차례로 거침
+    => 쿼리 결과를 DTO Stream 으로 읽으면서 row 하나씩 JsonGenerator 에 쓰고 끝 (중간 List 없음)
+    - 필드 이름은 미리 인코딩된 SerializedString 을 재사용, 출력 버퍼는 Jackson 의 BufferRecycler 가 스레드마다 재사용
+    - content 를 다 쓴 뒤에 row 수를 알게 되므로 page 정보는 맨 끝에 씀
+      => 마지막 페이지면 count 쿼리 없이 total 을 구할 수 있음 (MemberRepositoryImpl.findPageByAge 와 같은 규칙)
+
+    {"content":[{"id":1,"username":"a","teamname":"t"},...],
+     "page":{"number":0,"size":20,"numberOfElements":20,"totalElements":135,"totalPages":7,"totalAccuracy":"EXACT"}}
+ */
+@Service
+@RequiredArgsConstructor
+public class MemberPageStreamService {
+    private static final SerializableString CONTENT = new SerializedString("content");
+    private static final SerializableString ID = new SerializedString("id");
+    private static final SerializableString USERNAME = new SerializedString("username");
+    private static final SerializableString TEAMNAME = new SerializedString("teamname");
+    private static final SerializableString PAGE = new SerializedString("page");
+
+    private final MemberRepository memberRepository;
+    private final ObjectMapper objectMapper;
+
+    // 반환값은 이 페이지의 row 수
+    @Transactional(readOnly = true)
+    public int writePageByAge(int age, Pageable pageable, CountMode countMode, OutputStream out) throws IOException {
+        int rows = 0;
+        try (Stream<MemberDto> members = memberRepository.streamMemberDtoByAge(age, pageable);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // 중간에 실패했을 때 close() 가 ]} 를 채워서 정상 응답처럼 보이지 않도록 (잘린 JSON 그대로 둠)
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+            generator.writeStartObject();
+            generator.writeFieldName(CONTENT);
+            generator.writeStartArray();
+
+            Iterator<MemberDto> iterator = members.iterator();
+            while (iterator.hasNext()) {
+                writeMember(generator, iterator.next());
+                rows++;
+            }
+            generator.writeEndArray();
+
+            writePage(generator, pageable, rows, total(age, pageable, countMode, rows));
+            generator.writeEndObject();
+        }
+        return rows;
+    }
+
+    private CountResult total(int age, Pageable pageable, CountMode countMode, int rows){
+        if (rows < pageable.getPageSize() && (pageable.getOffset() == 0 || rows > 0)) {
+            return new CountResult(pageable.getOffset() + rows, TotalAccuracy.EXACT);
+        }
+        return memberRepository.countByAge(age, countMode);
+    }
+
+    private void writeMember(JsonGenerator generator, MemberDto member) throws IOException {
+        generator.writeStartObject();
+        generator.writeFieldName(ID);
+        generator.writeNumber(member.getId());
+        generator.writeFieldName(USERNAME);
+        generator.writeString(member.getUsername());
+        generator.writeFieldName(TEAMNAME);
+        generator.writeString(member.getTeamname());
+        generator.writeEndObject();
+    }
+
+    private void writePage(JsonGenerator generator, Pageable pageable, int rows, CountResult total) throws IOException {
+        generator.writeFieldName(PAGE);
+        generator.writeStartObject();
+        generator.writeNumberField("number", pageable.getPageNumber());
+        generator.writeNumberField("size", pageable.getPageSize());
+        generator.writeNumberField("numberOfElements", rows);
+        generator.writeNumberField("totalElements", total.getTotal());
+        generator.writeNumberField("totalPages", (int) Math.ceil((double) total.getTotal() / pageable.getPageSize()));
+        generator.writeStringField("totalAccuracy", total.getAccuracy().name());
+        generator.writeEndObject();
+    }
+}
@@ -0,0 +1,36 @@
+package study.datajpa.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+import study.datajpa.service.retry.RetryOnOptimisticLock;
+
+import javax.persistence.EntityNotFoundException;
+
+/*
+    Member 변경
+    같은 Member 를 동시에 바꾸면 나중에 커밋하는 쪽이 OptimisticLockException => 새로 읽어서 다시 적용 (RetryOnOptimisticLock)
+    비관적 락(select ... for update) 처럼 읽는 동안 row 를 잡고 있지 않아서 충돌이 드문 경우 처리량이 훨씬 좋음
+ */
+@Service
+@RequiredArgsConstructor
+public class MemberService {
+    private final MemberRepository memberRepository;
+    private final TeamRepository teamRepository;
+
+    // 인기 팀 이동이 몰릴 때를 생각해서 기본값(3)보다 넉넉하게
+    @RetryOnOptimisticLock(maxAttempts = 5)
+    @Transactional
+    public Member changeTeam(Long memberId, Long teamId){
+        Member member = memberRepository.findById(memberId)
+                .orElseThrow(() -> new EntityNotFoundException("member " + memberId));
+        Team team = teamRepository.findById(teamId)
+                .orElseThrow(() -> new EntityNotFoundException("team " + teamId));
+        member.changeTeam(team);
+        return member;
+    }
+}
@@ -0,0 +1,109 @@
+package study.datajpa.service.retry;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.hibernate.StaleStateException;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.OptimisticLockException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadLocalRandom;
+
+/*
+    @RetryOnOptimisticLock 처리
+    - @Transactional(TransactionInterceptor, 기본 order 가 LOWEST_PRECEDENCE) 보다 바깥에서 돌아야
+      커밋(flush) 시점에 나는 충돌까지 잡고, 재시도할 때 새 트랜잭션이 시작됨 => order 를 더 높게
+    - metric (tag: method)
+      datajpa.optimistic.conflicts : 충돌 횟수
+      datajpa.optimistic.retries   : 재시도 횟수
+      datajpa.optimistic.exhausted : 재시도를 다 쓰고도 실패한 횟수
+ */
+@Slf4j
+@Aspect
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 100)
+@RequiredArgsConstructor
+public class OptimisticLockRetryAspect {
+    private final MeterRegistry meterRegistry;
+
+    @Around("@annotation(study.datajpa.service.retry.RetryOnOptimisticLock) " +
+            "|| @within(study.datajpa.service.retry.RetryOnOptimisticLock)")
+    public Object retry(ProceedingJoinPoint joinPoint) throws Throwable {
+        RetryOnOptimisticLock retry = retryOf(joinPoint);
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return joinPoint.proceed();
+        }
+
+        String method = joinPoint.getSignature().getDeclaringType().getSimpleName() + "." + joinPoint.getSignature().getName();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return joinPoint.proceed();
+            } catch (RuntimeException e) {
+                if (!isOptimisticLockFailure(e)) {
+                    throw e;
+                }
+                counter("datajpa.optimistic.conflicts", method).increment();
+                if (attempt >= retry.maxAttempts()) {
+                    counter("datajpa.optimistic.exhausted", method).increment();
+                    log.warn("{} 낙관적 락 충돌, {}번 시도 후 포기", method, attempt);
+                    throw e;
+                }
+                counter("datajpa.optimistic.retries", method).increment();
+                log.debug("{} 낙관적 락 충돌, 재시도 {}/{}", method, attempt, retry.maxAttempts() - 1);
+                if (!backoff(retry, attempt)) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private boolean backoff(RetryOnOptimisticLock retry, int attempt){
+        long ceiling = Math.min(retry.maxBackoffMillis(), retry.backoffMillis() << Math.min(attempt - 1, 20));
+        long sleep = ceiling <= 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling + 1); // full jitter
+        try {
+            Thread.sleep(sleep);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    // Spring 예외로 변환된 것(커밋 시점)과 JPA/Hibernate 예외 그대로인 것(flush 를 직접 부른 경우) 모두
+    private boolean isOptimisticLockFailure(Throwable e){
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof OptimisticLockingFailureException
+                    || cause instanceof OptimisticLockException
+                    || cause instanceof StaleStateException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private RetryOnOptimisticLock retryOf(ProceedingJoinPoint joinPoint){
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Method specificMethod = AopUtils.getMostSpecificMethod(method, joinPoint.getTarget().getClass());
+        RetryOnOptimisticLock retry = AnnotatedElementUtils.findMergedAnnotation(specificMethod, RetryOnOptimisticLock.class);
+        if (retry == null) {
+            retry = AnnotatedElementUtils.findMergedAnnotation(specificMethod.getDeclaringClass(), RetryOnOptimisticLock.class);
+        }
+        return retry;
+    }
+
+    private Counter counter(String name, String method){
+        return Counter.builder(name).tag("method", method).register(meterRegistry);
+    }
+}
@@ -0,0 +1,27 @@
+package study.datajpa.service.retry;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/*
+    낙관적 락 충돌(OptimisticLockException) 이 나면 메서드를 처음부터 다시 실행 (OptimisticLockRetryAspect)
+    - @Transactional 과 같이 붙이면 트랜잭션 바깥에서 재시도 => 매번 새 트랜잭션 + 새 영속성 컨텍스트에서 다시 읽음
+    - 재시도 사이에는 jitter 를 준 지수 backoff (동시에 충돌한 요청들이 또 같은 순간에 몰리지 않도록)
+    !! 이미 바깥 트랜잭션 안에서 호출되면 재시도하지 않음 (바깥 트랜잭션은 이미 rollback-only 라서 다시 해도 소용없음)
+    !! 다시 실행해도 되는 메서드에만 (메일 발송 같은 외부 호출이 섞여 있으면 중복으로 나감)
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RetryOnOptimisticLock {
+    // 처음 실행을 포함한 최대 실행 횟수
+    int maxAttempts() default 3;
+
+    // 첫 재시도 backoff 상한, 재시도마다 2배 (실제 대기는 0 ~ 상한 사이 랜덤)
+    long backoffMillis() default 20;
+
+    long maxBackoffMillis() default 500;
+}
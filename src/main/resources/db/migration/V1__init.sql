@@ -0,0 +1,23 @@
+-- fast-startup 프로필(ddl-auto: validate)에서 쓰는 스키마
+-- Entity 매핑을 바꾸면 여기에 새 버전(V2__...)을 추가해야 validate 를 통과함
+
+create sequence member_seq start with 1 increment by 100;
+create sequence team_seq start with 1 increment by 100;
+
+create table team (
+    team_id bigint not null,
+    name varchar(255),
+    primary key (team_id)
+);
+
+create table member (
+    member_id bigint not null,
+    age integer not null,
+    username varchar(255),
+    team_id bigint,
+    primary key (member_id),
+    constraint fk_member_team foreign key (team_id) references team (team_id)
+);
+
+create index idx_member_age_username_id on member (age, username, member_id);
+create index idx_member_team_id on member (team_id);
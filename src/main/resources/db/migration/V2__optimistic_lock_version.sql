@@ -0,0 +1,5 @@
+-- 낙관적 락(@Version) 컬럼
+-- 기존 row 와 Entity 를 거치지 않고 넣는 row 도 0 부터 시작하도록 default 0
+
+alter table member add column version bigint default 0 not null;
+alter table team add column version bigint default 0 not null;
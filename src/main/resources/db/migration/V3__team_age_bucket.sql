@@ -0,0 +1,12 @@
+-- 팀 통계 집계 테이블 (TeamAgeBucket), 기존 member 로 채워둠
+
+create table team_age_bucket (
+    team_id bigint not null,
+    age integer not null,
+    stripe integer not null,
+    member_count bigint not null,
+    primary key (team_id, age, stripe)
+);
+
+insert into team_age_bucket (team_id, age, stripe, member_count)
+select team_id, age, 0, count(*) from member where team_id is not null group by team_id, age;
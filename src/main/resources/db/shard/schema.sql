@@ -0,0 +1,25 @@
+-- Member 샤드 스키마 (ShardedMemberRepository), 샤드마다 같은 스키마
+-- id 는 샤드마다 시퀀스 * 샤드 수 + 샤드 번호 => id 만 보고 어느 샤드인지 알 수 있음
+
+create sequence if not exists team_seq start with 1 increment by 1;
+create sequence if not exists member_seq start with 1 increment by 1;
+
+create table if not exists team (
+    team_id bigint not null,
+    name varchar(255),
+    primary key (team_id)
+);
+
+create table if not exists member (
+    member_id bigint not null,
+    age integer not null,
+    username varchar(255),
+    team_id bigint,
+    version bigint default 0 not null,
+    primary key (member_id),
+    constraint fk_shard_member_team foreign key (team_id) references team (team_id)
+);
+
+create index if not exists idx_member_age_username_id on member (age, username, member_id);
+create index if not exists idx_member_team_id on member (team_id);
+create index if not exists idx_member_username on member (username);
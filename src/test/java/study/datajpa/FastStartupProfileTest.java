@@ -0,0 +1,54 @@
+package study.datajpa;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Member;
+import study.datajpa.monitoring.StartupEndpoint;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+    fast-startup 프로필: Flyway 로 만든 스키마가 Entity 매핑과 맞는지(ddl-auto: validate) 여기서 같이 확인됨
+    => Entity 를 바꾸고 마이그레이션을 안 만들면 이 테스트가 깨짐
+ */
+@SpringBootTest(properties = "spring.datasource.hikari.jdbc-url=jdbc:h2:mem:fastStartup")
+@ActiveProfiles("fast-startup")
+@Transactional
+class FastStartupProfileTest {
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    StartupEndpoint startupEndpoint;
+
+    @Test
+    public void schemaComesFromMigrations(){
+        Integer migrations = jdbcTemplate.queryForObject(
+                "select count(*) from \"flyway_schema_history\" where \"success\" = true", Integer.class);
+        Member member = memberRepository.save(new Member("fastStartup", 10));
+
+        assertThat(migrations).isPositive();
+        assertThat(memberRepository.findById(member.getId())).isPresent();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void startupTimingReport(){
+        Map<String, Object> report = startupEndpoint.report();
+
+        assertThat((Long) report.get("totalMs")).isPositive();
+        assertThat((Map<String, Long>) report.get("phasesMs")).containsKeys("environment", "context", "refresh", "runners");
+        assertThat((Map<String, Long>) report.get("slowestBeansMs")).isNotEmpty();
+    }
+}
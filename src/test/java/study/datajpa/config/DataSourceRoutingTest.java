@@ -0,0 +1,205 @@
+package study.datajpa.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.dto.MemberSummaryDto;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+import study.datajpa.repository.search.MemberUsernameIndex;
+import study.datajpa.repository.stats.TeamStatsReconciler;
+import study.datajpa.repository.writebehind.MemberWriteBehindBuffer;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+    primary, replica 를 서로 다른 H2 DB 로 띄워서 어느 쪽에서 읽었는지 데이터로 구분
+    (replica 에는 마이그레이션으로 스키마를 만들고 replica 에만 있는 row 를 넣어둠)
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.hikari.jdbc-url=jdbc:h2:mem:routingPrimary",
+        "datajpa.datasource.replica.enabled=true",
+        "datajpa.datasource.replica.hikari.jdbc-url=jdbc:h2:mem:routingReplica",
+        "datajpa.write-behind.enabled=true",
+        "datajpa.write-behind.flush-interval=1h"
+})
+class DataSourceRoutingTest {
+
+    @Autowired
+    DataSource dataSource;
+
+    ReadWriteRoutingDataSource routingDataSource;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberWriteBehindBuffer writeBehindBuffer;
+
+    @Autowired
+    MemberUsernameIndex memberUsernameIndex;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @Autowired
+    TeamStatsReconciler teamStatsReconciler;
+
+    @BeforeEach
+    void replicaSchema() throws SQLException {
+        routingDataSource = dataSource.unwrap(ReadWriteRoutingDataSource.class);
+        HikariDataSource replicaDataSource = routingDataSource.getReplica();
+        JdbcTemplate replica = new JdbcTemplate(replicaDataSource);
+        if (replica.queryForObject("select count(*) from information_schema.tables where table_name = 'MEMBER'", Integer.class) == 0) {
+            new ResourceDatabasePopulator(new ClassPathResource("db/migration/V1__init.sql"),
+                    new ClassPathResource("db/migration/V2__optimistic_lock_version.sql")).execute(replicaDataSource);
+            replica.update("insert into member (member_id, username, age) values (1, 'onReplica', 10)");
+        }
+    }
+
+    @Test
+    public void readOnlyTransactionsGoToReplica(){
+        long replicaRoutes = routingDataSource.getReplicaRoutes();
+
+        // 인터페이스에 선언한 쿼리 메소드는 SimpleJpaRepository 의 readOnly 트랜잭션을 물려받지 않음 -> 직접 readOnly 로 감쌈
+        Integer onReplica = readOnly().execute(status -> memberRepository.findListByUsername("onReplica").size());
+        assertThat(onReplica).isEqualTo(1);
+        assertThat(routingDataSource.getReplicaRoutes()).isGreaterThan(replicaRoutes);
+    }
+
+    @Test
+    public void writesGoToPrimary(){
+        memberRepository.save(new Member("onPrimary", 20));
+
+        Integer onPrimary = transactionTemplate.execute(status -> memberRepository.findListByUsername("onPrimary").size());
+        assertThat(onPrimary).isEqualTo(1);
+        // replica 로는 복제되지 않았으므로
+        Integer onReplica = readOnly().execute(status -> memberRepository.findListByUsername("onPrimary").size());
+        assertThat(onReplica).isZero();
+    }
+
+    @Test
+    public void writeBehindReadsItsOwnFlushedWrites(){
+        Long id = memberRepository.save(new Member("writeBehindRouting", 30)).getId();
+        writeBehindBuffer.updateAge(id, 31);
+        writeBehindBuffer.flush();
+
+        // 변경은 이미 flush 되어 buffer 에 없음 => replica 에서 읽었다면 row 자체가 없음
+        assertThat(writeBehindBuffer.find(id)).map(MemberSummaryDto::getAge).contains(31);
+        Optional<MemberSummaryDto> inReadOnly = readOnly().execute(status -> writeBehindBuffer.find(id));
+        assertThat(inReadOnly).map(MemberSummaryDto::getAge).contains(31);
+    }
+
+    @Test
+    public void usernameIndexRebuildsFromPrimary() throws InterruptedException {
+        // Entity 를 거치지 않고 primary 에만 넣음 => 인덱스에 들어가는 건 rebuild 로 읽었을 때뿐
+        new JdbcTemplate(routingDataSource.getPrimary())
+                .update("insert into member (member_id, username, age) values (900100001, 'indexRouting', 40)");
+        memberUsernameIndex.scheduleRebuild();
+
+        waitFor(() -> memberUsernameIndex.isReady() && memberUsernameIndex.search("indexRouting", 10).size() == 1);
+        // replica 에만 있는 row 는 없음
+        assertThat(memberUsernameIndex.search("onReplica", 10)).isEmpty();
+    }
+
+    @Test
+    public void teamStatsVerifyReadsPrimary(){
+        Long teamId = teamRepository.save(new Team("statsRouting")).getId();
+        // 집계를 거치지 않고 primary 에만 넣음 => primary 에서 비교해야 틀어진 게 보임 (replica 에는 집계 테이블도 없음)
+        new JdbcTemplate(routingDataSource.getPrimary())
+                .update("insert into member (member_id, username, age, team_id) values (900100002, 'statsRouting', 50, ?)", teamId);
+
+        assertThat(teamStatsReconciler.verify().getDrifted()).contains(teamId);
+        teamStatsReconciler.reconcile();
+        assertThat(teamStatsReconciler.verify().getDrifted()).doesNotContain(teamId);
+    }
+
+    @Test
+    public void fallsBackToPrimaryWhenReplicaIsDown() throws Exception {
+        HikariDataSource primary = new HikariDataSource();
+        primary.setJdbcUrl("jdbc:h2:mem:fallbackPrimary");
+        HikariDataSource replica = new HikariDataSource();
+        replica.setJdbcUrl("jdbc:h2:tcp://localhost:1/nowhere");
+        replica.setInitializationFailTimeout(-1);
+        replica.setConnectionTimeout(250);
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(primary, replica, Duration.ofMinutes(1), 2);
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        try (Connection first = routing.getConnection();
+             Connection second = routing.getConnection();
+             Connection third = routing.getConnection()) {
+            assertThat(first.getMetaData().getURL()).isEqualTo("jdbc:h2:mem:fallbackPrimary");
+            assertThat(second.getMetaData().getURL()).isEqualTo("jdbc:h2:mem:fallbackPrimary");
+            assertThat(third.getMetaData().getURL()).isEqualTo("jdbc:h2:mem:fallbackPrimary");
+        } finally {
+            TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+            primary.close();
+            replica.close();
+        }
+        // 첫번째 실패로는 내리지 않고, 두번째 연속 실패에서 내림 => 세번째는 replica 를 시도하지 않음
+        assertThat(routing.getFallbacks()).isEqualTo(2);
+        assertThat(routing.getPrimaryRoutes()).isEqualTo(3);
+    }
+
+    @Test
+    public void busyReplicaPoolIsNotMarkedDown() throws Exception {
+        HikariDataSource primary = new HikariDataSource();
+        primary.setJdbcUrl("jdbc:h2:mem:busyPrimary");
+        HikariDataSource replica = new HikariDataSource();
+        replica.setJdbcUrl("jdbc:h2:mem:busyReplica");
+        replica.setMaximumPoolSize(1);
+        replica.setConnectionTimeout(250);
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(primary, replica, Duration.ofMinutes(1), 1);
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        try {
+            try (Connection held = routing.getConnection(); Connection waited = routing.getConnection()) {
+                assertThat(held.getMetaData().getURL()).isEqualTo("jdbc:h2:mem:busyReplica");
+                // 풀이 꽉 차서 대기 시간 초과 -> 이번 요청만 primary
+                assertThat(waited.getMetaData().getURL()).isEqualTo("jdbc:h2:mem:busyPrimary");
+            }
+            // threshold 가 1 이어도 대기 시간 초과는 실패로 안 세서 바로 다시 replica
+            try (Connection next = routing.getConnection()) {
+                assertThat(next.getMetaData().getURL()).isEqualTo("jdbc:h2:mem:busyReplica");
+            }
+        } finally {
+            TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+            primary.close();
+            replica.close();
+        }
+        assertThat(routing.getFallbacks()).isEqualTo(1);
+        assertThat(routing.getReplicaRoutes()).isEqualTo(2);
+    }
+
+    private void waitFor(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 100 && !condition.getAsBoolean(); i++) {
+            Thread.sleep(100);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+
+    private TransactionTemplate readOnly(){
+        TransactionTemplate template = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        template.setReadOnly(true);
+        return template;
+    }
+}
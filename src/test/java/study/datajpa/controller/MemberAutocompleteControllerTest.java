@@ -0,0 +1,31 @@
+package study.datajpa.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class MemberAutocompleteControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Test
+    public void limitMustBePositive() throws Exception {
+        // 인덱스가 준비되기 전(DB 조회)이든 후든 같은 400
+        mockMvc.perform(get("/members/autocomplete").param("prefix", "a").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/members/autocomplete").param("prefix", "a").param("limit", "-1"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/members/autocomplete").param("prefix", "a").param("limit", "1"))
+                .andExpect(status().isOk());
+    }
+}
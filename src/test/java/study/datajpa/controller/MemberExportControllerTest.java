@@ -0,0 +1,95 @@
+package study.datajpa.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberJpaRepository;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class MemberExportControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @Test
+    public void exportNdjson() throws Exception {
+        Team team = teamRepository.save(new Team("exportTeam"));
+        memberRepository.save(new Member("export1", 51, team));
+        memberRepository.save(new Member("export2", 51));
+
+        String body = mockMvc.perform(get("/members/export/ndjson"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+
+        List<MemberDto> rows = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            rows.add(objectMapper.readValue(line, MemberDto.class));
+        }
+        assertThat(rows).extracting("username", "teamname")
+                .contains(tuple("export1", "exportTeam"), tuple("export2", null));
+    }
+
+    @Test
+    public void exportCsv() throws Exception {
+        memberRepository.save(new Member("csv,\"quoted\"", 52));
+
+        String body = mockMvc.perform(get("/members/export/csv"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        List<String> lines = Arrays.asList(body.split("\n"));
+        assertThat(lines.get(0)).isEqualTo("id,username,teamname");
+        assertThat(lines).anyMatch(line -> line.endsWith(",\"csv,\"\"quoted\"\"\","));
+    }
+
+    @Test
+    public void streamAll_JPA_StatelessSession(){
+        memberJpaRepository.save(new Member("stateless1", 53));
+        memberJpaRepository.save(new Member("stateless2", 53));
+
+        List<String> usernames;
+        try (Stream<Member> members = memberJpaRepository.streamAll()) {
+            usernames = members.filter(m -> m.getAge() == 53)
+                    .map(Member::getUsername)
+                    .collect(Collectors.toList());
+        }
+
+        assertThat(usernames).containsExactlyInAnyOrder("stateless1", "stateless2");
+    }
+}
@@ -0,0 +1,105 @@
+package study.datajpa.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.monitoring.QueryCounter;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class MemberPageControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    QueryCounter queryCounter;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @Test
+    public void streamsContentThenPageMetadata() throws Exception {
+        Team team = teamRepository.save(new Team("pageTeam"));
+        for (int i = 1; i <= 5; i++) {
+            memberRepository.save(new Member("page" + i, 61, i % 2 == 0 ? null : team));
+        }
+
+        JsonNode body = fetch("/members?age=61&page=0&size=3&sort=username,desc&count=EXACT");
+
+        assertThat(usernames(body)).containsExactly("page5", "page4", "page3");
+        assertThat(body.get("content").get(0).get("teamname").asText()).isEqualTo("pageTeam");
+        assertThat(body.get("content").get(1).get("teamname").isNull()).isTrue();
+        JsonNode page = body.get("page");
+        assertThat(page.get("numberOfElements").asInt()).isEqualTo(3);
+        assertThat(page.get("totalElements").asLong()).isEqualTo(5);
+        assertThat(page.get("totalPages").asInt()).isEqualTo(2);
+        assertThat(page.get("totalAccuracy").asText()).isEqualTo("EXACT");
+    }
+
+    @Test
+    public void lastPageSkipsCountQuery() throws Exception {
+        for (int i = 1; i <= 5; i++) {
+            memberRepository.save(new Member("pageLast" + i, 62));
+        }
+        memberRepository.flush();
+
+        JsonNode[] body = new JsonNode[1];
+        long queries = queryCounter.count(() -> body[0] = fetch("/members?age=62&page=1&size=3"));
+
+        // content 쿼리 하나만 (row 수가 size 보다 적으니 total = offset + rows)
+        assertThat(queries).isEqualTo(1);
+        assertThat(usernames(body[0])).containsExactly("pageLast4", "pageLast5");
+        assertThat(body[0].get("page").get("totalElements").asLong()).isEqualTo(5);
+    }
+
+    @Test
+    public void emptyPage() throws Exception {
+        JsonNode body = fetch("/members?age=63");
+
+        assertThat(body.get("content").size()).isZero();
+        assertThat(body.get("page").get("totalElements").asLong()).isZero();
+    }
+
+    private JsonNode fetch(String url){
+        try {
+            String json = mockMvc.perform(get(url))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentTypeCompatibleWith("application/json"))
+                    .andReturn().getResponse().getContentAsString();
+            return objectMapper.readTree(json);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private List<String> usernames(JsonNode body){
+        List<String> usernames = new ArrayList<>();
+        body.get("content").forEach(member -> usernames.add(member.get("username").asText()));
+        return usernames;
+    }
+}
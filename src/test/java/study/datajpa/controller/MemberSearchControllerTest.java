@@ -0,0 +1,53 @@
+package study.datajpa.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class MemberSearchControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Test
+    public void keysetSizeIsClampedAndMustBePositive() throws Exception {
+        for (int i = 1; i <= 3; i++) {
+            memberRepository.save(new Member("searchSize" + i, 161));
+        }
+
+        // size + 1 이 넘치지 않고 max-size 로 줄어서 조회됨
+        String json = mockMvc.perform(get("/members/search/keyset")
+                .param("usernamePrefix", "searchSize")
+                .param("size", String.valueOf(Integer.MAX_VALUE)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode body = objectMapper.readTree(json);
+        assertThat(body.get("content").size()).isEqualTo(3);
+        assertThat(body.get("nextCursor").isNull()).isTrue();
+
+        mockMvc.perform(get("/members/search/keyset").param("size", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/members/search/keyset").param("size", "-1"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,123 @@
+package study.datajpa.entity;
+
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.listener.TeamMembersCacheInvalidator;
+import study.datajpa.monitoring.QueryCounter;
+import study.datajpa.monitoring.SecondLevelCacheEndpoint;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+    2차 캐시는 커밋이 되어야 다른 트랜잭션에서 보이므로 TransactionTemplate 으로 트랜잭션을 나눠서 확인
+ */
+@SpringBootTest
+class SecondLevelCacheTest {
+
+    @Autowired
+    EntityManagerFactory emf;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    QueryCounter queryCounter;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @Autowired
+    SecondLevelCacheEndpoint secondLevelCacheEndpoint;
+
+    @Test
+    public void findByIdHitsCacheAfterFirstLoad(){
+        Long teamId = transactionTemplate.execute(status -> teamRepository.save(new Team("l2Team")).getId());
+
+        transactionTemplate.execute(status -> teamRepository.findById(teamId).orElseThrow());
+        long count = queryCounter.count(() ->
+                transactionTemplate.execute(status -> teamRepository.findById(teamId).orElseThrow()));
+
+        assertThat(count).isZero();
+        assertThat(secondLevelCacheEndpoint.regions()).containsKey(Team.class.getName());
+    }
+
+    @Test
+    public void queryCacheForNamedQuery(){
+        transactionTemplate.execute(status -> memberRepository.save(new Member("l2QueryCache", 41)));
+
+        transactionTemplate.execute(status -> memberRepository.findByUsername("l2QueryCache"));
+        long count = queryCounter.count(() -> transactionTemplate.execute(status -> {
+            assertThat(memberRepository.findByUsername("l2QueryCache")).hasSize(1);
+            return null;
+        }));
+
+        assertThat(count).isZero();
+
+        // Member 테이블이 바뀌면 쿼리 캐시가 무효화되어 새로 조회됨
+        transactionTemplate.execute(status -> memberRepository.save(new Member("l2QueryCache", 42)));
+        Integer size = transactionTemplate.execute(status -> memberRepository.findByUsername("l2QueryCache").size());
+        assertThat(size).isEqualTo(2);
+    }
+
+    @Test
+    public void changeTeamEvictsMembersCollectionOfOldTeam(){
+        Long[] ids = transactionTemplate.execute(status -> {
+            Team teamA = teamRepository.save(new Team("l2TeamA"));
+            Team teamB = teamRepository.save(new Team("l2TeamB"));
+            Member member = memberRepository.save(new Member("l2Mover", 43, teamA));
+            return new Long[]{teamA.getId(), teamB.getId(), member.getId()};
+        });
+        Long teamAId = ids[0], teamBId = ids[1], memberId = ids[2];
+
+        // 두 팀의 members 컬렉션을 캐시에 올려둠
+        transactionTemplate.execute(status -> {
+            teamRepository.findById(teamAId).orElseThrow().getMembers().size();
+            teamRepository.findById(teamBId).orElseThrow().getMembers().size();
+            return null;
+        });
+        assertThat(containsMembers(teamAId)).isTrue();
+        assertThat(containsMembers(teamBId)).isTrue();
+
+        transactionTemplate.execute(status -> {
+            Member member = memberRepository.findById(memberId).orElseThrow();
+            member.changeTeam(teamRepository.findById(teamBId).orElseThrow());
+            return null;
+        });
+
+        // 떠난 팀의 캐시는 지워지고, 새 팀은 변경된 목록으로 다시 읽힘
+        assertThat(containsMembers(teamAId)).isFalse();
+        Integer[] sizes = transactionTemplate.execute(status -> new Integer[]{
+                teamRepository.findById(teamAId).orElseThrow().getMembers().size(),
+                teamRepository.findById(teamBId).orElseThrow().getMembers().size()});
+        assertThat(sizes).containsExactly(0, 1);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void endpointReportsHitsAndMisses(){
+        Long teamId = transactionTemplate.execute(status -> teamRepository.save(new Team("l2Stats")).getId());
+        transactionTemplate.execute(status -> teamRepository.findById(teamId).orElseThrow());
+        transactionTemplate.execute(status -> teamRepository.findById(teamId).orElseThrow());
+
+        Map<String, Object> team = (Map<String, Object>) secondLevelCacheEndpoint.regions().get(Team.class.getName());
+
+        assertThat((Long) team.get("hits")).isPositive();
+        assertThat(team).containsKeys("misses", "puts", "evictions", "hitRatio");
+    }
+
+    private boolean containsMembers(Long teamId){
+        return emf.unwrap(SessionFactory.class).getCache()
+                .containsCollection(TeamMembersCacheInvalidator.ROLE, teamId);
+    }
+}
@@ -0,0 +1,106 @@
+package study.datajpa.entity;
+
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.monitoring.QueryCounter;
+import study.datajpa.repository.MemberJpaRepository;
+import study.datajpa.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class TeamMembersTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    QueryCounter queryCounter;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Test
+    public void membersOfManyTeamsAreBatchFetched(){
+        List<Long> teamIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Team team = new Team("batchTeam" + i);
+            em.persist(team);
+            em.persist(new Member("batch" + i, 71, team));
+            teamIds.add(team.getId());
+        }
+        em.flush();
+        em.clear();
+
+        List<Team> teams = em.createQuery("select t from Team t where t.id in :ids", Team.class)
+                .setParameter("ids", teamIds)
+                .getResultList();
+
+        // 첫 팀의 members 를 읽을 때 나머지 팀들 것도 IN 으로 같이 로딩됨
+        long count = queryCounter.count(() -> teams.forEach(team -> team.getMembers().iterator().next()));
+
+        assertThat(count).isEqualTo(1);
+        assertThat(teams).allMatch(team -> Hibernate.isInitialized(team.getMembers()));
+    }
+
+    @Test
+    public void sizeContainsAndChangeTeamDoNotInitialize(){
+        Team team = new Team("extraLazy");
+        em.persist(team);
+        for (int i = 0; i < 3; i++) {
+            em.persist(new Member("extraLazy" + i, 72, team));
+        }
+        Member mover = new Member("mover", 72);
+        em.persist(mover);
+        em.flush();
+        em.clear();
+
+        Team found = em.find(Team.class, team.getId());
+        Member member = em.find(Member.class, mover.getId());
+        member.changeTeam(found);
+
+        assertThat(Hibernate.isInitialized(found.getMembers())).isFalse();
+        em.flush();
+        assertThat(found.getMembers().size()).isEqualTo(4);
+        assertThat(found.getMembers().contains(member)).isTrue();
+        assertThat(Hibernate.isInitialized(found.getMembers())).isFalse();
+
+        // 로딩되면 큐에 쌓아둔 add 도 반영되어 있음
+        assertThat(found.getMembers()).hasSize(4).contains(member);
+    }
+
+    @Test
+    public void pagedRoster(){
+        Team team = new Team("roster");
+        em.persist(team);
+        for (int i = 0; i < 5; i++) {
+            em.persist(new Member("roster" + i, 73, team));
+        }
+        em.flush();
+        em.clear();
+
+        Page<Member> page = memberRepository.findByTeamId(team.getId(), PageRequest.of(1, 2, Sort.by("username")));
+        List<Member> jpaPage = memberJpaRepository.findByTeamId(team.getId(), 2, 2);
+
+        assertThat(page.getTotalElements()).isEqualTo(5);
+        assertThat(page.getContent()).extracting(Member::getUsername).containsExactly("roster2", "roster3");
+        assertThat(jpaPage).extracting(Member::getUsername).containsExactly("roster2", "roster3");
+        assertThat(memberJpaRepository.countByTeamId(team.getId())).isEqualTo(5);
+        assertThat(memberRepository.existsByTeamIdAndId(team.getId(), page.getContent().get(0).getId())).isTrue();
+    }
+}
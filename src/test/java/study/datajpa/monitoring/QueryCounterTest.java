@@ -0,0 +1,104 @@
+package study.datajpa.monitoring;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@Transactional
+class QueryCounterTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    QueryCounter queryCounter;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @Test
+    public void lazyTeamIsBatchFetched(){
+        saveMembersInDifferentTeams("nPlusOne", 61);
+
+        long count = queryCounter.count(() ->
+                memberRepository.findByUsername("nPlusOne").forEach(m -> m.getTeam().getName()));
+
+        // member 조회 1번 + team 3개를 IN 으로 한번에 (default_batch_fetch_size 가 없으면 1 + 3 의 N+1)
+        assertThat(count).isEqualTo(1 + 1);
+    }
+
+    @Test
+    public void entityGraphLoadsTeamInOneQuery(){
+        saveMembersInDifferentTeams("entityGraph", 62);
+
+        List<Member> members = queryCounter.expectAtMost(1, () -> {
+            List<Member> result = memberRepository.findEntityGraphByUsername("entityGraph");
+            result.forEach(m -> m.getTeam().getName());
+            return result;
+        });
+
+        assertThat(members).hasSize(3);
+    }
+
+    @Test
+    public void pagingWithTeam(){
+        saveMembersInDifferentTeams("pagingWithTeam", 63);
+
+        Page<Member> page = queryCounter.expectAtMost(2, () -> {
+            Page<Member> result = memberRepository.findWithTeamByAge(63, PageRequest.of(0, 2));
+            result.forEach(m -> m.getTeam().getName());
+            return result;
+        });
+
+        assertThat(page.getContent()).hasSize(2);
+        assertThat(page.getTotalElements()).isEqualTo(3);
+    }
+
+    @Test
+    public void expectAtMostFailsWhenExceeded(){
+        saveMembersInDifferentTeams("exceeded", 64);
+
+        assertThatThrownBy(() -> queryCounter.expectAtMost(1, () -> {
+            memberRepository.findByUsername("exceeded").forEach(m -> m.getTeam().getName());
+            return null;
+        })).isInstanceOf(QueryCountExceededException.class);
+    }
+
+    @Test
+    public void nestedScopeIsAddedToParent(){
+        try (QueryCounter.Scope outer = queryCounter.start()) {
+            memberRepository.findByUsername("nobody");
+            long inner = queryCounter.count(() -> memberRepository.findListByUsername("nobody"));
+
+            assertThat(inner).isEqualTo(1);
+            assertThat(outer.getCount()).isEqualTo(2);
+        }
+    }
+
+    private void saveMembersInDifferentTeams(String username, int age){
+        for (int i = 0; i < 3; i++) {
+            Team team = teamRepository.save(new Team(username + "Team" + i));
+            memberRepository.save(new Member(username, age, team));
+        }
+        em.flush();
+        em.clear();
+    }
+}
@@ -0,0 +1,73 @@
+package study.datajpa.monitoring;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberJpaRepository;
+import study.datajpa.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class RepositoryMetricsTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    SqlStatisticsListener sqlStatisticsListener;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Test
+    public void repositoryMethodsAreTimed(){
+        memberRepository.findListByUsername("metrics");
+        memberJpaRepository.findByUsername("metrics");
+
+        assertThat(timer("MemberRepository", "findListByUsername").count()).isPositive();
+        assertThat(timer("MemberJpaRepository", "findByUsername").count()).isPositive();
+    }
+
+    @Test
+    public void sqlStatementsAreRecorded(){
+        memberRepository.save(new Member("sqlStats", 51));
+        em.flush();
+        memberRepository.findListByUsername("sqlStats");
+
+        assertThat(sqlStatisticsListener.getStatements())
+                .filteredOn(stats -> stats.getSql().startsWith("insert into member"))
+                .first()
+                .satisfies(stats -> assertThat(stats.getRows()).isPositive());
+        assertThat(meterRegistry.find(SqlStatisticsListener.METRIC_NAME).tag("type", "select").timer()).isNotNull();
+    }
+
+    @Test
+    public void poolAndHibernateMetricsAreExposed(){
+        assertThat(meterRegistry.find("hikaricp.connections.acquire").timer()).isNotNull();
+        assertThat(meterRegistry.find("hibernate.entities.loads").meter()).isNotNull();
+        assertThat(meterRegistry.find("hibernate.flushes").meter()).isNotNull();
+        assertThat(meterRegistry.find("hibernate.second.level.cache.requests").meter()).isNotNull();
+    }
+
+    private Timer timer(String repository, String method){
+        return meterRegistry.get(RepositoryMetricsAspect.METRIC_NAME)
+                .tag("repository", repository)
+                .tag("method", method)
+                .timer();
+    }
+}
@@ -0,0 +1,93 @@
+package study.datajpa.monitoring;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+    prod 프로필 + slow-threshold 0 => 모든 SQL 이 "느린 SQL" 로 바인드 파라미터까지 남음
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.hikari.jdbc-url=jdbc:h2:mem:sqlLogging",
+        "datajpa.sql-log.slow-threshold=0ms"
+})
+@ActiveProfiles("prod")
+@Transactional
+class SqlLoggingListenerTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    ListAppender<ILoggingEvent> appender;
+
+    @BeforeEach
+    void captureSqlLog(){
+        appender = new ListAppender<>();
+        appender.start();
+        ((Logger) LoggerFactory.getLogger(SqlLoggingListener.LOGGER_NAME)).addAppender(appender);
+    }
+
+    @AfterEach
+    void detach(){
+        ((Logger) LoggerFactory.getLogger(SqlLoggingListener.LOGGER_NAME)).detachAppender(appender);
+    }
+
+    @Test
+    public void slowSqlIsLoggedWithRepositoryMethodAndParameters(){
+        memberRepository.save(new Member("sqlLogged", 77));
+
+        memberRepository.findListByUsername("sqlLogged");
+
+        assertThat(appender.list)
+                .filteredOn(event -> event.getLevel() == Level.WARN)
+                .extracting(ILoggingEvent::getFormattedMessage)
+                .anySatisfy(message -> assertThat(message)
+                        .contains("MemberRepository.findListByUsername")
+                        .contains("[sqlLogged]")
+                        .containsPattern("slow \\d+\\.\\dms"));
+    }
+
+    @Test
+    public void onlySampledOrSlowStatementsAreLogged(){
+        SqlLoggingProperties properties = new SqlLoggingProperties();
+        properties.setSlowThreshold(Duration.ofSeconds(10));
+        properties.setMaxParameterLength(5);
+        SqlLoggingListener listener = new SqlLoggingListener(properties);
+
+        properties.setSampleRate(0);
+        execute(listener, "select 1");
+        assertThat(appender.list).isEmpty();
+
+        properties.setSampleRate(1);
+        execute(listener, "select 2");
+        assertThat(appender.list).hasSize(1);
+        assertThat(appender.list.get(0).getLevel()).isEqualTo(Level.INFO);
+        assertThat(appender.list.get(0).getFormattedMessage()).contains("select 2");
+    }
+
+    private void execute(SqlLoggingListener listener, String sql){
+        ExecutionInfo execInfo = new ExecutionInfo();
+        execInfo.setSuccess(true);
+        List<QueryInfo> queries = List.of(new QueryInfo(sql));
+        listener.beforeQuery(execInfo, queries);
+        listener.afterQuery(execInfo, queries);
+    }
+}
@@ -0,0 +1,111 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.monitoring.QueryCounter;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/*
+    chunk 가 잘 나뉘는지 보려고 chunk 크기를 작게 한 별도 DB 사용
+    (트랜잭션 밖에서 호출하면 chunk 마다 커밋되므로 테스트 데이터는 age 를 겹치지 않게)
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.hikari.jdbc-url=jdbc:h2:mem:bulkMutation",
+        "datajpa.bulk.mutation-chunk-size=2"
+})
+class BulkMutationTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    QueryCounter queryCounter;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @Test
+    public void bulkUpdateClearsPersistenceContext(){
+        transactionTemplate.execute(status -> {
+            for (int i = 20; i < 25; i++) {
+                memberRepository.save(new Member("bulk" + i, i));
+            }
+            Member member24 = memberRepository.findListByUsername("bulk24").get(0);
+
+            QueryCounter.Scope scope = queryCounter.start();
+            long updated = memberRepository.bulkAgePlus(22);
+            scope.close();
+
+            assertThat(updated).isEqualTo(3);
+            // 5건을 2건씩 -> update 3번
+            int updates = scope.getStatements().entrySet().stream()
+                    .filter(e -> e.getKey().startsWith("update"))
+                    .mapToInt(e -> e.getValue())
+                    .sum();
+            assertThat(updates).isEqualTo(3);
+            // 영속성 컨텍스트가 비워져서 예전 값(24)이 아니라 DB 값이 나옴
+            assertThat(em.contains(member24)).isFalse();
+            assertThat(memberRepository.findById(member24.getId()).orElseThrow().getAge()).isEqualTo(25);
+
+            status.setRollbackOnly();
+            return null;
+        });
+    }
+
+    @Test
+    public void bulkUpdateBumpsVersion(){
+        Long[] ids = transactionTemplate.execute(status -> new Long[]{
+                memberRepository.save(new Member("bulkVersion", 60)).getId(),
+                teamRepository.save(new Team("bulkVersionTeam")).getId()});
+        Long memberId = ids[0], teamId = ids[1];
+
+        // bulk update 전에 읽은 Entity 를 bulk update 가 커밋된 뒤에 변경
+        assertThatThrownBy(() -> transactionTemplate.execute(status -> {
+            Member member = memberRepository.findById(memberId).orElseThrow();
+            CompletableFuture.runAsync(() -> memberRepository.bulkAgePlus(60)).join();
+            member.changeTeam(teamRepository.findById(teamId).orElseThrow());
+            return null;
+        })).isInstanceOf(ObjectOptimisticLockingFailureException.class);
+
+        // 예전 age(60) 로 덮어쓰지 않음
+        Integer age = transactionTemplate.execute(status -> memberRepository.findById(memberId).orElseThrow().getAge());
+        assertThat(age).isEqualTo(61);
+    }
+
+    @Test
+    public void bulkDeleteOutsideTransactionCommitsPerChunk(){
+        transactionTemplate.execute(status -> {
+            for (int i = 0; i < 3; i++) {
+                memberJpaRepository.save(new Member("retention" + i, 5));
+            }
+            return null;
+        });
+        assertThat(memberJpaRepository.totalCount(5)).isEqualTo(3);
+
+        long deleted = memberJpaRepository.bulkDeleteByAgeLessThan(6);
+
+        assertThat(deleted).isEqualTo(3);
+        // Entity 이벤트 없이 지워졌지만 count 캐시도 무효화됨
+        assertThat(memberJpaRepository.totalCount(5)).isZero();
+    }
+}
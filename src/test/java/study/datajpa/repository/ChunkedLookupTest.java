@@ -0,0 +1,123 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.monitoring.QueryCounter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+    병렬 조회는 다른 스레드의 트랜잭션에서 읽으므로 데이터가 커밋되어 있어야 함
+    => chunk 크기를 작게 바꾼 별도 DB 를 쓰고 TransactionTemplate 으로 커밋
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.hikari.jdbc-url=jdbc:h2:mem:chunkedLookup",
+        "datajpa.lookup.chunk-size=4",
+        "datajpa.lookup.parallelism=2",
+        "datajpa.lookup.queue-capacity=1"
+})
+class ChunkedLookupTest {
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    QueryCounter queryCounter;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @Test
+    public void findByNamesInInputOrder(){
+        transactionTemplate.execute(status -> {
+            for (int i = 0; i < 10; i++) {
+                memberRepository.save(new Member("chunk" + i, 10));
+            }
+            return null;
+        });
+        List<String> names = List.of("chunk9", "chunk3", "chunk9", "nobody", "chunk0", "chunk7", "chunk1", "chunk5");
+
+        long[] statements = new long[1];
+        List<Member> sequential = transactionTemplate.execute(status -> {
+            List<Member> result = new ArrayList<>();
+            statements[0] = queryCounter.count(() -> result.addAll(memberRepository.findByNamesInChunks(names, false)));
+            return result;
+        });
+        List<Member> parallel = memberRepository.findByNamesInChunks(names, true);
+
+        List<String> expected = List.of("chunk9", "chunk3", "chunk0", "chunk7", "chunk1", "chunk5");
+        assertThat(usernames(sequential)).containsExactlyElementsOf(expected);
+        assertThat(usernames(parallel)).containsExactlyElementsOf(expected);
+        // 중복 제거 후 7개 -> chunk 4개씩 2번
+        assertThat(statements[0]).isEqualTo(2);
+    }
+
+    @Test
+    public void inClauseIsPaddedToPowerOfTwo(){
+        List<String> sql = new ArrayList<>();
+        transactionTemplate.execute(status -> {
+            try (QueryCounter.Scope scope = queryCounter.start()) {
+                memberRepository.findByNamesInChunks(List.of("a", "b", "c"), false);
+                sql.addAll(scope.getStatements().keySet());
+            }
+            return null;
+        });
+
+        // 3개를 넘겨도 IN 절은 4칸
+        assertThat(sql).hasSize(1);
+        assertThat(sql.get(0).chars().filter(c -> c == '?').count()).isEqualTo(4);
+    }
+
+    @Test
+    public void multiGetByIds(){
+        List<Long> teamIds = transactionTemplate.execute(status -> {
+            List<Long> ids = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+                ids.add(teamRepository.save(new Team("multiGet" + i)).getId());
+            }
+            return ids;
+        });
+        List<Long> request = List.of(teamIds.get(5), -1L, teamIds.get(0), teamIds.get(3), teamIds.get(5), teamIds.get(1));
+
+        List<Team> sequential = transactionTemplate.execute(status -> teamRepository.findAllByIdInChunks(request, false));
+        List<Team> parallel = teamRepository.findAllByIdInChunks(request, true);
+
+        List<Long> expected = List.of(teamIds.get(5), teamIds.get(0), teamIds.get(3), teamIds.get(1));
+        assertThat(sequential).extracting(Team::getId).containsExactlyElementsOf(expected);
+        assertThat(parallel).extracting(Team::getId).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    public void moreChunksThanThreadsAndQueue(){
+        List<Long> teamIds = transactionTemplate.execute(status -> {
+            List<Long> ids = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                ids.add(teamRepository.save(new Team("overflow" + i)).getId());
+            }
+            return ids;
+        });
+        List<Long> request = new ArrayList<>(teamIds);
+        Collections.reverse(request);
+
+        // chunk 10개 중 스레드 2 + 대기열 1 을 넘는 건 호출한 스레드에서 조회
+        List<Team> parallel = teamRepository.findAllByIdInChunks(request, true);
+
+        assertThat(parallel).extracting(Team::getId).containsExactlyElementsOf(request);
+    }
+
+    private List<String> usernames(List<Member> members){
+        return members.stream().map(Member::getUsername).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,113 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.paging.CursorSlice;
+import study.datajpa.repository.paging.MemberCursor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@Transactional
+class MemberKeysetPagingTest {
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Test
+    public void keysetPaging_JPA(){
+        for (int i = 1; i <= 7; i++) {
+            memberJpaRepository.save(new Member("keyset" + i, 91));
+        }
+
+        CursorSlice<Member> first = memberJpaRepository.findKeysetByAge(91, null, 3);
+        CursorSlice<Member> second = memberJpaRepository.findKeysetByAge(91, first.getNextCursor(), 3);
+        CursorSlice<Member> last = memberJpaRepository.findKeysetByAge(91, second.getNextCursor(), 3);
+
+        assertThat(usernames(first)).containsExactly("keyset1", "keyset2", "keyset3");
+        assertThat(usernames(second)).containsExactly("keyset4", "keyset5", "keyset6");
+        assertThat(usernames(last)).containsExactly("keyset7");
+        assertThat(first.hasNext()).isTrue();
+        assertThat(last.hasNext()).isFalse();
+    }
+
+    @Test
+    public void keysetPaging_SpringDataJPA_stableWhenRowsInserted(){
+        for (int i = 1; i <= 6; i++) {
+            memberRepository.save(new Member("keyset" + i, 92));
+        }
+
+        CursorSlice<Member> first = memberRepository.findKeysetByAge(92, null, 3);
+
+        // 이미 본 구간에 row 가 추가되어도 다음 페이지가 밀리지 않음 (OFFSET 이었으면 keyset3 이 중복으로 나옴)
+        memberRepository.save(new Member("keyset0", 92));
+
+        CursorSlice<Member> second = memberRepository.findKeysetByAge(92, first.getNextCursor(), 3);
+
+        assertThat(usernames(first)).containsExactly("keyset1", "keyset2", "keyset3");
+        assertThat(usernames(second)).containsExactly("keyset4", "keyset5", "keyset6");
+        assertThat(second.hasNext()).isFalse();
+    }
+
+    @Test
+    public void sameUsernameIsOrderedById(){
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            ids.add(memberRepository.save(new Member("same", 93)).getId());
+        }
+
+        CursorSlice<Member> first = memberRepository.findKeysetByAge(93, null, 2);
+        CursorSlice<Member> second = memberRepository.findKeysetByAge(93, first.getNextCursor(), 2);
+
+        List<Long> result = new ArrayList<>();
+        first.getContent().forEach(m -> result.add(m.getId()));
+        second.getContent().forEach(m -> result.add(m.getId()));
+        assertThat(result).containsExactlyElementsOf(ids);
+    }
+
+    @Test
+    public void pageBoundaryOnNullUsername(){
+        // null 이 맨 앞, "Alice" 는 "null" 보다 앞이라 커서가 "null" 문자열이 되면 빠짐
+        memberRepository.save(new Member(null, 94));
+        memberRepository.save(new Member(null, 94));
+        memberRepository.save(new Member("Alice", 94));
+        memberRepository.save(new Member("zed", 94));
+
+        CursorSlice<Member> first = memberRepository.findKeysetByAge(94, null, 2);
+        CursorSlice<Member> second = memberRepository.findKeysetByAge(94, first.getNextCursor(), 2);
+        CursorSlice<Member> firstJpa = memberJpaRepository.findKeysetByAge(94, null, 1);
+        CursorSlice<Member> secondJpa = memberJpaRepository.findKeysetByAge(94, firstJpa.getNextCursor(), 2);
+
+        assertThat(usernames(first)).containsExactly(null, null);
+        assertThat(usernames(second)).containsExactly("Alice", "zed");
+        assertThat(second.hasNext()).isFalse();
+        // null 사이에서 끊겨도 남은 null 부터
+        assertThat(usernames(secondJpa)).containsExactly(null, "Alice");
+    }
+
+    @Test
+    public void cursorToken(){
+        MemberCursor cursor = new MemberCursor("a:b", 42L);
+
+        assertThat(MemberCursor.decode(cursor.encode())).isEqualTo(cursor);
+        assertThat(MemberCursor.decode(new MemberCursor(null, 42L).encode())).isEqualTo(new MemberCursor(null, 42L));
+        assertThat(MemberCursor.decode(new MemberCursor("null", 42L).encode()).getUsername()).isEqualTo("null");
+        assertThatThrownBy(() -> MemberCursor.decode("not-a-cursor"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private List<String> usernames(CursorSlice<Member> slice){
+        return slice.getContent().stream().map(Member::getUsername).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,86 @@
+package study.datajpa.repository;
+
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.dto.MemberProjection;
+import study.datajpa.dto.MemberSummaryDto;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class ReadOnlyProjectionTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @Test
+    public void projectionsAreNotManaged(){
+        memberRepository.save(new Member("projection", 31));
+        memberRepository.save(new Member("projection", 32));
+        em.flush();
+        em.clear();
+
+        List<MemberProjection> interfaces = memberRepository.findProjectionsByUsername("projection", MemberProjection.class);
+        List<MemberSummaryDto> classes = memberRepository.findProjectionsByUsername("projection", MemberSummaryDto.class);
+
+        assertThat(interfaces).extracting(MemberProjection::getAge).containsExactlyInAnyOrder(31, 32);
+        assertThat(classes).extracting(MemberSummaryDto::getAge).containsExactlyInAnyOrder(31, 32);
+        // Entity 로 조회한게 아니라서 영속성 컨텍스트는 비어있음
+        assertThat(em.unwrap(Session.class).getStatistics().getEntityCount()).isZero();
+    }
+
+    @Test
+    public void projectionPagingAndInQuery(){
+        for (int i = 0; i < 5; i++) {
+            memberRepository.save(new Member("projectionPage" + i, 33));
+        }
+
+        Page<MemberSummaryDto> page = memberRepository.findProjectionsByAge(33,
+                PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "username")), MemberSummaryDto.class);
+        List<MemberProjection> byNames = memberRepository.findProjectionsByNames(List.of("projectionPage0", "projectionPage1"));
+
+        assertThat(page.getTotalElements()).isEqualTo(5);
+        assertThat(page.getContent()).extracting(MemberSummaryDto::getUsername)
+                .containsExactly("projectionPage4", "projectionPage3");
+        assertThat(byNames).extracting(MemberProjection::getUsername)
+                .containsExactlyInAnyOrder("projectionPage0", "projectionPage1");
+    }
+
+    @Test
+    public void readOnlyEntitiesAreNotDirtyChecked(){
+        Team team = teamRepository.save(new Team("readOnlyTeam"));
+        memberRepository.save(new Member("readOnly", 34));
+        em.flush();
+        em.clear();
+
+        List<Member> members = memberRepository.findReadOnlyByUsername("readOnly");
+        Member member = members.get(0);
+        assertThat(em.unwrap(Session.class).isReadOnly(member)).isTrue();
+
+        // 스냅샷이 없으니 바꿔도 update 가 나가지 않음
+        member.changeTeam(teamRepository.findById(team.getId()).orElseThrow());
+        em.flush();
+        em.clear();
+
+        assertThat(memberRepository.findById(member.getId()).orElseThrow().getTeam()).isNull();
+    }
+}
@@ -0,0 +1,143 @@
+package study.datajpa.repository.async;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/*
+    비동기 조회는 별도 트랜잭션에서 실행 => 테스트 데이터는 TransactionTemplate 으로 커밋
+ */
+@SpringBootTest
+class RepositoryBulkheadTest {
+
+    @Autowired
+    RepositoryBulkhead bulkhead;
+
+    @Autowired
+    AsyncMemberRepository asyncMemberRepository;
+
+    @Autowired
+    AsyncTeamRepository asyncTeamRepository;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Test
+    public void asyncFindersReturnTeamWithDetachedMember() throws Exception {
+        Long[] ids = transactionTemplate.execute(status -> {
+            Team team = teamRepository.save(new Team("asyncTeam"));
+            Member member = memberRepository.save(new Member("asyncMember", 181, team));
+            memberRepository.save(new Member("asyncMember2", 181, team));
+            return new Long[]{team.getId(), member.getId()};
+        });
+
+        Member member = asyncMemberRepository.findById(ids[1]).get(5, TimeUnit.SECONDS).orElseThrow();
+        Page<Member> page = asyncMemberRepository.findByAge(181, PageRequest.of(0, 10)).get(5, TimeUnit.SECONDS);
+
+        // 트랜잭션 밖이지만 fetch join 으로 같이 읽어서 지연로딩이 필요 없음
+        assertThat(member.getTeam().getName()).isEqualTo("asyncTeam");
+        assertThat(page.getContent()).extracting(m -> m.getTeam().getName()).containsOnly("asyncTeam");
+        assertThat(asyncTeamRepository.findById(ids[0]).get(5, TimeUnit.SECONDS)).isPresent();
+        assertThat(asyncTeamRepository.findStats(ids[0]).get(5, TimeUnit.SECONDS).getMemberCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void rejectsImmediatelyOverOperationLimit() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<CompletableFuture<String>> running = new ArrayList<>();
+        try {
+            // member-dtos 는 동시에 2개까지
+            running.add(bulkhead.submit(AsyncOperation.MEMBER_DTOS, () -> block(release)));
+            running.add(bulkhead.submit(AsyncOperation.MEMBER_DTOS, () -> block(release)));
+
+            CompletableFuture<String> rejected = bulkhead.submit(AsyncOperation.MEMBER_DTOS, () -> "run");
+
+            assertThat(rejected).isCompletedExceptionally();
+            assertRejected(rejected, BulkheadRejectedException.Reason.LIMIT);
+            // 다른 종류의 조회는 영향 없음
+            assertThat(bulkhead.submit(AsyncOperation.TEAM_STATS, () -> "other").get(5, TimeUnit.SECONDS)).isEqualTo("other");
+        } finally {
+            release.countDown();
+        }
+        for (CompletableFuture<String> future : running) {
+            assertThat(future.get(5, TimeUnit.SECONDS)).isEqualTo("done");
+        }
+        // 끝나면 permit 이 돌아옴
+        assertThat(bulkhead.submit(AsyncOperation.MEMBER_DTOS, () -> "again").get(5, TimeUnit.SECONDS)).isEqualTo("again");
+    }
+
+    @Test
+    public void expiresWhenQueuedTooLong() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        try {
+            // member-by-id 는 8개까지 받지만 스레드는 커넥션 풀(10)의 절반 => 나머지는 대기열에서 기다림
+            for (int i = 0; i < 8; i++) {
+                futures.add(bulkhead.submit(AsyncOperation.MEMBER_BY_ID, () -> block(release)));
+            }
+            Thread.sleep(700); // queue-timeout(500ms) 보다 오래 막아둠
+        } finally {
+            release.countDown();
+        }
+
+        int done = 0, expired = 0;
+        for (CompletableFuture<String> future : futures) {
+            try {
+                future.get(5, TimeUnit.SECONDS);
+                done++;
+            } catch (ExecutionException e) {
+                assertThat(e.getCause()).isInstanceOf(BulkheadRejectedException.class);
+                assertThat(((BulkheadRejectedException) e.getCause()).getReason())
+                        .isEqualTo(BulkheadRejectedException.Reason.QUEUE_TIMEOUT);
+                expired++;
+            }
+        }
+        assertThat(done).isPositive();
+        assertThat(expired).isPositive();
+        assertThat(meterRegistry.get("datajpa.async.rejected")
+                .tags("operation", "member-by-id", "reason", "queue_timeout").counter().count()).isPositive();
+        assertThat(meterRegistry.get("datajpa.async.wait").tags("operation", "member-by-id").timer().count()).isPositive();
+    }
+
+    private void assertRejected(CompletableFuture<?> future, BulkheadRejectedException.Reason reason){
+        assertThatThrownBy(future::join)
+                .hasCauseInstanceOf(BulkheadRejectedException.class)
+                .satisfies(e -> assertThat(((BulkheadRejectedException) e.getCause()).getReason()).isEqualTo(reason));
+    }
+
+    private String block(CountDownLatch release){
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "done";
+    }
+}
@@ -0,0 +1,130 @@
+package study.datajpa.repository.paging;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberJpaRepository;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+    count 는 별도 트랜잭션에서 돌아서 커밋된 데이터만 보임 => 테스트 데이터는 TransactionTemplate 으로 커밋
+ */
+@SpringBootTest
+class ConcurrentCountPagerTest {
+
+    @Autowired
+    ConcurrentCountPager pager;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Test
+    public void countRunsConcurrentlyInOwnTransaction(){
+        CountDownLatch countStarted = new CountDownLatch(1);
+        String caller = Thread.currentThread().getName();
+
+        CountedPage<Integer> page = pager.findPage(PageRequest.of(0, 2),
+                limit -> {
+                    // 순서대로 실행했다면 count 가 시작되지 않아서 여기서 기다리다 끝남
+                    assertThat(await(countStarted)).isTrue();
+                    return rows(0, limit);
+                },
+                () -> {
+                    assertThat(Thread.currentThread().getName()).isNotEqualTo(caller);
+                    assertThat(TransactionSynchronizationManager.isCurrentTransactionReadOnly()).isTrue();
+                    countStarted.countDown();
+                    return new CountResult(10, TotalAccuracy.EXACT);
+                });
+
+        assertThat(page.getContent()).containsExactly(0, 1);
+        assertThat(page.getTotalElements()).isEqualTo(10);
+        assertThat(page.isTotalExact()).isTrue();
+    }
+
+    @Test
+    public void lastPageDoesNotUseCount(){
+        CountedPage<Integer> page = pager.findPage(PageRequest.of(1, 3),
+                limit -> rows(3, 2),
+                () -> new CountResult(999, TotalAccuracy.EXACT));
+
+        assertThat(page.getContent()).containsExactly(3, 4);
+        assertThat(page.getTotalElements()).isEqualTo(5);
+        assertThat(page.isTotalExact()).isTrue();
+    }
+
+    @Test
+    public void slowCountReturnsUnknownTotal(){
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            CountedPage<Integer> page = pager.findPage(PageRequest.of(2, 3),
+                    limit -> rows(6, limit),
+                    () -> {
+                        await(release);
+                        return new CountResult(100, TotalAccuracy.EXACT);
+                    });
+
+            assertThat(page.getContent()).containsExactly(6, 7, 8);
+            assertThat(page.getTotalAccuracy()).isEqualTo(TotalAccuracy.UNKNOWN);
+            assertThat(page.getTotalElements()).isEqualTo(10); // 다음 페이지가 있다는 것만 확실
+            assertThat(page.hasNext()).isTrue();
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void repositoryPages(){
+        transactionTemplate.execute(status -> {
+            for (int i = 1; i <= 5; i++) {
+                memberRepository.save(new Member("concurrent" + i, 171));
+            }
+            return null;
+        });
+
+        CountedPage<Member> first = memberRepository.findPageByAgeConcurrently(171,
+                PageRequest.of(0, 2, Sort.by("username")), CountMode.EXACT);
+        CountedPage<Member> last = memberRepository.findPageByAgeConcurrently(171,
+                PageRequest.of(2, 2, Sort.by("username")), CountMode.EXACT);
+        CountedPage<Member> jpa = memberJpaRepository.findPageConcurrently(171, PageRequest.of(0, 3), CountMode.EXACT);
+
+        assertThat(first.getContent()).extracting(Member::getUsername).containsExactly("concurrent1", "concurrent2");
+        assertThat(first.getTotalElements()).isEqualTo(5);
+        assertThat(last.getContent()).extracting(Member::getUsername).containsExactly("concurrent5");
+        assertThat(last.getTotalElements()).isEqualTo(5);
+        assertThat(jpa.getContent()).extracting(Member::getUsername)
+                .containsExactly("concurrent5", "concurrent4", "concurrent3");
+        assertThat(jpa.getTotalPages()).isEqualTo(2);
+    }
+
+    private List<Integer> rows(int from, int count){
+        return IntStream.range(from, from + count).boxed().collect(Collectors.toList());
+    }
+
+    private boolean await(CountDownLatch latch){
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package study.datajpa.repository.paging;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberJpaRepository;
+import study.datajpa.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+    Member 를 바꾼 트랜잭션 안에서 센 count 는 캐시하지 않음 => 테스트 데이터는 TransactionTemplate 으로 커밋하고 캐시 확인
+ */
+@SpringBootTest
+class CountCacheTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Test
+    public void totalCountIsCachedUntilMemberChanges(){
+        save(new Member("count1", 81), new Member("count2", 81));
+        assertThat(memberJpaRepository.totalCount(81)).isEqualTo(2);
+
+        // Entity 를 거치지 않고 직접 넣은 row 는 캐시가 모름 -> 캐시된 값이 그대로 나옴
+        insertWithoutEntity(81);
+        assertThat(memberJpaRepository.totalCount(81)).isEqualTo(2);
+        assertThat(memberJpaRepository.totalCount(81, CountMode.EXACT).getTotal()).isEqualTo(3);
+
+        // Member 를 save 하면 무효화돼서 다시 셈
+        save(new Member("count3", 81));
+        assertThat(memberJpaRepository.totalCount(81)).isEqualTo(4);
+    }
+
+    @Test
+    public void estimatedModeReturnsStaleTotal(){
+        for (int i = 0; i < 5; i++) {
+            save(new Member("estimated" + i, 82));
+        }
+        PageRequest pageRequest = PageRequest.of(0, 2);
+
+        CountedPage<Member> exact = memberRepository.findPageByAge(82, pageRequest, CountMode.CACHED);
+        save(new Member("estimated5", 82));
+        CountedPage<Member> estimated = memberRepository.findPageByAge(82, pageRequest, CountMode.ESTIMATED);
+        CountedPage<Member> cached = memberRepository.findPageByAge(82, pageRequest, CountMode.CACHED);
+
+        assertThat(exact.getTotalElements()).isEqualTo(5);
+        assertThat(exact.isTotalExact()).isTrue();
+        assertThat(estimated.getTotalElements()).isEqualTo(5);
+        assertThat(estimated.getTotalAccuracy()).isEqualTo(TotalAccuracy.ESTIMATED);
+        assertThat(cached.getTotalElements()).isEqualTo(6);
+        assertThat(cached.isTotalExact()).isTrue();
+    }
+
+    @Test
+    public void lastPageSkipsCount(){
+        save(new Member("last1", 83), new Member("last2", 83), new Member("last3", 83));
+        memberJpaRepository.totalCount(83); // 3 으로 캐시
+        insertWithoutEntity(83);
+
+        // content 가 page size 보다 적으면 count 없이 content 만으로 total 을 알 수 있음
+        CountedPage<Member> page = memberRepository.findPageByAge(83, PageRequest.of(0, 10), CountMode.CACHED);
+
+        assertThat(page.getContent()).hasSize(4);
+        assertThat(page.getTotalElements()).isEqualTo(4);
+        assertThat(page.isTotalExact()).isTrue();
+    }
+
+    @Test
+    public void uncommittedCountIsNotShared(){
+        transactionTemplate.execute(status -> {
+            memberJpaRepository.save(new Member("uncommitted1", 84));
+            memberJpaRepository.save(new Member("uncommitted2", 84));
+            em.flush();
+
+            // 이 트랜잭션에서는 flush 된 row 까지 셈
+            assertThat(memberJpaRepository.totalCount(84)).isEqualTo(2);
+
+            // 다른 트랜잭션(스레드)은 커밋 안된 값을 캐시에서 받으면 안 됨
+            long other = CompletableFuture.supplyAsync(
+                    () -> memberJpaRepository.totalCount(84, CountMode.ESTIMATED).getTotal()).join();
+            assertThat(other).isZero();
+
+            status.setRollbackOnly();
+            return null;
+        });
+
+        // 롤백된 뒤에도 ESTIMATED 로 예전 값이 나오지 않음
+        assertThat(memberJpaRepository.totalCount(84, CountMode.ESTIMATED).getTotal()).isZero();
+    }
+
+    private void save(Member... members){
+        transactionTemplate.execute(status -> {
+            for (Member member : members) {
+                memberJpaRepository.save(member);
+            }
+            return null;
+        });
+    }
+
+    private void insertWithoutEntity(int age){
+        transactionTemplate.execute(status -> em.createNativeQuery("insert into member (member_id, username, age) values (?, ?, ?)")
+                .setParameter(1, 900_000_000L + age)
+                .setParameter(2, "native" + age)
+                .setParameter(3, age)
+                .executeUpdate());
+    }
+}
@@ -0,0 +1,150 @@
+package study.datajpa.repository.search;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.dto.MemberSearchCondition;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.monitoring.QueryPlanCacheEndpoint;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+import study.datajpa.repository.paging.CursorSlice;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@Transactional
+class MemberSearchTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @Autowired
+    EntityManagerFactory emf;
+
+    @Autowired
+    QueryPlanCacheEndpoint queryPlanCacheEndpoint;
+
+    @Test
+    public void combinesOnlyGivenConditions(){
+        Team teamA = teamRepository.save(new Team("searchTeamA"));
+        Team teamB = teamRepository.save(new Team("searchTeamB"));
+        memberRepository.save(new Member("searchKim", 121, teamA));
+        memberRepository.save(new Member("searchKang", 125, teamB));
+        memberRepository.save(new Member("searchLee", 128, teamA));
+        memberRepository.save(new Member("search_x", 123));
+
+        assertThat(usernames(search(condition(null, "searchK", null, null, null, null))))
+                .containsExactly("searchKang", "searchKim");
+        assertThat(usernames(search(condition(null, "search", 122, 128, null, null))))
+                .containsExactly("searchKang", "searchLee", "search_x");
+        assertThat(usernames(search(condition(null, "search", null, null, teamA.getId(), null))))
+                .containsExactly("searchKim", "searchLee");
+        assertThat(usernames(search(condition(null, null, 121, null, null, "searchTeamB"))))
+                .containsExactly("searchKang");
+        assertThat(usernames(search(condition("searchLee", null, null, null, null, null))))
+                .containsExactly("searchLee");
+    }
+
+    @Test
+    public void prefixEscapesWildcards(){
+        memberRepository.save(new Member("search_x", 131));
+        memberRepository.save(new Member("searchAx", 131));
+
+        // '_' 가 한글자 와일드카드로 해석되면 searchAx 도 나옴
+        assertThat(usernames(search(condition(null, "search_", null, null, null, null))))
+                .containsExactly("search_x");
+    }
+
+    @Test
+    public void pagedSearchCountsWithSameConditions(){
+        for (int i = 0; i < 5; i++) {
+            memberRepository.save(new Member("searchPage" + i, 141));
+        }
+        memberRepository.save(new Member("searchPage9", 142));
+
+        Page<Member> page = memberRepository.search(condition(null, "searchPage", 141, 141, null, null),
+                PageRequest.of(1, 2, Sort.by("username")));
+
+        assertThat(page.getTotalElements()).isEqualTo(5);
+        assertThat(page.getContent()).extracting(Member::getUsername).containsExactly("searchPage2", "searchPage3");
+    }
+
+    @Test
+    public void keysetSearch(){
+        for (int i = 1; i <= 5; i++) {
+            memberRepository.save(new Member("searchKeyset" + i, 151));
+        }
+        memberRepository.save(new Member("searchKeyset6", 152));
+        MemberSearchCondition condition = condition(null, "searchKeyset", null, 151, null, null);
+
+        CursorSlice<Member> first = memberRepository.searchKeyset(condition, null, 2);
+        CursorSlice<Member> second = memberRepository.searchKeyset(condition, first.getNextCursor(), 2);
+        CursorSlice<Member> last = memberRepository.searchKeyset(condition, second.getNextCursor(), 2);
+
+        assertThat(first.getContent()).extracting(Member::getUsername).containsExactly("searchKeyset1", "searchKeyset2");
+        assertThat(second.getContent()).extracting(Member::getUsername).containsExactly("searchKeyset3", "searchKeyset4");
+        assertThat(last.getContent()).extracting(Member::getUsername).containsExactly("searchKeyset5");
+        assertThat(last.hasNext()).isFalse();
+        assertThatThrownBy(() -> memberRepository.searchKeyset(condition, null, 0))
+                .isInstanceOf(InvalidDataAccessApiUsageException.class);
+    }
+
+    @Test
+    public void keysetSearchAfterNullUsername(){
+        memberRepository.save(new Member(null, 153));
+        memberRepository.save(new Member("Alice", 153));
+        MemberSearchCondition condition = condition(null, null, 153, 153, null, null);
+
+        CursorSlice<Member> first = memberRepository.searchKeyset(condition, null, 1);
+        CursorSlice<Member> second = memberRepository.searchKeyset(condition, first.getNextCursor(), 1);
+
+        assertThat(usernames(first.getContent())).containsExactly((String) null);
+        assertThat(usernames(second.getContent())).containsExactly("Alice");
+    }
+
+    @Test
+    public void sameShapeReusesQueryPlan(){
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        search(condition(null, "planA", 10, 20, null, null));
+
+        // 값만 다르고 조건 모양이 같으면 파싱 없이 캐시된 플랜을 씀
+        long misses = statistics.getQueryPlanCacheMissCount();
+        long hits = statistics.getQueryPlanCacheHitCount();
+        search(condition(null, "planB", 30, 40, null, null));
+
+        assertThat(statistics.getQueryPlanCacheMissCount()).isEqualTo(misses);
+        assertThat(statistics.getQueryPlanCacheHitCount()).isGreaterThan(hits);
+        assertThat(queryPlanCacheEndpoint.planCache()).containsKeys("hits", "misses", "hitRatio");
+        assertThat(queryPlanCacheEndpoint.hitRatio()).isPositive();
+    }
+
+    private List<Member> search(MemberSearchCondition condition){
+        return memberRepository.findAll(MemberSpecs.search(condition), Sort.by("username"));
+    }
+
+    private MemberSearchCondition condition(String username, String usernamePrefix, Integer ageGoe, Integer ageLoe,
+                                            Long teamId, String teamName){
+        return new MemberSearchCondition(username, usernamePrefix, ageGoe, ageLoe, teamId, teamName);
+    }
+
+    private List<String> usernames(List<Member> members){
+        return members.stream().map(Member::getUsername).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,103 @@
+package study.datajpa.repository.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.dto.UsernameMatch;
+import study.datajpa.entity.Member;
+import study.datajpa.monitoring.QueryCounter;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/*
+    인덱스는 커밋된 변경만 반영하므로 TransactionTemplate 으로 커밋해가면서 확인
+ */
+@SpringBootTest(properties = "spring.datasource.hikari.jdbc-url=jdbc:h2:mem:usernameIndex")
+class MemberUsernameIndexTest {
+
+    @Autowired
+    MemberUsernameIndex memberUsernameIndex;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    QueryCounter queryCounter;
+
+    @BeforeEach
+    void waitUntilReady() throws InterruptedException {
+        waitFor(memberUsernameIndex::isReady);
+    }
+
+    @Test
+    public void committedChangesAreSearchableWithoutQuery(){
+        Long id = transactionTemplate.execute(status -> {
+            memberRepository.save(new Member("autoA", 10));
+            memberRepository.save(new Member("autoB", 10));
+            return memberRepository.save(new Member("autoC", 10)).getId();
+        });
+
+        long count = queryCounter.count(() ->
+                assertThat(usernames(memberUsernameIndex.search("auto", 10))).containsExactly("autoA", "autoB", "autoC"));
+        assertThat(count).isZero();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Member member = memberRepository.findById(id).orElseThrow();
+            memberRepository.delete(member);
+        });
+        assertThat(usernames(memberUsernameIndex.search("auto", 10))).containsExactly("autoA", "autoB");
+    }
+
+    @Test
+    public void rolledBackInsertIsNotIndexed(){
+        transactionTemplate.executeWithoutResult(status -> {
+            memberRepository.save(new Member("rollbackMe", 10));
+            memberRepository.flush();
+            status.setRollbackOnly();
+        });
+
+        assertThat(memberUsernameIndex.search("rollbackMe", 10)).isEmpty();
+    }
+
+    @Test
+    public void bulkDeleteRebuildsIndex() throws InterruptedException {
+        transactionTemplate.executeWithoutResult(status -> {
+            memberRepository.save(new Member("bulkIndexed", 1));
+            memberRepository.save(new Member("bulkIndexedKeep", 99));
+        });
+        assertThat(memberUsernameIndex.search("bulkIndexed", 10)).hasSize(2);
+
+        memberRepository.bulkDeleteByAgeLessThan(2);
+
+        waitFor(() -> memberUsernameIndex.search("bulkIndexed", 10).size() == 1);
+        assertThat(usernames(memberUsernameIndex.search("bulkIndexed", 10))).containsExactly("bulkIndexedKeep");
+    }
+
+    @Test
+    public void limitMustBePositive(){
+        assertThatThrownBy(() -> memberUsernameIndex.search("auto", 0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> memberUsernameIndex.search("auto", -1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private void waitFor(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 100 && !condition.getAsBoolean(); i++) {
+            Thread.sleep(100);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+
+    private List<String> usernames(List<UsernameMatch> matches){
+        return matches.stream().map(UsernameMatch::getUsername).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,107 @@
+package study.datajpa.repository.search;
+
+import org.junit.jupiter.api.Test;
+import study.datajpa.dto.UsernameMatch;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UsernamePrefixIndexTest {
+
+    @Test
+    public void prefixSearchMergesBaseAndChanges(){
+        UsernamePrefixIndex index = new UsernamePrefixIndex(0.1);
+        index.rebuild(List.of(match(3, "kim"), match(1, "kimchi"), match(2, "lee"), match(4, "ki")).iterator());
+
+        index.add(5, "kia");
+        index.remove(1, "kimchi");
+        index.update(2, "lee", "kimbap");
+
+        assertThat(usernames(index.search("ki", 10))).containsExactly("ki", "kia", "kim", "kimbap");
+        assertThat(usernames(index.search("kim", 1))).containsExactly("kim");
+        assertThat(index.search("park", 10)).isEmpty();
+
+        // compact 해도 결과는 같음
+        index.compact();
+        assertThat(index.pendingChanges()).isZero();
+        assertThat(usernames(index.search("ki", 10))).containsExactly("ki", "kia", "kim", "kimbap");
+        assertThat(index.size()).isEqualTo(4);
+    }
+
+    @Test
+    public void sameUsernameIsOrderedById(){
+        UsernamePrefixIndex index = new UsernamePrefixIndex(0.1);
+        index.rebuild(List.of(match(20, "same"), match(10, "same")).iterator());
+        index.add(15, "same");
+
+        assertThat(index.search("same", 10)).extracting(UsernameMatch::getId).containsExactly(10L, 15L, 20L);
+    }
+
+    @Test
+    public void changesDuringRebuildAreKept(){
+        UsernamePrefixIndex index = new UsernamePrefixIndex(0.1);
+        index.add(3, "stale"); // rebuild 전의 변경분은 버려짐 (DB 에서 다시 읽으니까)
+
+        // 스캔이 "old" 를 읽은 뒤에 삭제되고 "new" 가 추가된 상황
+        Iterator<UsernameMatch> scan = List.of(match(1, "old")).iterator();
+        index.rebuild(new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return scan.hasNext();
+            }
+
+            @Override
+            public UsernameMatch next() {
+                UsernameMatch next = scan.next();
+                index.remove(1, "old");
+                index.add(2, "new");
+                return next;
+            }
+        });
+
+        assertThat(index.search("old", 10)).isEmpty();
+        assertThat(index.search("new", 10)).hasSize(1);
+        assertThat(index.search("stale", 10)).isEmpty();
+    }
+
+    @Test
+    public void multiByteUsernames(){
+        UsernamePrefixIndex index = new UsernamePrefixIndex(0.1);
+        index.rebuild(List.of(match(1, "회원1"), match(2, "회원2"), match(3, "회사")).iterator());
+
+        assertThat(usernames(index.search("회원", 10))).containsExactly("회원1", "회원2");
+        assertThat(usernames(index.search("회", 10))).containsExactly("회사", "회원1", "회원2");
+    }
+
+    @Test
+    public void compactsWhenChangesPileUp(){
+        UsernamePrefixIndex index = new UsernamePrefixIndex(0.1);
+        List<UsernameMatch> base = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            base.add(match(i, "member" + i));
+        }
+        index.rebuild(base.iterator());
+        long baseBytes = index.estimatedBytes();
+
+        for (int i = 1000; i < 3000; i++) {
+            index.add(i, "member" + i);
+        }
+
+        assertThat(index.pendingChanges()).isLessThan(2000);
+        assertThat(index.size()).isEqualTo(3000);
+        assertThat(index.search("member2999", 10)).extracting(UsernameMatch::getId).containsExactly(2999L);
+        assertThat(index.estimatedBytes()).isGreaterThan(baseBytes);
+    }
+
+    private UsernameMatch match(long id, String username){
+        return new UsernameMatch(id, username);
+    }
+
+    private List<String> usernames(List<UsernameMatch> matches){
+        return matches.stream().map(UsernameMatch::getUsername).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,151 @@
+package study.datajpa.repository.shard;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.repository.paging.CursorSlice;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+        "spring.datasource.hikari.jdbc-url=jdbc:h2:mem:sharding",
+        "datajpa.sharding.enabled=true",
+        "datajpa.sharding.count=3",
+        "datajpa.sharding.hikari.jdbc-url=jdbc:h2:mem:shardTest{shard}"
+})
+class ShardedMemberRepositoryTest {
+
+    @Autowired
+    ShardedMemberRepository shardedMemberRepository;
+
+    @Autowired
+    Shards shards;
+
+    @Test
+    public void membersLiveOnTheirTeamShard(){
+        List<Long> teams = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            teams.add(shardedMemberRepository.saveTeam("shardTeam" + i));
+        }
+        // 팀은 돌아가면서 샤드에 배치됨
+        assertThat(teams.stream().map(shards::shardOf).distinct().count()).isEqualTo(3);
+
+        ShardedMember member = shardedMemberRepository.save("roster", 20, teams.get(1));
+
+        assertThat(shards.shardOf(member.getId())).isEqualTo(shards.shardOf(teams.get(1)));
+        assertThat(shardedMemberRepository.findById(member.getId())).contains(member);
+        assertThat(shardedMemberRepository.findByTeamId(teams.get(1), 0, 10)).containsExactly(member);
+        assertThat(shardedMemberRepository.findByTeamId(teams.get(0), 0, 10)).isEmpty();
+    }
+
+    @Test
+    public void changeTeamWithinAndAcrossShards(){
+        long teamA = shardedMemberRepository.saveTeam("moveA");
+        long teamB = shardedMemberRepository.saveTeam("moveB");
+        long teamC = shardedMemberRepository.saveTeam("moveC");
+        long sameShardAsA = shardedMemberRepository.saveTeam("moveD"); // 4번째 팀은 다시 A 의 샤드
+        assertThat(shards.shardOf(sameShardAsA)).isEqualTo(shards.shardOf(teamA));
+        ShardedMember member = shardedMemberRepository.save("mover", 30, teamA);
+
+        ShardedMember within = shardedMemberRepository.changeTeam(member.getId(), sameShardAsA);
+        assertThat(within.getId()).isEqualTo(member.getId());
+        assertThat(shardedMemberRepository.findById(member.getId()).orElseThrow().getTeamId()).isEqualTo(sameShardAsA);
+
+        ShardedMember across = shardedMemberRepository.changeTeam(member.getId(), teamB);
+        assertThat(shards.shardOf(across.getId())).isEqualTo(shards.shardOf(teamB));
+        assertThat(shardedMemberRepository.findById(member.getId())).isEmpty();
+        assertThat(shardedMemberRepository.findByUsername("mover")).containsExactly(across);
+        assertThat(shardedMemberRepository.findByTeamId(teamC, 0, 10)).isEmpty();
+    }
+
+    @Test
+    public void staleChangeTeamFailsWithoutDuplicating(){
+        long teamA = shardedMemberRepository.saveTeam("staleA");
+        long teamB = shardedMemberRepository.saveTeam("staleB");
+        long teamC = shardedMemberRepository.saveTeam("staleC");
+        long sameShardAsA = shardedMemberRepository.saveTeam("staleD");
+        ShardedMember member = shardedMemberRepository.save("stale", 31, teamA);
+
+        // 같은 샤드: 먼저 바꾼 쪽만 반영되고 version 이 올라감
+        ShardedMember stale = shardedMemberRepository.findById(member.getId()).orElseThrow();
+        ShardedMember within = shardedMemberRepository.changeTeam(member.getId(), sameShardAsA);
+        assertThat(within.getVersion()).isEqualTo(1);
+        assertThatThrownBy(() -> shardedMemberRepository.changeTeam(stale, teamA))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+
+        // 다른 샤드로 동시에 옮기는 경우: 늦은 쪽은 넣었던 복사본을 지우고 실패
+        ShardedMember beforeMove = shardedMemberRepository.findById(member.getId()).orElseThrow();
+        ShardedMember moved = shardedMemberRepository.changeTeam(beforeMove, teamB);
+        assertThatThrownBy(() -> shardedMemberRepository.changeTeam(beforeMove, teamC))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+
+        assertThat(shardedMemberRepository.findByUsername("stale")).containsExactly(moved);
+        assertThat(shardedMemberRepository.findByTeamId(teamC, 0, 10)).isEmpty();
+    }
+
+    @Test
+    public void scatterGatherMergesInOrderWithLimit(){
+        List<Long> teams = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            teams.add(shardedMemberRepository.saveTeam("pageTeam" + i));
+        }
+        // 샤드마다 섞여서 들어가도록 팀을 돌아가면서
+        for (int i = 0; i < 10; i++) {
+            shardedMemberRepository.save(String.format("scatter%02d", i), 77, teams.get(i % 3));
+        }
+        shardedMemberRepository.save("scatter-noTeam", 77, null);
+
+        Page<ShardedMember> first = shardedMemberRepository.findByAge(77, PageRequest.of(0, 4));
+        Page<ShardedMember> third = shardedMemberRepository.findByAge(77, PageRequest.of(2, 4));
+
+        assertThat(usernames(first.getContent())).containsExactly("scatter-noTeam", "scatter00", "scatter01", "scatter02");
+        assertThat(usernames(third.getContent())).containsExactly("scatter07", "scatter08", "scatter09");
+        assertThat(first.getTotalElements()).isEqualTo(11);
+        assertThat(first.getTotalPages()).isEqualTo(3);
+
+        List<String> keyset = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorSlice<ShardedMember> slice = shardedMemberRepository.findKeysetByAge(77, cursor, 3);
+            keyset.addAll(usernames(slice.getContent()));
+            cursor = slice.getNextCursor();
+        } while (cursor != null);
+        assertThat(keyset).hasSize(11).isSorted();
+
+        List<MemberDto> dtos = shardedMemberRepository.findMemberDto();
+        assertThat(dtos).extracting(MemberDto::getId).isSorted();
+        assertThat(dtos).extracting(MemberDto::getUsername).contains("scatter00", "scatter09").doesNotContain("scatter-noTeam");
+    }
+
+    @Test
+    public void keysetPageBoundaryOnNullUsername(){
+        List<Long> teams = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            teams.add(shardedMemberRepository.saveTeam("nullTeam" + i));
+        }
+        shardedMemberRepository.save(null, 78, teams.get(0));
+        shardedMemberRepository.save(null, 78, teams.get(1));
+        shardedMemberRepository.save("Alice", 78, teams.get(0));
+        shardedMemberRepository.save("zed", 78, teams.get(1));
+
+        CursorSlice<ShardedMember> first = shardedMemberRepository.findKeysetByAge(78, null, 2);
+        CursorSlice<ShardedMember> second = shardedMemberRepository.findKeysetByAge(78, first.getNextCursor(), 2);
+
+        assertThat(usernames(first.getContent())).containsExactly(null, null);
+        assertThat(usernames(second.getContent())).containsExactly("Alice", "zed");
+        assertThat(second.hasNext()).isFalse();
+    }
+
+    private List<String> usernames(List<ShardedMember> members){
+        return members.stream().map(ShardedMember::getUsername).collect(Collectors.toList());
+    }
+}
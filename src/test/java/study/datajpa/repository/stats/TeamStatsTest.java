@@ -0,0 +1,158 @@
+package study.datajpa.repository.stats;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.dto.TeamStats;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+import study.datajpa.service.MemberService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+    집계는 커밋 직전에 반영되므로 TransactionTemplate 으로 트랜잭션을 나눠서 확인
+    verify 가 다른 테스트 데이터와 섞이지 않게 DB 를 따로 씀
+ */
+@SpringBootTest(properties = "spring.datasource.hikari.jdbc-url=jdbc:h2:mem:teamStats")
+class TeamStatsTest {
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberService memberService;
+
+    @Autowired
+    TeamStatsReconciler teamStatsReconciler;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void insertMoveDeleteKeepStatsInSync(){
+        Long teamA = saveTeam("statsA");
+        Long teamB = saveTeam("statsB");
+        Long m20 = saveMember("stats20", 20, teamA);
+        saveMember("stats30", 30, teamA);
+        Long m40 = saveMember("stats40", 40, teamA);
+
+        assertStats(teamA, 3, 90, 20, 40);
+
+        memberService.changeTeam(m40, teamB);
+        assertStats(teamA, 2, 50, 20, 30);
+        assertStats(teamB, 1, 40, 40, 40);
+
+        transactionTemplate.executeWithoutResult(status -> memberRepository.deleteById(m20));
+        assertStats(teamA, 1, 30, 30, 30);
+
+        assertThat(teamStatsReconciler.verify().getDrifted()).isEmpty();
+    }
+
+    @Test
+    public void emptyTeamAndRollback(){
+        Long teamId = saveTeam("statsEmpty");
+
+        transactionTemplate.executeWithoutResult(status -> {
+            memberRepository.save(new Member("rolledBack", 50, teamRepository.findById(teamId).orElseThrow()));
+            memberRepository.flush();
+            status.setRollbackOnly();
+        });
+
+        TeamStats stats = teamRepository.findStats(teamId);
+        assertThat(stats.getMemberCount()).isZero();
+        assertThat(stats.getMinAge()).isNull();
+        assertThat(stats.getAverageAge()).isNull();
+    }
+
+    @Test
+    public void concurrentMovesBetweenHotTeams() throws Exception {
+        Long teamA = saveTeam("hotA");
+        Long teamB = saveTeam("hotB");
+        List<Long> members = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            members.add(saveMember("hot" + i, 20 + i % 3, teamA));
+        }
+
+        // 한 멤버를 여러 스레드가 동시에 옮기지는 않음 (멤버마다 A -> B -> A -> B)
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<CompletableFuture<Void>> moves = new ArrayList<>();
+            for (Long memberId : members) {
+                moves.add(CompletableFuture.runAsync(() -> {
+                    memberService.changeTeam(memberId, teamB);
+                    memberService.changeTeam(memberId, teamA);
+                    memberService.changeTeam(memberId, teamB);
+                }, executor));
+            }
+            CompletableFuture.allOf(moves.toArray(new CompletableFuture[0])).get();
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(teamRepository.findStats(teamA).getMemberCount()).isZero();
+        assertStats(teamB, 20, 419, 20, 22); // 20살 7명, 21살 7명, 22살 6명
+        assertThat(teamStatsReconciler.verify().getDrifted()).isEmpty();
+    }
+
+    @Test
+    public void reconcileRepairsChangesThatBypassedHibernate(){
+        Long teamId = saveTeam("statsDrift");
+        saveMember("drift1", 60, teamId);
+        jdbcTemplate.update("insert into member (member_id, username, age, team_id) values (?, ?, ?, ?)",
+                990_000_001L, "driftJdbc", 70, teamId);
+
+        assertStats(teamId, 1, 60, 60, 60);
+        assertThat(teamStatsReconciler.verify().getDrifted()).containsExactly(teamId);
+
+        TeamStatsReport report = teamStatsReconciler.reconcile();
+
+        assertThat(report.getDrifted()).containsExactly(teamId);
+        assertStats(teamId, 2, 130, 60, 70);
+        assertThat(teamStatsReconciler.verify().getDrifted()).isEmpty();
+    }
+
+    @Test
+    public void bulkUpdateRebuildsStats(){
+        Long teamId = saveTeam("statsBulk");
+        saveMember("bulk1", 140, teamId);
+        saveMember("bulk2", 141, teamId);
+
+        memberRepository.bulkAgePlus(140);
+
+        assertStats(teamId, 2, 283, 141, 142);
+    }
+
+    private Long saveTeam(String name){
+        return transactionTemplate.execute(status -> teamRepository.save(new Team(name)).getId());
+    }
+
+    private Long saveMember(String username, int age, Long teamId){
+        return transactionTemplate.execute(status ->
+                memberRepository.save(new Member(username, age, teamRepository.findById(teamId).orElseThrow())).getId());
+    }
+
+    private void assertStats(Long teamId, long count, long ageSum, int minAge, int maxAge){
+        TeamStats stats = teamRepository.findStats(teamId);
+        assertThat(stats.getMemberCount()).isEqualTo(count);
+        assertThat(stats.getAgeSum()).isEqualTo(ageSum);
+        assertThat(stats.getMinAge()).isEqualTo(minAge);
+        assertThat(stats.getMaxAge()).isEqualTo(maxAge);
+    }
+}
@@ -0,0 +1,72 @@
+package study.datajpa.repository.support;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberJpaRepository;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class BulkInserterTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @Test
+    public void bulkInsert_SpringDataJPA(){
+        List<Team> teams = List.of(new Team("bulkA"), new Team("bulkB"));
+        teamRepository.bulkInsert(teams);
+
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) {
+            members.add(new Member("bulk" + i, 71, teams.get(i % 2)));
+        }
+        BulkInsertResult result = memberRepository.bulkInsert(members);
+
+        assertThat(result.getRows()).isEqualTo(2500);
+        assertThat(result.getRowsPerSecond()).isPositive();
+        // flush + clear 가 돼서 영속성 컨텍스트에 남아있지 않음
+        assertThat(em.contains(members.get(0))).isFalse();
+        assertThat(members).allMatch(m -> m.getId() != null);
+        assertThat(memberJpaRepository.totalCount(71)).isEqualTo(2500);
+
+        Long teamACount = em.createQuery("select count(m) from Member m where m.team.id = :teamId", Long.class)
+                .setParameter("teamId", teams.get(0).getId())
+                .getSingleResult();
+        assertThat(teamACount).isEqualTo(1250);
+    }
+
+    @Test
+    public void bulkInsert_JPA(){
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            members.add(new Member("bulkJpa" + i, 72));
+        }
+
+        BulkInsertResult result = memberJpaRepository.bulkInsert(members);
+
+        assertThat(result.getRows()).isEqualTo(150);
+        assertThat(memberJpaRepository.totalCount(72)).isEqualTo(150);
+    }
+}
@@ -0,0 +1,219 @@
+package study.datajpa.repository.writebehind;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.dto.MemberSummaryDto;
+import study.datajpa.dto.TeamStats;
+import study.datajpa.dto.UsernameMatch;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+import study.datajpa.repository.paging.CountCache;
+import study.datajpa.repository.search.MemberUsernameIndex;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+    flush-interval 을 길게 잡아서 주기 flush 는 안 일어나게 하고 flush 를 직접 부르거나 flush-size 로만 확인
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.hikari.jdbc-url=jdbc:h2:mem:writeBehind",
+        "datajpa.write-behind.enabled=true",
+        "datajpa.write-behind.flush-interval=1h",
+        "datajpa.write-behind.flush-size=5",
+        "datajpa.write-behind.max-pending=8",
+        "datajpa.write-behind.offer-timeout=50ms"
+})
+class MemberWriteBehindBufferTest {
+
+    @Autowired
+    MemberWriteBehindBuffer buffer;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @Autowired
+    MemberUsernameIndex memberUsernameIndex;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    WriteBehindProperties properties;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    CountCache countCache;
+
+    @Autowired
+    ObjectProvider<MemberUsernameIndex> usernameIndex;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Test
+    public void repeatedWritesAreCoalescedAndVisibleBeforeFlush(){
+        Long id = save("behind", 10);
+        // 2차 캐시에 올려둠
+        transactionTemplate.execute(status -> memberRepository.findById(id).orElseThrow());
+
+        for (int age = 11; age <= 20; age++) {
+            buffer.updateAge(id, age);
+        }
+        buffer.updateUsername(id, "behindRenamed");
+
+        // 버퍼를 거쳐 읽으면 바로 보이고, DB 는 아직 그대로
+        assertThat(buffer.find(id)).get().extracting(MemberSummaryDto::getAge, MemberSummaryDto::getUsername)
+                .containsExactly(20, "behindRenamed");
+        assertThat(row(id)).containsEntry("AGE", 10).containsEntry("VERSION", 0L);
+
+        assertThat(buffer.flush()).isEqualTo(1);
+
+        // UPDATE 한번 => version 도 한번만 오름
+        assertThat(row(id)).containsEntry("AGE", 20).containsEntry("USERNAME", "behindRenamed").containsEntry("VERSION", 1L);
+        assertThat(buffer.pendingCount()).isZero();
+        // Entity 로 읽어도 캐시가 비워져서 새 값
+        Member member = transactionTemplate.execute(status -> memberRepository.findById(id).orElseThrow());
+        assertThat(member.getAge()).isEqualTo(20);
+        assertThat(member.getVersion()).isEqualTo(1L);
+    }
+
+    @Test
+    public void flushSizeTriggersBatchFlush() throws InterruptedException {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(save("sizeTrigger" + i, 30));
+        }
+
+        ids.forEach(id -> buffer.updateAge(id, 31));
+
+        for (int i = 0; i < 50 && buffer.pendingCount() > 0; i++) {
+            Thread.sleep(100);
+        }
+        assertThat(buffer.pendingCount()).isZero();
+        ids.forEach(id -> assertThat(row(id)).containsEntry("AGE", 31));
+    }
+
+    @Test
+    public void writerFlushesWhenBufferIsFull(){
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            ids.add(save("backpressure" + i, 40));
+        }
+
+        // 버퍼(8)보다 많이 써도 막히지 않고(가득 차면 쓰는 쪽이 직접 flush) 전부 반영됨
+        ids.forEach(id -> buffer.updateAge(id, 41));
+        assertThat(buffer.pendingCount()).isLessThanOrEqualTo(8 + 1);
+        buffer.flush();
+
+        ids.forEach(id -> assertThat(row(id)).containsEntry("AGE", 41));
+    }
+
+    @Test
+    public void usernameIndexFollowsFlushedRenames() throws InterruptedException {
+        Long id = save("indexBefore", 50);
+        for (int i = 0; i < 100 && !memberUsernameIndex.isReady(); i++) {
+            Thread.sleep(100);
+        }
+
+        buffer.updateUsername(id, "indexAfter");
+        buffer.flush();
+
+        assertThat(memberUsernameIndex.search("indexBefore", 10)).isEmpty();
+        assertThat(memberUsernameIndex.search("indexAfter", 10)).hasSize(1);
+    }
+
+    @Test
+    public void usernameIndexKeepsOneNameWhenEntityRenameRaces() throws InterruptedException {
+        Long id = save("raceBefore", 55);
+        for (int i = 0; i < 100 && !memberUsernameIndex.isReady(); i++) {
+            Thread.sleep(100);
+        }
+        buffer.updateUsername(id, "raceBuffer");
+
+        // Entity 로 이름을 바꾸고 커밋하기 전에 flush 시작 => flush 는 row lock 을 기다렸다가 커밋된 이름을 바뀌기 전 이름으로 읽어야 함
+        CompletableFuture<Integer> flushed = transactionTemplate.execute(status -> {
+            Member member = memberRepository.findById(id).orElseThrow();
+            ReflectionTestUtils.setField(member, "username", "raceEntity"); // username 을 바꾸는 메소드가 없어서 직접
+            memberRepository.flush();
+            CompletableFuture<Integer> flush = CompletableFuture.supplyAsync(buffer::flush);
+            sleep(300);
+            return flush;
+        });
+
+        assertThat(flushed.join()).isEqualTo(1);
+        assertThat(row(id)).containsEntry("USERNAME", "raceBuffer");
+        assertThat(memberUsernameIndex.search("race", 10).stream().map(UsernameMatch::getUsername).collect(Collectors.toList()))
+                .containsExactly("raceBuffer");
+    }
+
+    @Test
+    public void teamStatsFollowFlushedAges(){
+        Long teamId = transactionTemplate.execute(status -> teamRepository.save(new Team("behindTeam")).getId());
+        Long id = transactionTemplate.execute(status ->
+                memberRepository.save(new Member("behindStats", 70, teamRepository.findById(teamId).orElseThrow())).getId());
+
+        buffer.updateAge(id, 75);
+        buffer.flush();
+
+        TeamStats stats = teamRepository.findStats(teamId);
+        assertThat(stats.getMemberCount()).isEqualTo(1);
+        assertThat(stats.getMinAge()).isEqualTo(75);
+        assertThat(stats.getMaxAge()).isEqualTo(75);
+    }
+
+    @Test
+    public void shutdownFlushesRemainingWrites(){
+        // context 를 닫으면 다른 테스트와 같이 쓰는 2차 캐시(JCache CacheManager)도 닫혀서 버퍼를 따로 만들어서 확인
+        MemberWriteBehindBuffer standalone = new MemberWriteBehindBuffer(properties, jdbcTemplate, memberRepository,
+                entityManagerFactory, countCache, usernameIndex, transactionManager, meterRegistry);
+        Long id = save("shutdown", 60);
+        standalone.updateAge(id, 61);
+
+        standalone.shutdown();
+
+        assertThat(row(id)).containsEntry("AGE", 61);
+    }
+
+    private void sleep(long millis){
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Long save(String username, int age){
+        return transactionTemplate.execute(status -> memberRepository.save(new Member(username, age)).getId());
+    }
+
+    private Map<String, Object> row(Long id){
+        return jdbcTemplate.queryForMap("select age, username, version from member where member_id = ?", id);
+    }
+}
@@ -0,0 +1,48 @@
+package study.datajpa.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.domain.PageRequest;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.paging.CountMode;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/*
+    count 가 실패하는 상황은 DB 로 만들기 어려워서 MemberRepository 를 mock 으로
+ */
+class MemberPageStreamServiceTest {
+
+    ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void failureLeavesTruncatedJson(){
+        MemberRepository memberRepository = mock(MemberRepository.class);
+        when(memberRepository.streamMemberDtoByAge(anyInt(), any())).thenReturn(Stream.of(
+                new MemberDto(1L, "stream1", "team"), new MemberDto(2L, "stream2", null)));
+        when(memberRepository.countByAge(anyInt(), any())).thenThrow(new QueryTimeoutException("count 실패"));
+        MemberPageStreamService service = new MemberPageStreamService(memberRepository, objectMapper);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // 꽉 찬 페이지라 count 가 필요함
+        assertThatThrownBy(() -> service.writePageByAge(70, PageRequest.of(0, 2), CountMode.EXACT, out))
+                .isInstanceOf(QueryTimeoutException.class);
+
+        // 이미 나간 content 뒤에 ]} 가 붙어서 page 없는 정상 JSON 이 되면 안 됨
+        String written = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        assertThat(written).startsWith("{\"content\":[").doesNotContain("\"page\"");
+        assertThatThrownBy(() -> objectMapper.readTree(written)).isInstanceOf(JsonProcessingException.class);
+    }
+}
@@ -0,0 +1,142 @@
+package study.datajpa.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+import study.datajpa.service.retry.RetryOnOptimisticLock;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = "spring.datasource.hikari.jdbc-url=jdbc:h2:mem:optimisticLock")
+class MemberServiceTest {
+
+    @Autowired
+    MemberService memberService;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    AlwaysConflicting alwaysConflicting;
+
+    @Test
+    public void concurrentChangeTeamIsRetriedInsteadOfOverwritten() throws Exception {
+        int threads = 4;
+        Long memberId = transactionTemplate.execute(status -> memberRepository.save(new Member("contended", 10)).getId());
+        List<Long> teamIds = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            teamIds.add(transactionTemplate.execute(status -> teamRepository.save(new Team("contendedTeam")).getId()));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CyclicBarrier barrier = new CyclicBarrier(threads);
+        try {
+            List<CompletableFuture<Member>> futures = new ArrayList<>();
+            for (Long teamId : teamIds) {
+                futures.add(CompletableFuture.supplyAsync(() -> {
+                    await(barrier);
+                    return memberService.changeTeam(memberId, teamId);
+                }, executor));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        } finally {
+            executor.shutdown();
+        }
+
+        // 하나도 덮어써지지 않고 4번 모두 반영됨 (version 0 -> 4)
+        Member member = transactionTemplate.execute(status -> memberRepository.findById(memberId).orElseThrow());
+        assertThat(member.getVersion()).isEqualTo(threads);
+        assertThat(count("datajpa.optimistic.conflicts", "MemberService.changeTeam"))
+                .isEqualTo(count("datajpa.optimistic.retries", "MemberService.changeTeam"));
+    }
+
+    @Test
+    public void givesUpAfterMaxAttempts(){
+        alwaysConflicting.reset();
+
+        assertThatThrownBy(() -> alwaysConflicting.update())
+                .isInstanceOf(ObjectOptimisticLockingFailureException.class);
+
+        assertThat(alwaysConflicting.calls()).isEqualTo(2);
+        assertThat(count("datajpa.optimistic.retries", "AlwaysConflicting.update")).isEqualTo(1);
+        assertThat(count("datajpa.optimistic.exhausted", "AlwaysConflicting.update")).isEqualTo(1);
+    }
+
+    @Test
+    public void doesNotRetryInsideOuterTransaction(){
+        alwaysConflicting.reset();
+
+        assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status -> alwaysConflicting.update()))
+                .isInstanceOf(ObjectOptimisticLockingFailureException.class);
+
+        assertThat(alwaysConflicting.calls()).isEqualTo(1);
+    }
+
+    private double count(String name, String method){
+        return meterRegistry.get(name).tag("method", method).counter().count();
+    }
+
+    private static void await(CyclicBarrier barrier){
+        try {
+            barrier.await();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        AlwaysConflicting alwaysConflicting(){
+            return new AlwaysConflicting();
+        }
+    }
+
+    // 프록시(CGLIB)라서 필드는 직접 읽지 말고 메서드로
+    static class AlwaysConflicting {
+        private final AtomicInteger calls = new AtomicInteger();
+
+        public int calls(){
+            return calls.get();
+        }
+
+        public void reset(){
+            calls.set(0);
+        }
+
+        @RetryOnOptimisticLock(maxAttempts = 2, backoffMillis = 1)
+        @Transactional
+        public void update(){
+            calls.incrementAndGet();
+            throw new ObjectOptimisticLockingFailureException(Member.class, 1L);
+        }
+    }
+}